@@ -0,0 +1,68 @@
+package com.pal.playlist_transfer.benchmarks;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+import com.pal.playlist_transfer.dto.youtube.search.YoutubeSearchListResponseDto;
+import com.pal.playlist_transfer.dto.youtube.search.YoutubeSearchResultDto;
+import com.pal.playlist_transfer.json.SpotifyTrackPageParser;
+import com.pal.playlist_transfer.matching.CandidateScorer;
+import com.pal.playlist_transfer.matching.VideoCandidate;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picking the best of a track's search candidates, done for every track that reaches the SEARCH tier.
+ * Candidates are the recorded search.list results ("Shape of You": official video, lyric video,
+ * lyrics channel, live version, another song), repeated with accented titles for 10.
+ * The budget is a few microseconds per track, next to a search call of ~100ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandidateScoringBenchmark {
+
+    @Param({"5", "10"})
+    private int candidateCount;
+
+    private SpotifyTrackDto track;
+    private List<VideoCandidate> candidates;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JsonMapper objectMapper = JsonMapper.builder().build();
+        track = new SpotifyTrackPageParser(objectMapper)
+                .parse(Payloads.spotifyTracksPageProjected())
+                .tracks()
+                .get(0);
+
+        List<YoutubeSearchResultDto> results = objectMapper
+                .readValue(Payloads.youtubeSearchList(), YoutubeSearchListResponseDto.class)
+                .getItems();
+        // Durations as videos.list reports them: exact, a few seconds off, longer live cut
+        long[] durationsMs = {263_000, 234_000, 234_000, 290_000, 280_000};
+        candidates = new ArrayList<>(candidateCount);
+        for (int i = 0; i < candidateCount; i++) {
+            YoutubeSearchResultDto result = results.get(i % results.size());
+            String title = i < results.size() ? result.getSnippet().getTitle() : result.getSnippet().getTitle() + " – Señorita Édition";
+            candidates.add(new VideoCandidate(result.getId().getVideoId(), title,
+                    result.getSnippet().getChannelTitle(), durationsMs[i % durationsMs.length]));
+        }
+    }
+
+    @Benchmark
+    public CandidateScorer.Scored best() {
+        return CandidateScorer.best(track, candidates);
+    }
+
+    @Benchmark
+    public double scoreOne() {
+        return CandidateScorer.score(track, candidates.get(0));
+    }
+}
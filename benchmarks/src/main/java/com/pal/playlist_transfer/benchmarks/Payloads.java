@@ -0,0 +1,59 @@
+package com.pal.playlist_transfer.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Recorded API payloads used by the benchmarks (src/main/resources/payloads).
+ * A tracks page is built from one recorded item repeated with distinct ids, which keeps the
+ * repository small while giving the same shape and size as a real 100-track page.
+ */
+final class Payloads {
+
+    static final int PAGE_SIZE = 100;
+
+    private Payloads() {
+    }
+
+    /** Full /playlists/{id}/tracks page as Spotify returns it without a fields filter. */
+    static byte[] spotifyTracksPage() {
+        return tracksPage(load("spotify-playlist-track-item.json"));
+    }
+
+    /** The same page requested with the default transfer.spotify.track-fields projection. */
+    static byte[] spotifyTracksPageProjected() {
+        return tracksPage(load("spotify-playlist-track-item-projected.json"));
+    }
+
+    static byte[] youtubeSearchList() {
+        return load("youtube-search-list.json").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] tracksPage(String itemTemplate) {
+        StringBuilder page = new StringBuilder(itemTemplate.length() * PAGE_SIZE + 256);
+        page.append("{\"href\":\"https://api.spotify.com/v1/playlists/37i9dQZF1DXcBWIGoYBM5M/tracks?offset=0&limit=100\",\"items\":[");
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            if (i > 0) {
+                page.append(',');
+            }
+            // distinct track ids, same size as the recorded one (22 chars)
+            page.append(itemTemplate.replace("7qiZfU4dY1lWllzX7mPBI3", String.format("7qiZfU4dY1lWllzX7m%04d", i)));
+        }
+        page.append("],\"limit\":100,\"next\":\"https://api.spotify.com/v1/playlists/37i9dQZF1DXcBWIGoYBM5M/tracks?offset=100&limit=100\",")
+                .append("\"offset\":0,\"previous\":null,\"total\":1000}");
+        return page.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String load(String name) {
+        try (InputStream in = Payloads.class.getResourceAsStream("/payloads/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing payload " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
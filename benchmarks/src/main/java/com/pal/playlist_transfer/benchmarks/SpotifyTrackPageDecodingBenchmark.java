@@ -0,0 +1,74 @@
+package com.pal.playlist_transfer.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.pal.playlist_transfer.dto.spotify.SpotifyPagingObject;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackItemDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackPage;
+import com.pal.playlist_transfer.json.SpotifyTrackPageParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding one 100-track Spotify page: ObjectMapper binding (the old path) vs the streaming
+ * SpotifyTrackPageParser, each on the full payload and on the fields= projected payload.
+ * Run with -prof gc to see the allocation per page as well. The payloadBytes column is the size
+ * of the page each variant decodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpotifyTrackPageDecodingBenchmark {
+
+    private static final TypeReference<SpotifyPagingObject<SpotifyTrackItemDto>> PAGE_TYPE = new TypeReference<>() {};
+
+    private ObjectMapper objectMapper;
+    private SpotifyTrackPageParser parser;
+    private byte[] fullPage;
+    private byte[] projectedPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = JsonMapper.builder().build();
+        parser = new SpotifyTrackPageParser(objectMapper);
+        fullPage = Payloads.spotifyTracksPage();
+        projectedPage = Payloads.spotifyTracksPageProjected();
+    }
+
+    // Reported next to the score instead of printed; set, not summed, so it reads as bytes per page
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Payload {
+        public long payloadBytes;
+    }
+
+    @Benchmark
+    public SpotifyTrackPage objectMapperFullPayload(Payload payload) throws IOException {
+        payload.payloadBytes = fullPage.length;
+        return SpotifyTrackPage.from(objectMapper.readValue(fullPage, PAGE_TYPE));
+    }
+
+    @Benchmark
+    public SpotifyTrackPage objectMapperProjectedPayload(Payload payload) throws IOException {
+        payload.payloadBytes = projectedPage.length;
+        return SpotifyTrackPage.from(objectMapper.readValue(projectedPage, PAGE_TYPE));
+    }
+
+    @Benchmark
+    public SpotifyTrackPage streamingParserFullPayload(Payload payload) throws IOException {
+        payload.payloadBytes = fullPage.length;
+        return parser.parse(fullPage);
+    }
+
+    @Benchmark
+    public SpotifyTrackPage streamingParserProjectedPayload(Payload payload) throws IOException {
+        payload.payloadBytes = projectedPage.length;
+        return parser.parse(projectedPage);
+    }
+}
@@ -0,0 +1,75 @@
+package com.pal.playlist_transfer.benchmarks;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.pal.playlist_transfer.cache.LruTtlCache;
+import com.pal.playlist_transfer.dto.spotify.SpotifyArtistDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+import com.pal.playlist_transfer.json.SpotifyTrackPageParser;
+import com.pal.playlist_transfer.matching.TrackKeys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-track work the transfer pipeline does before any HTTP call:
+ * search query and cache key building, the "[Track i/n] Processing" log line, and the
+ * in-memory match cache lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackKeysBenchmark {
+
+    private List<SpotifyTrackDto> tracks;
+    private LruTtlCache<String, String> cache;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        tracks = new SpotifyTrackPageParser(JsonMapper.builder().build())
+                .parse(Payloads.spotifyTracksPageProjected())
+                .tracks();
+        cache = new LruTtlCache<>(50_000, Duration.ofHours(6));
+        for (SpotifyTrackDto track : tracks) {
+            cache.put("key:" + TrackKeys.normalizedKey(track), "JGwWNGJdvx8");
+        }
+    }
+
+    private SpotifyTrackDto nextTrack() {
+        next = (next + 1) % tracks.size();
+        return tracks.get(next);
+    }
+
+    @Benchmark
+    public String searchQuery() {
+        return TrackKeys.searchQuery(nextTrack());
+    }
+
+    @Benchmark
+    public String normalizedKey() {
+        return TrackKeys.normalizedKey(nextTrack());
+    }
+
+    // Same formatting work as the per-track INFO line in TransferService, minus the appender
+    @Benchmark
+    public void processingLogLine(Blackhole blackhole) {
+        SpotifyTrackDto track = nextTrack();
+        String artists = track.getArtists().stream().map(SpotifyArtistDto::getName).collect(Collectors.joining(", "));
+        blackhole.consume(MessageFormatter.arrayFormat("[Track {}/{}] Processing: {} by {}",
+                new Object[]{next + 1, tracks.size(), track.getName(), artists}).getMessage());
+    }
+
+    @Benchmark
+    public String memoryCacheLookup() {
+        return cache.get("key:" + TrackKeys.normalizedKey(nextTrack()));
+    }
+}
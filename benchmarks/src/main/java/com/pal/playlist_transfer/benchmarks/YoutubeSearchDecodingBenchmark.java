@@ -0,0 +1,35 @@
+package com.pal.playlist_transfer.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.pal.playlist_transfer.dto.youtube.search.YoutubeSearchListResponseDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a recorded search.list response (5 results) into YoutubeSearchListResponseDto.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YoutubeSearchDecodingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private byte[] searchResponse;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = JsonMapper.builder().build();
+        searchResponse = Payloads.youtubeSearchList();
+    }
+
+    @Benchmark
+    public YoutubeSearchListResponseDto decodeSearchList() throws IOException {
+        return objectMapper.readValue(searchResponse, YoutubeSearchListResponseDto.class);
+    }
+}
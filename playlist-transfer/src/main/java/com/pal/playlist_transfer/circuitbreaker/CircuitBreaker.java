@@ -0,0 +1,134 @@
+package com.pal.playlist_transfer.circuitbreaker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Count-based circuit breaker for one provider.
+ * CLOSED: everything goes through, outcomes are kept in a sliding window; the circuit opens once
+ * the failure rate reaches the threshold.
+ * OPEN: nothing goes through until openDuration has passed, callers are told how long to wait.
+ * HALF_OPEN: up to halfOpenProbes calls go through; if all succeed the circuit closes, a single
+ * failure opens it again.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    /**
+     * Answer to {@link #tryAcquire()}: either the call may go (possibly as a half-open probe) or it
+     * has to wait waitNanos before asking again.
+     */
+    public record Permit(boolean granted, boolean probe, long waitNanos) {
+    }
+
+    @FunctionalInterface
+    public interface TransitionListener {
+        void onTransition(State from, State to);
+    }
+
+    private static final long PROBE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final boolean[] window; // true = failure
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final TransitionListener listener;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openedAtNanos;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openNanos,
+                          int halfOpenProbes, TransitionListener listener) {
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.listener = listener;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN) {
+            long remaining = openedAtNanos + openNanos - System.nanoTime();
+            if (remaining > 0) {
+                return new Permit(false, false, remaining);
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                return new Permit(false, false, PROBE_WAIT_NANOS);
+            }
+            probesInFlight++;
+            return new Permit(true, true, 0);
+        }
+        return new Permit(true, false, 0);
+    }
+
+    public synchronized void onResult(Permit permit, boolean success) {
+        if (permit.probe()) {
+            probesInFlight--;
+            if (state != State.HALF_OPEN) {
+                return;
+            }
+            if (!success) {
+                open();
+            } else if (++probeSuccesses >= halfOpenProbes) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (recorded == window.length && window[next]) {
+            failures--;
+        }
+        window[next] = !success;
+        if (!success) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+        recorded = Math.min(recorded + 1, window.length);
+        if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    // Cancelled call: frees the probe slot without counting an outcome
+    public synchronized void onCancel(Permit permit) {
+        if (permit.probe()) {
+            probesInFlight--;
+        }
+    }
+
+    private void open() {
+        openedAtNanos = System.nanoTime();
+        transition(State.OPEN);
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        // Every state starts with a clean slate
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        probeSuccesses = 0;
+        if (from != to) {
+            listener.onTransition(from, to);
+        }
+    }
+}
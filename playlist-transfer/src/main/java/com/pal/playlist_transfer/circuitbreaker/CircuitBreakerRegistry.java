@@ -0,0 +1,52 @@
+package com.pal.playlist_transfer.circuitbreaker;
+
+import com.pal.playlist_transfer.config.CircuitBreakerProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link CircuitBreaker} per registration id ("spotify", "google").
+ * Metrics: transfer.circuit.state (0 = closed, 1 = half-open, 2 = open) and
+ * transfer.circuit.transitions (from/to), both tagged by provider. Time calls spent held back
+ * is recorded by the filter as transfer.circuit.paused.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CircuitBreakerRegistry {
+
+    private final CircuitBreakerProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CircuitBreaker get(String registrationId) {
+        return breakers.computeIfAbsent(registrationId, this::create);
+    }
+
+    private CircuitBreaker create(String registrationId) {
+        CircuitBreaker breaker = new CircuitBreaker(properties.getWindowSize(), properties.getMinimumCalls(),
+                properties.getFailureRateThreshold(), properties.getOpenDuration().toNanos(), properties.getHalfOpenProbes(),
+                (from, to) -> {
+                    if (to == CircuitBreaker.State.OPEN) {
+                        log.warn("Circuit for {} is OPEN (was {}): holding its calls for {}", registrationId, from, properties.getOpenDuration());
+                    } else {
+                        log.info("Circuit for {} is {} (was {})", registrationId, to, from);
+                    }
+                    meterRegistry.counter("transfer.circuit.transitions",
+                            "provider", registrationId, "from", from.name().toLowerCase(Locale.ROOT), "to", to.name().toLowerCase(Locale.ROOT)).increment();
+                });
+        Gauge.builder("transfer.circuit.state", breaker, b -> b.state().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .tag("provider", registrationId)
+                .register(meterRegistry);
+        return breaker;
+    }
+}
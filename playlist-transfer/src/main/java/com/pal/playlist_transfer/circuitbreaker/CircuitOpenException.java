@@ -0,0 +1,11 @@
+package com.pal.playlist_transfer.circuitbreaker;
+
+/**
+ * A call was held back by an open circuit for longer than transfer.circuit-breaker.max-pause.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String message) {
+        super(message);
+    }
+}
@@ -1,27 +1,56 @@
 package com.pal.playlist_transfer.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.task.DelegatingSecurityContextAsyncTaskExecutor;
 
+@Slf4j
 @Configuration
 @EnableAsync
+@EnableScheduling // transfer admission re-checks
 public class AsyncConfig {
     // Define the primary TaskExecutor bean Spring should use for @Async
     // Note: Bean name "taskExecutor" is often looked for by default.
     @Bean(name = "taskExecutor")
-    public TaskExecutor taskExecutor() {
+    public TaskExecutor taskExecutor(ExecutorProperties executorProperties, MeterRegistry meterRegistry) {
+        log.info("Using {} threads for async transfers", executorProperties.getMode());
+        if (executorProperties.getMode() == ExecutorProperties.Mode.VIRTUAL) {
+            // Virtual threads: no pool, no queue, nothing to reject. Parked transfers cost a few KB each.
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("AsyncTransfer-");
+            executor.setVirtualThreads(true);
+            // Every task gets its own thread right away, so there is never a queue; registered for both
+            // modes so dashboards don't depend on the mode
+            Gauge.builder("transfer.executor.queued", () -> 0)
+                    .description("Async transfer tasks waiting for an executor thread")
+                    .register(meterRegistry);
+            return new DelegatingSecurityContextAsyncTaskExecutor(executor);
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         // Configure core pool size, max pool size, queue capacity, etc. as needed
-        executor.setCorePoolSize(5); // Example: Start with 5 threads
-        executor.setMaxPoolSize(10); // Example: Allow up to 10 threads
-        executor.setQueueCapacity(25); // Example: Queue up to 25 tasks
+        executor.setCorePoolSize(executorProperties.getCorePoolSize());
+        executor.setMaxPoolSize(executorProperties.getMaxPoolSize());
+        executor.setQueueCapacity(executorProperties.getQueueCapacity());
         executor.setThreadNamePrefix("AsyncTransfer-");
         executor.initialize(); // Initialize the pool
 
+        // executor.queued / executor.active / executor.pool.size{name="transfer"}; the wrapper below hides
+        // the pool from Boot's own executor metrics
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "transfer", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("transfer.executor.queued", executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                .description("Async transfer tasks waiting for an executor thread")
+                .register(meterRegistry);
+
         // **** Wrap the executor to propagate SecurityContext ****
         return new DelegatingSecurityContextAsyncTaskExecutor(executor);
     }
@@ -0,0 +1,31 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.circuit-breaker")
+public class CircuitBreakerProperties {
+
+    private boolean enabled = true;
+
+    // Outcomes of the last N calls per provider the failure rate is computed over
+    private int windowSize = 20;
+
+    // No opening before the window has seen this many calls
+    private int minimumCalls = 10;
+
+    // Share of failed calls (5xx, 429, connection errors) that opens the circuit
+    private double failureRateThreshold = 0.5;
+
+    // How long an open circuit holds calls back before probing
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    // Probe calls let through while half-open; all must succeed to close again
+    private int halfOpenProbes = 3;
+
+    // A call held back longer than this fails, so a transfer against a provider that stays down ends as FAILED (resumable)
+    private Duration maxPause = Duration.ofMinutes(10);
+}
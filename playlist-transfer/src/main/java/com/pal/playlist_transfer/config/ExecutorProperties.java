@@ -0,0 +1,25 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.executor")
+public class ExecutorProperties {
+
+    public enum Mode {
+        PLATFORM, // bounded ThreadPoolTaskExecutor (pool + queue, rejects when both are full)
+        VIRTUAL   // one Java 21 virtual thread per task, never rejects
+    }
+
+    private Mode mode = Mode.PLATFORM;
+
+    // PLATFORM mode only
+    private int corePoolSize = 5;
+    private int maxPoolSize = 10;
+    private int queueCapacity = 25;
+
+    // Transfers allowed to run at the same time regardless of mode; the rest wait for a slot.
+    // This is what protects the Spotify/YouTube quotas, not the thread count.
+    private int maxConcurrentTransfers = 50;
+}
@@ -0,0 +1,92 @@
+package com.pal.playlist_transfer.config;
+
+import com.pal.playlist_transfer.webclient.ApiProviders;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reactor Netty connector of the shared WebClient: one connection pool per provider host
+ * (api.spotify.com, www.googleapis.com), sized and timed out independently, so a slow provider
+ * can't starve the other one of connections.
+ */
+@Slf4j
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider providerConnectionProvider(HttpClientProperties properties,
+                                                  SpotifyProperties spotifyProperties,
+                                                  YoutubeProperties youtubeProperties) {
+        ConnectionProvider.Builder builder = applyPool(ConnectionProvider.builder("transfer"), properties.getDefaults(), properties);
+        providerHosts(spotifyProperties, youtubeProperties).forEach((registrationId, uri) -> {
+            HttpClientProperties.Pool pool = properties.pool(registrationId);
+            log.info("Connection pool for {} ({}): {} connections, {} pending", registrationId, uri.getHost(),
+                    pool.getMaxConnections(), pool.getPendingAcquireMaxCount());
+            builder.forRemoteHost(InetSocketAddress.createUnresolved(uri.getHost(), port(uri)),
+                    host -> applyPool(host, pool, properties));
+        });
+        // Evict idle/expired connections even when no call comes by to notice
+        return builder.evictInBackground(Duration.ofSeconds(30)).build();
+    }
+
+    @Bean
+    ReactorClientHttpConnector providerHttpConnector(ConnectionProvider providerConnectionProvider,
+                                                     HttpClientProperties properties,
+                                                     SpotifyProperties spotifyProperties,
+                                                     YoutubeProperties youtubeProperties) {
+        Map<String, Duration> responseTimeouts = new HashMap<>();
+        providerHosts(spotifyProperties, youtubeProperties).forEach((registrationId, uri) ->
+                responseTimeouts.put(uri.getHost(), properties.pool(registrationId).getResponseTimeout()));
+
+        HttpClient httpClient = HttpClient.create(providerConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .responseTimeout(properties.getDefaults().getResponseTimeout())
+                // Per provider host
+                .doOnRequest((request, connection) -> {
+                    Duration responseTimeout = responseTimeouts.get(URI.create(request.resourceUrl()).getHost());
+                    if (responseTimeout != null) {
+                        request.responseTimeout(responseTimeout);
+                    }
+                });
+        if (properties.isHttp2()) {
+            // HTTP/2 where ALPN offers it, HTTP/1.1 otherwise
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    private static Map<String, URI> providerHosts(SpotifyProperties spotifyProperties, YoutubeProperties youtubeProperties) {
+        return Map.of(
+                ApiProviders.SPOTIFY, URI.create(spotifyProperties.getBaseUrl()),
+                ApiProviders.GOOGLE, URI.create(youtubeProperties.getBaseUrl()));
+    }
+
+    private static <T extends ConnectionProvider.ConnectionPoolSpec<T>> T applyPool(T spec, HttpClientProperties.Pool pool,
+                                                                                   HttpClientProperties properties) {
+        return spec.maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .metrics(properties.isMetrics());
+    }
+
+    private static int port(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+}
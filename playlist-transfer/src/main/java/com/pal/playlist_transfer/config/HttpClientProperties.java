@@ -0,0 +1,75 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.http-client")
+public class HttpClientProperties {
+
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    // Negotiate HTTP/2 via ALPN (https base URLs only), one multiplexed connection carries many calls
+    private boolean http2 = false;
+
+    // reactor.netty.connection.provider.* gauges (active, idle, pending) per remote host
+    private boolean metrics = true;
+
+    // Any host without its own pool below, and every setting a provider's pool leaves out
+    private Pool defaults = Pool.builtIn();
+
+    // Keyed by OAuth2 registration id ("spotify", "google"); the host comes from the provider's base URL.
+    // Only what differs from the defaults needs to be set.
+    private Map<String, Pool> providers = new HashMap<>();
+
+    /**
+     * @return the provider's pool merged over the defaults, the defaults if it has none.
+     */
+    public Pool pool(String registrationId) {
+        Pool pool = providers.get(registrationId);
+        return pool != null ? pool.over(defaults) : defaults;
+    }
+
+    // Unset (null) settings are inherited, see over()
+    @Data
+    public static class Pool {
+        private Integer maxConnections;
+
+        // Calls waiting for a connection; more than this fail right away instead of piling up
+        private Integer pendingAcquireMaxCount;
+        private Duration pendingAcquireTimeout;
+
+        // Below the providers' keep-alive timeouts, so we never write to a connection they already closed
+        private Duration maxIdleTime;
+        private Duration maxLifeTime;
+
+        // Time to the response headers, per call (retries get a fresh one)
+        private Duration responseTimeout;
+
+        static Pool builtIn() {
+            Pool pool = new Pool();
+            pool.maxConnections = 50;
+            pool.pendingAcquireMaxCount = 500;
+            pool.pendingAcquireTimeout = Duration.ofSeconds(30);
+            pool.maxIdleTime = Duration.ofSeconds(30);
+            pool.maxLifeTime = Duration.ofMinutes(5);
+            pool.responseTimeout = Duration.ofSeconds(30);
+            return pool;
+        }
+
+        Pool over(Pool defaults) {
+            Pool merged = new Pool();
+            merged.maxConnections = maxConnections != null ? maxConnections : defaults.maxConnections;
+            merged.pendingAcquireMaxCount = pendingAcquireMaxCount != null ? pendingAcquireMaxCount : defaults.pendingAcquireMaxCount;
+            merged.pendingAcquireTimeout = pendingAcquireTimeout != null ? pendingAcquireTimeout : defaults.pendingAcquireTimeout;
+            merged.maxIdleTime = maxIdleTime != null ? maxIdleTime : defaults.maxIdleTime;
+            merged.maxLifeTime = maxLifeTime != null ? maxLifeTime : defaults.maxLifeTime;
+            merged.responseTimeout = responseTimeout != null ? responseTimeout : defaults.responseTimeout;
+            return merged;
+        }
+    }
+}
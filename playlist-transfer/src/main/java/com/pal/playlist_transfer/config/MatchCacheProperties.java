@@ -0,0 +1,17 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.match-cache")
+public class MatchCacheProperties {
+
+    private boolean enabled = true;
+
+    // In-memory tier in front of the track_matches table
+    private int maxEntries = 50_000;
+    private Duration ttl = Duration.ofHours(6);
+}
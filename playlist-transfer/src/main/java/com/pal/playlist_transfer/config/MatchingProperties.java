@@ -0,0 +1,35 @@
+package com.pal.playlist_transfer.config;
+
+import com.pal.playlist_transfer.model.MatchTier;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.matching")
+public class MatchingProperties {
+
+    // Enabled tiers; they always run cheapest first (CACHE, KNOWN_ID, VIDEOS_LIST, SEARCH)
+    private Set<MatchTier> tiers = EnumSet.allOf(MatchTier.class);
+
+    // Matches of the track itself or of its ISRC verified within this are used without re-checking;
+    // keep it above transfer.match-cache.ttl
+    private Duration knownIdMaxAge = Duration.ofDays(30);
+
+    // Older known videos re-checked with one videos.list call
+    private int maxCandidates = 5;
+
+    // SEARCH tier: fetch searchCandidates results (same 100 units), look up their durations with
+    // videos.list (1 unit) and take the best scoring one (CandidateScorer). Off = first result, as is.
+    private boolean scoring = true;
+    private int searchCandidates = 5;
+
+    // Best candidate scoring below this counts as not found, a wrong video is worse than none
+    private double minScore = 0.4;
+
+    // Sync: tracks no video was found for are looked up again once their last lookup is this old
+    private Duration notFoundRetryAfter = Duration.ofDays(7);
+}
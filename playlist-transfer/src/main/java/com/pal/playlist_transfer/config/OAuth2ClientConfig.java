@@ -1,7 +1,15 @@
 package com.pal.playlist_transfer.config;
 
+import com.pal.playlist_transfer.oauth2.CachingOAuth2AuthorizedClientService;
+import com.pal.playlist_transfer.webclient.CircuitBreakerExchangeFilterFunction;
+import com.pal.playlist_transfer.webclient.MetricsExchangeFilterFunction;
+import com.pal.playlist_transfer.webclient.RateLimitingExchangeFilterFunction;
+import com.pal.playlist_transfer.webclient.RetryExchangeFilterFunction;
+import com.pal.playlist_transfer.webclient.YoutubeQuotaExchangeFilterFunction;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.security.oauth2.client.JdbcOAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
@@ -23,9 +31,14 @@ public class OAuth2ClientConfig {
     @Bean
     public OAuth2AuthorizedClientService authorizedClientService(
             JdbcOperations jdbcOperations,
-            ClientRegistrationRepository clientRegistrationRepository) {
-        // Provides the service logic using JDBC
-        return new JdbcOAuth2AuthorizedClientService(jdbcOperations, clientRegistrationRepository);
+            ClientRegistrationRepository clientRegistrationRepository,
+            TokenCacheProperties tokenCacheProperties,
+            MeterRegistry meterRegistry) {
+        // Provides the service logic using JDBC, with an in-memory cache in front so
+        // resolving the token for every WebClient call doesn't cost a database round trip
+        return new CachingOAuth2AuthorizedClientService(
+                new JdbcOAuth2AuthorizedClientService(jdbcOperations, clientRegistrationRepository),
+                tokenCacheProperties, meterRegistry);
     }
 
     @Bean
@@ -37,7 +50,14 @@ public class OAuth2ClientConfig {
     }
 
     @Bean
-    WebClient webClient(OAuth2AuthorizedClientManager authorizedClientManager) {
+    WebClient webClient(OAuth2AuthorizedClientManager authorizedClientManager,
+                        ReactorClientHttpConnector providerHttpConnector,
+                        RetryExchangeFilterFunction retryFilter,
+                        CircuitBreakerExchangeFilterFunction circuitBreakerFilter,
+                        YoutubeQuotaExchangeFilterFunction quotaFilter,
+                        RateLimitingExchangeFilterFunction rateLimitingFilter,
+                        MetricsExchangeFilterFunction metricsFilter,
+                        SpotifyProperties spotifyProperties) {
         // This filter function integrates WebClient with the OAuth2 client manager
         // to automatically handle tokens.
         ServletOAuth2AuthorizedClientExchangeFilterFunction oauth2Client =
@@ -45,7 +65,22 @@ public class OAuth2ClientConfig {
         oauth2Client.setDefaultOAuth2AuthorizedClient(true); // Attempt to authorize requests by default
 
         return WebClient.builder()
+                // Pools and timeouts per provider host, see HttpClientConfig
+                .clientConnector(providerHttpConnector)
+                // Spotify track pages are the largest bodies read, same bound with or without lean parsing
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize((int) spotifyProperties.getMaxPageSize().toBytes()))
+                // Outermost filter: retries/backoff, each attempt goes through everything below
+                .filter(retryFilter)
+                // YouTube calls wait here for quota, before they take a circuit breaker permit: a call paused
+                // until the quota reset must not hold one of the few half-open probe slots
+                .filter(quotaFilter)
+                // Calls to a provider whose circuit is open are held here until it half-opens
+                .filter(circuitBreakerFilter)
+                // Throttled requests wait here, before a token is resolved for them
+                .filter(rateLimitingFilter)
                 .apply(oauth2Client.oauth2Configuration())
+                // Innermost: times the HTTP exchange itself
+                .filter(metricsFilter)
                 .build();
     }
 
@@ -0,0 +1,31 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Keyed by OAuth2 registration id ("spotify", "google")
+    private Map<String, ProviderLimits> providers = new HashMap<>();
+
+    @Data
+    public static class ProviderLimits {
+        // Budget shared by every user of this app against the provider (app-level quota)
+        private Limit provider = new Limit();
+        // Budget for a single principal, shared by all of that user's concurrent transfers
+        private Limit perUser = new Limit();
+    }
+
+    @Data
+    public static class Limit {
+        private double permitsPerSecond = 10.0;
+        private int burst = 10;
+    }
+}
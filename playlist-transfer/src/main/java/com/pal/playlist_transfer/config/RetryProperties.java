@@ -0,0 +1,29 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.retry")
+public class RetryProperties {
+
+    private boolean enabled = true;
+
+    // Attempts per request, including the first one
+    private int maxAttempts = 4;
+
+    // Exponential backoff: initialBackoff * 2^(attempt - 1), capped at maxBackoff
+    private Duration initialBackoff = Duration.ofMillis(500);
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    // Share of each backoff that is randomized (0 = none, 1 = full jitter)
+    private double jitter = 0.5;
+
+    // No retry is started once the request has been going on for this long, waits included
+    private Duration deadline = Duration.ofSeconds(90);
+
+    // A longer Retry-After than this is not waited for, the error goes to the caller
+    private Duration maxRetryAfter = Duration.ofSeconds(60);
+}
@@ -1,5 +1,9 @@
 package com.pal.playlist_transfer.config;
 
+import com.pal.playlist_transfer.oauth2.LinkedAccountPrincipalResolver;
+import com.pal.playlist_transfer.oauth2.RoutingOAuth2AuthorizedClientManager;
+import com.pal.playlist_transfer.oauth2.SingleFlightOAuth2AuthorizedClientManager;
+import com.pal.playlist_transfer.oauth2.TokenRefreshCoordinator;
 import com.pal.playlist_transfer.service.CustomOAuth2UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -7,9 +11,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProvider;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProviderBuilder;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.client.web.DefaultOAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
@@ -28,6 +34,7 @@ public class SecurityConfig {
         http
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/", "/login/**", "/error").permitAll()
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll() // scraped without a login
                         .anyRequest().authenticated()
                 )
                 .oauth2Login(oauth2 -> oauth2
@@ -53,12 +60,16 @@ public class SecurityConfig {
     @Bean
     OAuth2AuthorizedClientManager authorizedClientManager(
             ClientRegistrationRepository clientRegistrationRepository,
-            OAuth2AuthorizedClientRepository authorizedClientRepository) {
+            OAuth2AuthorizedClientRepository authorizedClientRepository,
+            OAuth2AuthorizedClientService authorizedClientService,
+            TokenRefreshCoordinator tokenRefreshCoordinator,
+            TokenRefreshProperties tokenRefreshProperties,
+            LinkedAccountPrincipalResolver principalResolver) {
 
         OAuth2AuthorizedClientProvider authorizedClientProvider =
                 OAuth2AuthorizedClientProviderBuilder.builder()
                         .authorizationCode()
-                        .refreshToken() // IMPORTANT: Enable the refresh token grant flow
+                        .refreshToken(refresh -> refresh.clockSkew(tokenRefreshProperties.getClockSkew())) // IMPORTANT: Enable the refresh token grant flow
                         .clientCredentials() // For other OAuth flows if needed later
                         // .password() // If you were using password grant
                         .build();
@@ -68,7 +79,22 @@ public class SecurityConfig {
                         clientRegistrationRepository, authorizedClientRepository);
         authorizedClientManager.setAuthorizedClientProvider(authorizedClientProvider);
 
-        return authorizedClientManager;
+        // Outside of an HTTP request (async transfers, queue workers) there is no session to
+        // start a login from: tokens are resolved by principal name and refreshed, nothing else
+        AuthorizedClientServiceOAuth2AuthorizedClientManager workerManager =
+                new AuthorizedClientServiceOAuth2AuthorizedClientManager(
+                        clientRegistrationRepository, authorizedClientService);
+        workerManager.setAuthorizedClientProvider(OAuth2AuthorizedClientProviderBuilder.builder()
+                .refreshToken(refresh -> refresh.clockSkew(tokenRefreshProperties.getClockSkew()))
+                .build());
+
+        // Concurrent calls of one user share a single refresh grant, in both modes
+        return new RoutingOAuth2AuthorizedClientManager(
+                new SingleFlightOAuth2AuthorizedClientManager(authorizedClientManager, authorizedClientService,
+                        tokenRefreshCoordinator, tokenRefreshProperties.getClockSkew()),
+                new SingleFlightOAuth2AuthorizedClientManager(workerManager, authorizedClientService,
+                        tokenRefreshCoordinator, tokenRefreshProperties.getClockSkew()),
+                principalResolver);
     }
 
 
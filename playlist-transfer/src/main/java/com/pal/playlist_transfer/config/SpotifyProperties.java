@@ -0,0 +1,44 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.spotify")
+public class SpotifyProperties {
+
+    public enum PageFetchMode {
+        SEQUENTIAL, // follow the "next" links one page after the other
+        PARALLEL    // read total/limit from the first page, then fetch all other offsets concurrently
+    }
+
+    // Web API root, overridden by the load tests to point at a local stub
+    private String baseUrl = "https://api.spotify.com/v1";
+
+    private PageFetchMode pageFetchMode = PageFetchMode.PARALLEL;
+
+    // Max track pages in flight per playlist in PARALLEL mode
+    private int pageFetchConcurrency = 4;
+
+    // Tracks per page, Spotify allows at most 100
+    private int pageSize = 100;
+
+    // Field projection for /playlists/{id}/tracks (Spotify "fields" syntax). Must keep the paging fields.
+    private String trackFields = "next,offset,limit,total,"
+            + "items(track(id,name,duration_ms,is_local,uri,external_ids(isrc),artists(id,name),album(id,name)))";
+
+    // Field projection for /playlists/{id}
+    private String playlistFields = "id,name,description,snapshot_id,tracks(total)";
+
+    // ISO country code or "from_token"; unset = Spotify's default
+    private String market;
+
+    // Parse track pages with the streaming parser instead of binding the full Jackson DTO tree
+    private boolean leanParsing = true;
+
+    // Largest track page buffered, bigger ones fail the fetch (DataBufferLimitException). Also the WebClient
+    // codecs' limit, which bounds the Jackson path. Sized for unprojected pages (blank track-fields): 100 full
+    // tracks with markets and images come to about 750KB, projected ones to about 60KB.
+    private DataSize maxPageSize = DataSize.ofMegabytes(2);
+}
@@ -0,0 +1,19 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.token-cache")
+public class TokenCacheProperties {
+
+    private boolean enabled = true;
+
+    // Authorized clients (one per user and provider) kept in front of oauth2_authorized_client
+    private int maxEntries = 10_000;
+
+    // Writes go through the cache, so this only bounds staleness against changes made by other instances
+    private Duration ttl = Duration.ofMinutes(10);
+}
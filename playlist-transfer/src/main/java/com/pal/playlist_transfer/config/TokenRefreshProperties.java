@@ -0,0 +1,23 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.token-refresh")
+public class TokenRefreshProperties {
+
+    // Background refresh of the tokens of users with active transfers
+    private boolean proactive = true;
+
+    // A call refreshes the access token when it expires within this window (Spring's default is 60s)
+    private Duration clockSkew = Duration.ofSeconds(60);
+
+    // The background refresh renews tokens expiring within this window, well before any call has to
+    private Duration refreshAhead = Duration.ofMinutes(5);
+
+    // How often the background refresh looks for expiring tokens
+    private Duration checkInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,27 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.pipeline")
+public class TransferPipelineProperties {
+
+    // How many YouTube searches a single transfer may have in flight at once
+    private int searchParallelism = 4;
+
+    // playlistItems.insert calls a single transfer may have in flight; order is kept with explicit positions
+    private int insertParallelism = 3;
+
+    // Identical YouTube searches (same normalized query) in flight at the same time, across all
+    // transfers, share one search.list call
+    private boolean coalesceSearches = true;
+
+    // Finished tracks are persisted and the job checkpoint advanced every N tracks
+    private int checkpointBatchSize = 20;
+
+    // How long the in-memory progress of a finished transfer stays available
+    private Duration progressRetention = Duration.ofHours(1);
+}
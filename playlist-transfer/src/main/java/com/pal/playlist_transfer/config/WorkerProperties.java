@@ -0,0 +1,24 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.worker")
+public class WorkerProperties {
+
+    public enum Mode {
+        ASYNC, // the admitting node runs the transfer on its @Async executor, queued jobs only live in memory
+        QUEUE  // QUEUED jobs in the database are the queue; the workers of every node claim and run them
+    }
+
+    private Mode mode = Mode.ASYNC;
+
+    // Identifies this node's claims; must be stable across restarts so its running jobs are re-queued on startup
+    private String id = "local";
+
+    // QUEUE mode only: how often the queue is polled for claimable jobs
+    private Duration pollInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,34 @@
+package com.pal.playlist_transfer.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "transfer.youtube")
+public class YoutubeProperties {
+
+    // Data API root, overridden by the load tests to point at a local stub
+    private String baseUrl = "https://www.googleapis.com/youtube/v3";
+
+    private Quota quota = new Quota();
+
+    @Data
+    public static class Quota {
+        // When off, YouTube calls are neither held back nor transfers deferred (units are still counted)
+        private boolean enabled = true;
+
+        // Units per day of the Google Cloud project, resets at midnight Pacific time
+        private long dailyLimit = 10_000;
+
+        // Units left untouched, for the test endpoints and for manual use of the project
+        private long safetyMargin = 100;
+
+        // Budget a transfer needs before it is admitted, per transfer already running (1500 = about 10 tracks at 151 units)
+        private long admissionUnits = 1_500;
+
+        // How often deferred transfers are re-checked
+        private Duration admissionInterval = Duration.ofSeconds(30);
+    }
+}
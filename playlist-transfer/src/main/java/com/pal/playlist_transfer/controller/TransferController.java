@@ -1,52 +1,162 @@
 package com.pal.playlist_transfer.controller;
 
 
-import com.pal.playlist_transfer.service.TransferService;
+import com.pal.playlist_transfer.dto.transfer.TransferProgress;
+import com.pal.playlist_transfer.dto.transfer.TransferStartedResponse;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.model.TransferMode;
+import com.pal.playlist_transfer.model.TransferStatus;
+import com.pal.playlist_transfer.progress.TransferProgressRegistry;
+import com.pal.playlist_transfer.service.TransferAdmissionScheduler;
+import com.pal.playlist_transfer.service.TransferJobService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/transfers")
 @RequiredArgsConstructor
 public class TransferController {
     private static final Logger log = LoggerFactory.getLogger(TransferController.class);
-    private final TransferService transferService;
+    // Keeps idle SSE connections from being closed by proxies between two progress updates
+    private static final Duration SSE_HEARTBEAT = Duration.ofSeconds(15);
+
+    private final TransferJobService transferJobService;
+    private final TransferProgressRegistry progressRegistry;
+    private final TransferAdmissionScheduler admissionScheduler;
 
+    /**
+     * Starts a transfer. mode=sync keeps one YouTube playlist per Spotify playlist up to date: the first
+     * run transfers everything, later runs only apply what changed on Spotify since the previous one.
+     */
     @PostMapping("/spotify/{spotifyPlaylistId}")
-    public ResponseEntity<String> initiateTransfer(@PathVariable String spotifyPlaylistId) {
-        log.info("Received request to initiate transfer for Spotify playlist ID: {}", spotifyPlaylistId);
+    public ResponseEntity<?> initiateTransfer(@PathVariable String spotifyPlaylistId,
+                                              @RequestParam(defaultValue = "full") String mode,
+                                              Principal principal) {
+        log.info("Received request to initiate transfer for Spotify playlist ID: {} (mode {})", spotifyPlaylistId, mode);
 
         // Basic validation
         if (spotifyPlaylistId == null || spotifyPlaylistId.isBlank()) {
             return ResponseEntity.badRequest().body("Spotify Playlist ID must be provided.");
         }
+        TransferMode transferMode;
+        try {
+            transferMode = TransferMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Unknown mode: " + mode + ", expected full or sync.");
+        }
 
+        TransferJob job = null;
         try {
-            // Call the asynchronous service method
+            Optional<TransferJob> active = transferJobService.findActive(principal.getName(), spotifyPlaylistId);
+            if (active.isPresent()) {
+                return alreadyRunning(active.get(), spotifyPlaylistId);
+            }
+
+            // Picks up an interrupted/failed job for the same playlist and mode, otherwise creates a new one
+            try {
+                job = transferJobService.startOrResume(principal.getName(), spotifyPlaylistId, transferMode);
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent request for the same playlist got its job in between the check above and the insert
+                Optional<TransferJob> winner = transferJobService.findActive(principal.getName(), spotifyPlaylistId);
+                if (winner.isPresent()) {
+                    return alreadyRunning(winner.get(), spotifyPlaylistId);
+                }
+                throw e;
+            }
+            progressRegistry.queued(job);
+
+            // Starts the asynchronous transfer, or defers it while the YouTube quota is short
             // IMPORTANT: Ensure user is authenticated with BOTH services before calling this
             // We are currently relying on the presence of tokens in the database.
             // A check could be added here to verify both tokens exist for the user before starting.
-            transferService.transferPlaylistAsync(spotifyPlaylistId);
+            job = admissionScheduler.submit(job);
+            if (job.getStatus() == TransferStatus.FAILED) {
+                // Admitted but the executor had no room for it, the job is failed and can be started again
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(TransferStartedResponse.of(job.getId(), spotifyPlaylistId, job.getStatus(),
+                                "Transfer for Spotify playlist ID: " + spotifyPlaylistId + " could not be started, try again later."));
+            }
 
-            // Return immediately with 202 Accepted
-            String message = "Transfer initiated for Spotify playlist ID: " + spotifyPlaylistId + ". Processing will occur in the background.";
-            log.info(message);
-            return ResponseEntity.status(HttpStatus.ACCEPTED).body(message);
+            // Return immediately with 202 Accepted and the handle to follow the transfer with
+            String message = job.getStatus() == TransferStatus.DEFERRED
+                    ? "Transfer for Spotify playlist ID: " + spotifyPlaylistId + " is deferred until there is enough YouTube quota."
+                    : "Transfer initiated for Spotify playlist ID: " + spotifyPlaylistId + ". Processing will occur in the background.";
+            TransferStartedResponse response = TransferStartedResponse.of(job.getId(), spotifyPlaylistId, job.getStatus(), message);
+            log.info("Transfer job {} initiated for Spotify playlist ID: {}", job.getId(), spotifyPlaylistId);
+            return ResponseEntity.accepted().location(URI.create(response.statusUrl())).body(response);
 
         } catch (Exception e) {
             // Catch potential immediate errors (e.g., service bean not found),
             // though errors during the async process won't be caught here.
             log.error("Failed to initiate transfer for Spotify playlist ID {}: {}", spotifyPlaylistId, e.getMessage(), e);
+            if (job != null) {
+                // Otherwise the job stays active and blocks every later request for this playlist with a 409
+                transferJobService.failUnstarted(job.getId(), "Could not be started: " + e.getMessage())
+                        .ifPresent(progressRegistry::finished);
+            }
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Failed to initiate transfer: " + e.getMessage());
         }
     }
 
+    // Hand back the running transfer so the client can follow it instead
+    private static ResponseEntity<TransferStartedResponse> alreadyRunning(TransferJob active, String spotifyPlaylistId) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(TransferStartedResponse.of(active.getId(), spotifyPlaylistId, active.getStatus(),
+                        "A transfer for Spotify playlist ID: " + spotifyPlaylistId + " is already running."));
+    }
+
+    /**
+     * Current progress of a transfer. Served from memory; only transfers this instance doesn't
+     * track (e.g. from before a restart) are read from the database.
+     */
+    @GetMapping("/{transferId}")
+    public ResponseEntity<TransferProgress> getTransfer(@PathVariable Long transferId, Principal principal) {
+        return progressRegistry.get(transferId, principal.getName())
+                .or(() -> persistedProgress(transferId, principal))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Server-sent events with the progress of a transfer ("progress" events, at most one per second),
+     * completing once the transfer has ended.
+     */
+    @GetMapping(value = "/{transferId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<TransferProgress>>> streamTransfer(@PathVariable Long transferId, Principal principal) {
+        Optional<Flux<TransferProgress>> updates = progressRegistry.stream(transferId, principal.getName())
+                .or(() -> persistedProgress(transferId, principal).map(Flux::just));
+        if (updates.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Flux<TransferProgress> progress = updates.get();
+        Flux<ServerSentEvent<TransferProgress>> events = progress
+                .map(update -> ServerSentEvent.builder(update).event("progress").build());
+        Flux<ServerSentEvent<TransferProgress>> heartbeats = Flux.interval(SSE_HEARTBEAT)
+                .map(tick -> ServerSentEvent.<TransferProgress>builder().comment("keep-alive").build())
+                .takeUntilOther(progress.ignoreElements());
+        return ResponseEntity.ok(events.mergeWith(heartbeats));
+    }
+
+    private Optional<TransferProgress> persistedProgress(Long transferId, Principal principal) {
+        return transferJobService.find(transferId)
+                .filter(job -> job.getPrincipalName().equals(principal.getName()))
+                .map(TransferProgress::fromJob);
+    }
+
 }
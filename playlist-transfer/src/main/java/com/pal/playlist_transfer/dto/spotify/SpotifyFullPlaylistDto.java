@@ -1,6 +1,7 @@
 package com.pal.playlist_transfer.dto.spotify;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -10,4 +11,7 @@ import lombok.EqualsAndHashCode;
 public class SpotifyFullPlaylistDto extends SpotifyPlaylistDto{
 
     private String description;
+    private SpotifyTracksRefDto tracks;
+    @JsonProperty("snapshot_id")
+    private String snapshotId; // changes with every change to the playlist's tracks
 }
@@ -1,10 +1,12 @@
 package com.pal.playlist_transfer.dto.spotify;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -19,4 +21,11 @@ public class SpotifyTrackDto {
     @JsonProperty("is_local")
     private boolean isLocal;
     private String uri;
+    @JsonProperty("external_ids")
+    private Map<String, String> externalIds; // e.g. {"isrc": "USUM71703861"}
+
+    @JsonIgnore
+    public String getIsrc() {
+        return externalIds != null ? externalIds.get("isrc") : null;
+    }
 }
@@ -0,0 +1,23 @@
+package com.pal.playlist_transfer.dto.spotify;
+
+import java.util.List;
+
+/**
+ * Compact form of one page of /playlists/{id}/tracks: only the transferable tracks
+ * (not local, has an id) plus the paging fields, without the item wrappers.
+ */
+public record SpotifyTrackPage(List<SpotifyTrackDto> tracks, String next, int offset, int limit, int total) {
+
+    public static SpotifyTrackPage from(SpotifyPagingObject<SpotifyTrackItemDto> page) {
+        List<SpotifyTrackDto> tracks = page.getItems() == null ? List.of() : page.getItems().stream()
+                .map(SpotifyTrackItemDto::getTrack)
+                .filter(SpotifyTrackPage::isTransferable)
+                .toList();
+        return new SpotifyTrackPage(tracks, page.getNext(), page.getOffset(), page.getLimit(), page.getTotal());
+    }
+
+    // Ensure track exists, is not local, and has an ID
+    public static boolean isTransferable(SpotifyTrackDto track) {
+        return track != null && !track.isLocal() && track.getId() != null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.pal.playlist_transfer.dto.spotify;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+// The "tracks" object embedded in a full playlist, we only need the total here
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SpotifyTracksRefDto {
+    private String href;
+    private int total;
+}
@@ -0,0 +1,40 @@
+package com.pal.playlist_transfer.dto.transfer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.model.TransferStatus;
+
+import java.time.Instant;
+
+/**
+ * Point-in-time progress of a transfer, as returned by GET /api/transfers/{id} and its SSE stream.
+ * done counts every processed track (also the ones before a resume checkpoint), matched the ones a
+ * YouTube video was found for, added the ones inserted, failed the ones not found or not inserted.
+ * etaSeconds is null while there is no rate to extrapolate from.
+ */
+public record TransferProgress(Long transferId,
+                               String spotifyPlaylistId,
+                               String youtubePlaylistId,
+                               TransferStatus status,
+                               int totalTracks,
+                               int done,
+                               int matched,
+                               int added,
+                               int failed,
+                               double tracksPerSecond,
+                               Long etaSeconds,
+                               String errorMessage,
+                               Instant updatedAt) {
+
+    // Snapshot of a job that is not tracked in memory (e.g. started before a restart)
+    public static TransferProgress fromJob(TransferJob job) {
+        return new TransferProgress(job.getId(), job.getSpotifyPlaylistId(), job.getYoutubePlaylistId(), job.getStatus(),
+                job.getTotalTracks(), job.getNextPosition(), job.getSuccessCount(), job.getSuccessCount(), job.getFailCount(),
+                0, null, job.getErrorMessage(), job.getUpdatedAt());
+    }
+
+    @JsonIgnore
+    public boolean isTerminal() {
+        return status == TransferStatus.COMPLETED || status == TransferStatus.FAILED || status == TransferStatus.INTERRUPTED;
+    }
+}
@@ -0,0 +1,19 @@
+package com.pal.playlist_transfer.dto.transfer;
+
+import com.pal.playlist_transfer.model.TransferStatus;
+
+/**
+ * Body of POST /api/transfers/spotify/{id}: the handle to follow the transfer with.
+ */
+public record TransferStartedResponse(Long transferId,
+                                      String spotifyPlaylistId,
+                                      TransferStatus status,
+                                      String statusUrl,
+                                      String eventsUrl,
+                                      String message) {
+
+    public static TransferStartedResponse of(Long transferId, String spotifyPlaylistId, TransferStatus status, String message) {
+        String statusUrl = "/api/transfers/" + transferId;
+        return new TransferStartedResponse(transferId, spotifyPlaylistId, status, statusUrl, statusUrl + "/events", message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.pal.playlist_transfer.dto.youtube.insertPlaylist;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class YoutubePlaylistItemContentDetailsDto {
+    private String videoId;
+}
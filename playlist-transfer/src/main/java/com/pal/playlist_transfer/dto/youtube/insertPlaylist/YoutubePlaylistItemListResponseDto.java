@@ -0,0 +1,17 @@
+package com.pal.playlist_transfer.dto.youtube.insertPlaylist;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.List;
+
+// Response of playlistItems.list, one page of at most 50 items in playlist order
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class YoutubePlaylistItemListResponseDto {
+
+    private String kind;
+    private String etag;
+    private String nextPageToken;
+    private List<YoutubePlaylistItemResponseDto> items;
+}
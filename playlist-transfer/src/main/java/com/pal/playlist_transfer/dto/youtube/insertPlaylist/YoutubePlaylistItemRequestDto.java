@@ -1,6 +1,7 @@
 package com.pal.playlist_transfer.dto.youtube.insertPlaylist;
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,6 +9,8 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class YoutubePlaylistItemRequestDto {
+    private String id; // playlistItems.update only
     private YoutubePlaylistItemSnippetDto snippet;
 }
@@ -9,4 +9,5 @@ public class YoutubePlaylistItemResponseDto {
     private String kind;
     private String etag;
     private String id;
+    private YoutubePlaylistItemContentDetailsDto contentDetails; // playlistItems.list with part=contentDetails
 }
@@ -4,6 +4,7 @@ package com.pal.playlist_transfer.dto.youtube.insertPlaylist;
 // Represents the snippet part for playlist item insertion
 
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,8 +12,10 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class YoutubePlaylistItemSnippetDto {
 
     private String playlistId;
     private YoutubeResourceIdDto resourceId;
+    private Integer position; // zero-based; null appends at the end
 }
@@ -0,0 +1,11 @@
+package com.pal.playlist_transfer.dto.youtube.video;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class YoutubeVideoContentDetailsDto {
+
+    private String duration; // ISO 8601, e.g. "PT3M33S"
+}
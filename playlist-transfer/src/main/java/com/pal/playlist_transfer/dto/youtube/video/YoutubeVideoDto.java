@@ -0,0 +1,16 @@
+package com.pal.playlist_transfer.dto.youtube.video;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class YoutubeVideoDto {
+
+    private String kind;
+    private String etag;
+    private String id;
+    private YoutubeVideoSnippetDto snippet;
+    private YoutubeVideoContentDetailsDto contentDetails;
+    private YoutubeVideoStatusDto status;
+}
@@ -0,0 +1,16 @@
+package com.pal.playlist_transfer.dto.youtube.video;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.util.List;
+
+// Response of videos.list; ids that don't exist (anymore) are simply missing from items
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class YoutubeVideoListResponseDto {
+
+    private String kind;
+    private String etag;
+    private List<YoutubeVideoDto> items;
+}
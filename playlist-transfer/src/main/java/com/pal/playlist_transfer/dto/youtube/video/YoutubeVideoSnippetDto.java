@@ -0,0 +1,13 @@
+package com.pal.playlist_transfer.dto.youtube.video;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class YoutubeVideoSnippetDto {
+
+    private String title;
+    private String channelId;
+    private String channelTitle;
+}
@@ -0,0 +1,14 @@
+package com.pal.playlist_transfer.dto.youtube.video;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+// The "status" part of a video
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class YoutubeVideoStatusDto {
+
+    private String uploadStatus;  // "processed" once playable
+    private String privacyStatus; // public, unlisted, private
+    private Boolean embeddable;
+}
@@ -0,0 +1,188 @@
+package com.pal.playlist_transfer.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pal.playlist_transfer.dto.spotify.SpotifyAlbumDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyArtistDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackPage;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming (token by token) parser for Spotify playlist track pages.
+ * Reads only the fields the transfer uses and skips everything else (images, markets, urls, ...)
+ * without building intermediate DTOs for it. Local / id-less tracks are dropped while parsing.
+ */
+@Component
+public class SpotifyTrackPageParser {
+
+    private final JsonFactory jsonFactory;
+
+    public SpotifyTrackPageParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public SpotifyTrackPage parse(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            return parse(parser);
+        }
+    }
+
+    public SpotifyTrackPage parse(byte[] json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            return parse(parser);
+        }
+    }
+
+    private SpotifyTrackPage parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object for a Spotify tracks page");
+        }
+        List<SpotifyTrackDto> tracks = new ArrayList<>();
+        String next = null;
+        int offset = 0;
+        int limit = 0;
+        int total = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "items" -> readItems(parser, tracks);
+                case "next" -> next = parser.getValueAsString();
+                case "offset" -> offset = parser.getValueAsInt();
+                case "limit" -> limit = parser.getValueAsInt();
+                case "total" -> total = parser.getValueAsInt();
+                default -> parser.skipChildren();
+            }
+        }
+        return new SpotifyTrackPage(tracks, next, offset, limit, total);
+    }
+
+    private void readItems(JsonParser parser, List<SpotifyTrackDto> tracks) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            SpotifyTrackDto track = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("track".equals(field)) {
+                    track = readTrack(parser);
+                } else {
+                    parser.skipChildren(); // added_at, added_by, is_local (item level), ...
+                }
+            }
+            if (SpotifyTrackPage.isTransferable(track)) {
+                tracks.add(track);
+            }
+        }
+    }
+
+    private SpotifyTrackDto readTrack(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null; // "track": null for removed/unavailable tracks
+        }
+        SpotifyTrackDto track = new SpotifyTrackDto();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> track.setId(parser.getValueAsString());
+                case "name" -> track.setName(parser.getValueAsString());
+                case "duration_ms" -> track.setDurationMs(parser.getValueAsInt());
+                case "is_local" -> track.setLocal(parser.getValueAsBoolean());
+                case "uri" -> track.setUri(parser.getValueAsString());
+                case "artists" -> track.setArtists(readArtists(parser));
+                case "album" -> track.setAlbum(readAlbum(parser));
+                case "external_ids" -> track.setExternalIds(readStringMap(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        if (track.getArtists() == null) {
+            track.setArtists(List.of());
+        }
+        return track;
+    }
+
+    private SpotifyAlbumDto readAlbum(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        SpotifyAlbumDto album = new SpotifyAlbumDto();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "id" -> album.setId(parser.getValueAsString());
+                case "name" -> album.setName(parser.getValueAsString());
+                case "artists" -> album.setArtists(readArtists(parser));
+                default -> parser.skipChildren(); // images, release_date, available_markets, ...
+            }
+        }
+        return album;
+    }
+
+    private List<SpotifyArtistDto> readArtists(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+        List<SpotifyArtistDto> artists = new ArrayList<>(2);
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            SpotifyArtistDto artist = new SpotifyArtistDto();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> artist.setId(parser.getValueAsString());
+                    case "name" -> artist.setName(parser.getValueAsString());
+                    default -> parser.skipChildren();
+                }
+            }
+            artists.add(artist);
+        }
+        return artists;
+    }
+
+    private Map<String, String> readStringMap(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        Map<String, String> values = new HashMap<>(2);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (parser.currentToken().isScalarValue()) {
+                values.put(field, parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+}
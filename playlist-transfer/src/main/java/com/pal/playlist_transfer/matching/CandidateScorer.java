@@ -0,0 +1,272 @@
+package com.pal.playlist_transfer.matching;
+
+import com.pal.playlist_transfer.dto.spotify.SpotifyArtistDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+
+import java.util.List;
+
+/**
+ * Scores YouTube candidates against a Spotify track, 0 (surely wrong) to 1 (surely right):
+ * <ul>
+ *     <li>duration: full marks within 3s, nothing from 30s off</li>
+ *     <li>title: share of the track name's words found in the video title</li>
+ *     <li>artist: an artist's name as whole words in the title, or the channel's name ("Artist - Topic", "ArtistVEVO")</li>
+ *     <li>album: album name in the title, small bonus; official/Topic channel, small bonus</li>
+ *     <li>penalty for versions the track isn't: live, cover, karaoke, remix, sped up...</li>
+ * </ul>
+ * Without a known duration an artist match is required, the title alone scores 0.
+ * Runs for every candidate of every searched track, so strings are normalized once into char
+ * arrays (TrackKeys.normalizeChars, the same normalization as the match keys) and compared in place;
+ * scoring a handful of candidates takes microseconds.
+ */
+public final class CandidateScorer {
+
+    private static final double DURATION_WEIGHT = 0.35;
+    private static final double TITLE_WEIGHT = 0.30;
+    private static final double ARTIST_WEIGHT = 0.25;
+    private static final double ALBUM_WEIGHT = 0.05;
+    private static final double CHANNEL_WEIGHT = 0.05;
+    private static final double VERSION_PENALTY = 0.25;
+
+    private static final long DURATION_EXACT_MS = 3_000;
+    private static final long DURATION_OFF_MS = 30_000;
+
+    private static final char[][] OTHER_VERSIONS = words("live", "cover", "karaoke", "remix", "instrumental",
+            "acoustic", "nightcore", "reaction", "slowed", "sped", "8d");
+    // Auto-generated "Artist - Topic" channels carry the studio recordings
+    private static final char[] TOPIC = TrackKeys.normalizeChars("topic");
+    private static final char[] VEVO = TrackKeys.normalizeChars("vevo");
+    private static final char[] OFFICIAL = TrackKeys.normalizeChars("official");
+    // What channels glue to the artist's name
+    private static final char[][] CHANNEL_SUFFIXES = words("vevo", "official", "music", "tv");
+
+    private CandidateScorer() {
+    }
+
+    public record Scored(VideoCandidate candidate, double score) {
+    }
+
+    /**
+     * @return the best scoring candidate, null if there are none.
+     */
+    public static Scored best(SpotifyTrackDto track, List<VideoCandidate> candidates) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        Track profile = new Track(track);
+        Scored best = null;
+        for (VideoCandidate candidate : candidates) {
+            double score = profile.score(candidate);
+            if (best == null || score > best.score()) {
+                best = new Scored(candidate, score);
+            }
+        }
+        return best;
+    }
+
+    public static double score(SpotifyTrackDto track, VideoCandidate candidate) {
+        return new Track(track).score(candidate);
+    }
+
+    // The track side, normalized once per track
+    private static final class Track {
+
+        private final char[] name;
+        private final char[][] artists;
+        private final char[] album;
+        private final long durationMs;
+
+        Track(SpotifyTrackDto track) {
+            this.name = TrackKeys.normalizeChars(track.getName());
+            List<SpotifyArtistDto> artistList = track.getArtists();
+            int artistCount = artistList == null ? 0 : artistList.size();
+            this.artists = new char[artistCount][];
+            for (int i = 0; i < artistCount; i++) {
+                artists[i] = TrackKeys.normalizeChars(artistList.get(i).getName());
+            }
+            this.album = TrackKeys.normalizeChars(track.getAlbum() != null ? track.getAlbum().getName() : null);
+            this.durationMs = track.getDurationMs();
+        }
+
+        double score(VideoCandidate candidate) {
+            char[] title = TrackKeys.normalizeChars(candidate.title());
+            char[] channel = TrackKeys.normalizeChars(candidate.channelTitle());
+
+            boolean durationKnown = candidate.durationMs() >= 0 && durationMs > 0;
+            double artistScore = artistScore(title, channel);
+            if (!durationKnown && artistScore == 0) {
+                // Nothing but the title to go on, and titles are shared by covers and namesakes
+                return 0;
+            }
+            double score = DURATION_WEIGHT * durationScore(candidate.durationMs())
+                    + TITLE_WEIGHT * tokenCoverage(name, title)
+                    + ARTIST_WEIGHT * artistScore
+                    + ALBUM_WEIGHT * (album.length > 0 && !sameWords(album, name) && tokenCoverage(album, title) == 1.0 ? 1 : 0)
+                    + CHANNEL_WEIGHT * (endsWith(channel, TOPIC) || containsCompact(channel, VEVO) || containsToken(channel, OFFICIAL) ? 1 : 0);
+
+            for (char[] version : OTHER_VERSIONS) {
+                if (containsToken(title, version) && !containsToken(name, version)) {
+                    score -= VERSION_PENALTY;
+                    break;
+                }
+            }
+            return Math.max(0, Math.min(1, score));
+        }
+
+        private double durationScore(long videoMs) {
+            if (videoMs < 0 || durationMs <= 0) {
+                return 0.5; // unknown, neither for nor against
+            }
+            long off = Math.abs(videoMs - durationMs);
+            if (off <= DURATION_EXACT_MS) {
+                return 1;
+            }
+            return Math.max(0, 1 - (double) (off - DURATION_EXACT_MS) / (DURATION_OFF_MS - DURATION_EXACT_MS));
+        }
+
+        private double artistScore(char[] title, char[] channel) {
+            for (char[] artist : artists) {
+                if (artist.length > 0 && (tokenCoverage(artist, title) == 1.0 || channelOf(channel, artist))) {
+                    return 1;
+                }
+            }
+            return 0;
+        }
+    }
+
+    // ------------------------------------------------------------ char[] helpers
+
+    /**
+     * Share of needle's words that appear as whole words in haystack, 0 to 1.
+     */
+    static double tokenCoverage(char[] needle, char[] haystack) {
+        int tokens = 0;
+        int found = 0;
+        int start = 0;
+        while (start < needle.length) {
+            int end = indexOfSpace(needle, start);
+            tokens++;
+            if (containsToken(haystack, needle, start, end)) {
+                found++;
+            }
+            start = end + 1;
+        }
+        return tokens == 0 ? 0 : (double) found / tokens;
+    }
+
+    static boolean containsToken(char[] haystack, char[] word) {
+        return word.length > 0 && containsToken(haystack, word, 0, word.length);
+    }
+
+    // Whether needle[from, to) appears in haystack bounded by spaces or the ends
+    private static boolean containsToken(char[] haystack, char[] needle, int from, int to) {
+        int length = to - from;
+        for (int start = 0; start + length <= haystack.length; start = indexOfSpace(haystack, start) + 1) {
+            int end = indexOfSpace(haystack, start);
+            if (end - start == length && regionEquals(haystack, start, needle, from, length)) {
+                return true;
+            }
+            if (end >= haystack.length) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    // Substring match ignoring spaces on both sides, e.g. "taylorswiftvevo" contains "taylor swift"
+    static boolean containsCompact(char[] haystack, char[] needle) {
+        if (needle.length == 0) {
+            return false;
+        }
+        for (int start = 0; start < haystack.length; start++) {
+            if (compactMatchEnd(haystack, start, needle) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the channel is the artist's: the artist's words, spaces ignored, starting at a word of the
+     * channel and ending at a word end or at a channel suffix ("Artist - Topic", "ArtistVEVO",
+     * "ArtistOfficial"). A short name somewhere inside another word ("Bo" in "Bodyguard") doesn't count.
+     */
+    static boolean channelOf(char[] channel, char[] artist) {
+        if (artist.length == 0) {
+            return false;
+        }
+        for (int start = 0; start < channel.length; start = indexOfSpace(channel, start) + 1) {
+            int end = compactMatchEnd(channel, start, artist);
+            if (end < 0) {
+                continue;
+            }
+            int wordEnd = indexOfSpace(channel, end);
+            if (end == wordEnd) {
+                return true;
+            }
+            for (char[] suffix : CHANNEL_SUFFIXES) {
+                if (wordEnd - end == suffix.length && regionEquals(channel, end, suffix, 0, suffix.length)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Index in haystack right after needle matched from start on, spaces ignored on both sides; -1 if it doesn't match
+    private static int compactMatchEnd(char[] haystack, int start, char[] needle) {
+        int h = start;
+        int n = 0;
+        while (h < haystack.length && n < needle.length) {
+            if (haystack[h] == ' ') {
+                h++;
+            } else if (needle[n] == ' ') {
+                n++;
+            } else if (haystack[h] == needle[n]) {
+                h++;
+                n++;
+            } else {
+                return -1;
+            }
+        }
+        while (n < needle.length && needle[n] == ' ') {
+            n++;
+        }
+        return n == needle.length ? h : -1;
+    }
+
+    private static boolean endsWith(char[] value, char[] suffix) {
+        int offset = value.length - suffix.length;
+        return suffix.length > 0 && offset >= 0 && regionEquals(value, offset, suffix, 0, suffix.length);
+    }
+
+    private static boolean sameWords(char[] a, char[] b) {
+        return a.length == b.length && regionEquals(a, 0, b, 0, a.length);
+    }
+
+    private static boolean regionEquals(char[] a, int aFrom, char[] b, int bFrom, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[aFrom + i] != b[bFrom + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfSpace(char[] value, int from) {
+        for (int i = from; i < value.length; i++) {
+            if (value[i] == ' ') {
+                return i;
+            }
+        }
+        return value.length;
+    }
+
+    private static char[][] words(String... words) {
+        char[][] normalized = new char[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            normalized[i] = TrackKeys.normalizeChars(words[i]);
+        }
+        return normalized;
+    }
+}
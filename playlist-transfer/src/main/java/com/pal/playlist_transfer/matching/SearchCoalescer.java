@@ -0,0 +1,96 @@
+package com.pal.playlist_transfer.matching;
+
+import com.pal.playlist_transfer.config.MatchingProperties;
+import com.pal.playlist_transfer.config.TransferPipelineProperties;
+import com.pal.playlist_transfer.service.YoutubeApiService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single-flight YouTube search shared by all running transfers: while a search for a normalized
+ * query is in flight, every other pipeline asking for the same query subscribes to it instead of
+ * spending another 100 quota units. Nothing is kept once the search is done; repeated lookups
+ * over time are the match cache's job.
+ * The search runs with the token and rate limit budget of the transfer that started it.
+ * Metrics: transfer.youtube.searches (result=executed|coalesced).
+ */
+@Slf4j
+@Component
+public class SearchCoalescer {
+
+    private final YoutubeApiService youtubeApiService;
+    private final TransferPipelineProperties properties;
+    private final MatchingProperties matchingProperties;
+    private final Map<String, Mono<List<VideoCandidate>>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public SearchCoalescer(YoutubeApiService youtubeApiService,
+                           TransferPipelineProperties properties,
+                           MatchingProperties matchingProperties,
+                           MeterRegistry meterRegistry) {
+        this.youtubeApiService = youtubeApiService;
+        this.properties = properties;
+        this.matchingProperties = matchingProperties;
+        this.executed = searchCounter(meterRegistry, "executed");
+        this.coalesced = searchCounter(meterRegistry, "coalesced");
+    }
+
+    /**
+     * @return Mono with the candidates (see transfer.matching), empty list if nothing was found.
+     * A failed search errors for everyone who joined it.
+     */
+    public Mono<List<VideoCandidate>> search(String query) {
+        if (!properties.isCoalesceSearches()) {
+            return searchCandidates(query);
+        }
+        return Mono.defer(() -> {
+            String key = TrackKeys.normalizedQuery(query);
+            AtomicReference<Mono<List<VideoCandidate>>> started = new AtomicReference<>();
+            Mono<List<VideoCandidate>> search = inFlight.computeIfAbsent(key, k -> {
+                started.set(newSearch(k, query));
+                return started.get();
+            });
+            if (started.get() == null) {
+                coalesced.increment();
+                log.debug("Joining the in-flight YouTube search for '{}'", query);
+            } else {
+                executed.increment();
+            }
+            return search;
+        });
+    }
+
+    private Mono<List<VideoCandidate>> newSearch(String key, String query) {
+        AtomicReference<Mono<List<VideoCandidate>>> self = new AtomicReference<>();
+        Mono<List<VideoCandidate>> search = searchCandidates(query)
+                // Done: later lookups go to the match cache the result is stored in
+                .doFinally(signal -> inFlight.remove(key, self.get()))
+                // Replays the result to everyone who joined, and keeps running if the starter is cancelled
+                .cache();
+        self.set(search);
+        return search;
+    }
+
+    // One result is all we need without scoring
+    private Mono<List<VideoCandidate>> searchCandidates(String query) {
+        boolean scoring = matchingProperties.isScoring();
+        return youtubeApiService.searchCandidatesReactive(query, scoring ? matchingProperties.getSearchCandidates() : 1, scoring);
+    }
+
+    private static Counter searchCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("transfer.youtube.searches")
+                .description("YouTube searches executed vs. answered by an identical search already in flight")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
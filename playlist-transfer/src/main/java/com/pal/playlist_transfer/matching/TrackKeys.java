@@ -0,0 +1,118 @@
+package com.pal.playlist_transfer.matching;
+
+import com.pal.playlist_transfer.dto.spotify.SpotifyArtistDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the strings we derive from a Spotify track: the YouTube search query
+ * and the normalized title+artist key used to find a track again across releases.
+ */
+public final class TrackKeys {
+
+    private TrackKeys() {
+    }
+
+    /**
+     * Search query for YouTube, "Track Name Artist Name" (first artist only).
+     */
+    public static String searchQuery(SpotifyTrackDto track) {
+        String artistName = primaryArtist(track);
+        return artistName.isEmpty() ? track.getName() : track.getName() + " " + artistName;
+    }
+
+    /**
+     * Normalized "title|artist" key: lower case, accents stripped, punctuation removed,
+     * bracketed suffixes like "(Remastered 2011)" and "- Radio Edit" dropped.
+     * @return the key, or null if the track has no name.
+     */
+    public static String normalizedKey(SpotifyTrackDto track) {
+        if (track.getName() == null) {
+            return null;
+        }
+        return normalize(stripSuffixes(track.getName())) + "|" + normalize(primaryArtist(track));
+    }
+
+    /**
+     * Normalized form of a search query, so queries that only differ in case, accents or
+     * punctuation are recognized as the same search.
+     */
+    public static String normalizedQuery(String query) {
+        return normalize(query);
+    }
+
+    private static String primaryArtist(SpotifyTrackDto track) {
+        List<SpotifyArtistDto> artists = track.getArtists();
+        if (artists == null || artists.isEmpty() || artists.get(0).getName() == null) {
+            return "";
+        }
+        return artists.get(0).getName();
+    }
+
+    private static String stripSuffixes(String title) {
+        int cut = title.length();
+        int bracket = indexOfAny(title, '(', '[');
+        if (bracket > 0) {
+            cut = bracket;
+        }
+        int dash = title.indexOf(" - ");
+        if (dash > 0 && dash < cut) {
+            cut = dash;
+        }
+        return title.substring(0, cut);
+    }
+
+    private static int indexOfAny(String s, char a, char b) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == a || c == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Same normalization CandidateScorer compares with, as a string for the keys
+    static String normalize(String value) {
+        return new String(normalizeChars(value));
+    }
+
+    /**
+     * Lower case, accents stripped, every run of non letters/digits turned into a single space,
+     * no leading/trailing space. ASCII input (the common case) takes a single pass and one array.
+     */
+    static char[] normalizeChars(String value) {
+        if (value == null || value.isEmpty()) {
+            return new char[0];
+        }
+        String source = value;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 127) {
+                source = Normalizer.normalize(value, Normalizer.Form.NFD);
+                break;
+            }
+        }
+        char[] out = new char[source.length()];
+        int length = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c > 127 && Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue; // accent left over from NFD
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && length > 0) {
+                    out[length++] = ' ';
+                }
+                pendingSpace = false;
+                out[length++] = Character.toLowerCase(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return length == out.length ? out : Arrays.copyOf(out, length);
+    }
+}
@@ -0,0 +1,162 @@
+package com.pal.playlist_transfer.matching;
+
+import com.pal.playlist_transfer.config.MatchingProperties;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+import com.pal.playlist_transfer.model.MatchTier;
+import com.pal.playlist_transfer.service.TrackMatchCache;
+import com.pal.playlist_transfer.service.YoutubeApiService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Finds the YouTube video for a Spotify track, trying the cheapest way first:
+ * <ol>
+ *     <li>CACHE: this track was matched and verified recently (0 units)</li>
+ *     <li>KNOWN_ID: a recently verified video of the same ISRC, i.e. the same recording (0 units)</li>
+ *     <li>VIDEOS_LIST: this track's older match, older videos of the same ISRC, or videos of the same title+artist, re-checked in one
+ *     videos.list call (1 unit). Title+artist ones also have to pass CandidateScorer on the looked up
+ *     duration and title, the key doesn't tell a live or remixed version from the studio one.</li>
+ *     <li>SEARCH: search.list, coalesced across transfers, best of several results by CandidateScorer (101 units)</li>
+ * </ol>
+ * Whatever resolves the track is stored under its Spotify id, so next time it is a CACHE hit. A KNOWN_ID
+ * video keeps the time its source match was verified, so it ages out and gets re-checked like the source.
+ * Metrics: transfer.match.resolved (tier, "none" if no tier found a video).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TrackMatcher {
+
+    private final TrackMatchCache trackMatchCache;
+    private final YoutubeApiService youtubeApiService;
+    private final SearchCoalescer searchCoalescer;
+    private final MatchingProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public record Match(String videoId, MatchTier tier) {
+    }
+
+    /**
+     * @return Mono with the video and the tier that found it, empty if no tier found one.
+     */
+    public Mono<Match> match(SpotifyTrackDto track) {
+        return cached(track)
+                .switchIfEmpty(Mono.defer(() -> known(track)))
+                .switchIfEmpty(Mono.defer(() -> searched(track)))
+                .doOnNext(match -> count(match.tier().name()))
+                .switchIfEmpty(Mono.fromRunnable(() -> count("none")));
+    }
+
+    private Mono<Match> cached(SpotifyTrackDto track) {
+        if (!enabled(MatchTier.CACHE)) {
+            return Mono.empty();
+        }
+        return blocking(() -> trackMatchCache.lookupExact(track, properties.getKnownIdMaxAge()))
+                .mapNotNull(videoId -> videoId.orElse(null))
+                .doOnNext(videoId -> log.debug("Match cache hit for '{}' (Video ID :{})", track.getName(), videoId))
+                .map(videoId -> new Match(videoId, MatchTier.CACHE));
+    }
+
+    private Mono<Match> known(SpotifyTrackDto track) {
+        boolean knownIds = enabled(MatchTier.KNOWN_ID);
+        boolean videosList = enabled(MatchTier.VIDEOS_LIST);
+        if (!knownIds && !videosList) {
+            return Mono.empty();
+        }
+        return blocking(() -> trackMatchCache.lookupKnown(track, properties.getKnownIdMaxAge(), properties.getMaxCandidates()))
+                .flatMap(known -> {
+                    if (knownIds && known.fresh() != null) {
+                        log.debug("Known video for '{}' (Video ID :{})", track.getName(), known.fresh());
+                        // Not checked now, so it keeps the source match's age
+                        return store(track, known.fresh(), known.verifiedAt(), MatchTier.KNOWN_ID);
+                    }
+                    // Without the KNOWN_ID tier even recently verified videos are re-checked
+                    List<String> candidates = knownIds ? known.stale() : known.all();
+                    if (!videosList || candidates.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    // The first one still available (and, if only its name matched, still scoring well) will do
+                    return youtubeApiService.findAvailableVideosReactive(candidates)
+                            .mapNotNull(available -> firstVerified(track, available, known.byName()))
+                            .flatMap(videoId -> store(track, videoId, MatchTier.VIDEOS_LIST));
+                });
+    }
+
+    private String firstVerified(SpotifyTrackDto track, List<VideoCandidate> available, Set<String> byName) {
+        for (VideoCandidate candidate : available) {
+            if (!byName.contains(candidate.videoId())) {
+                // Same recording
+                return candidate.videoId();
+            }
+            double score = CandidateScorer.score(track, candidate);
+            if (score >= properties.getMinScore()) {
+                return candidate.videoId();
+            }
+            log.debug("Known video '{}' ({}) has the name of '{}' but scored {}, skipping it",
+                    candidate.title(), candidate.videoId(), track.getName(), String.format("%.2f", score));
+        }
+        return null;
+    }
+
+    private Mono<Match> searched(SpotifyTrackDto track) {
+        if (!enabled(MatchTier.SEARCH)) {
+            return Mono.empty();
+        }
+        return searchCoalescer.search(TrackKeys.searchQuery(track))
+                .mapNotNull(candidates -> pick(track, candidates))
+                .flatMap(videoId -> store(track, videoId, MatchTier.SEARCH));
+    }
+
+    private String pick(SpotifyTrackDto track, List<VideoCandidate> candidates) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (!properties.isScoring()) {
+            return candidates.get(0).videoId();
+        }
+        CandidateScorer.Scored best = CandidateScorer.best(track, candidates);
+        if (best.score() < properties.getMinScore()) {
+            log.warn("Best of {} Youtube candidates for '{}' scored {} ('{}' by {}), below {}: treating as not found",
+                    candidates.size(), track.getName(), String.format("%.2f", best.score()),
+                    best.candidate().title(), best.candidate().channelTitle(), properties.getMinScore());
+            return null;
+        }
+        log.debug("Picked '{}' ({}) for '{}' with score {}", best.candidate().title(), best.candidate().videoId(),
+                track.getName(), best.score());
+        return best.candidate().videoId();
+    }
+
+    // Confirmed by YouTube just now
+    private Mono<Match> store(SpotifyTrackDto track, String videoId, MatchTier tier) {
+        return store(track, videoId, Instant.now(), tier);
+    }
+
+    private Mono<Match> store(SpotifyTrackDto track, String videoId, Instant verifiedAt, MatchTier tier) {
+        return blocking(() -> {
+            trackMatchCache.store(track, videoId, verifiedAt);
+            return new Match(videoId, tier);
+        });
+    }
+
+    private boolean enabled(MatchTier tier) {
+        return properties.getTiers().contains(tier);
+    }
+
+    private void count(String tier) {
+        meterRegistry.counter("transfer.match.resolved", "tier", tier.toLowerCase()).increment();
+    }
+
+    // JPA calls are blocking, keep them off the event loop
+    private static <T> Mono<T> blocking(Callable<T> callable) {
+        return Mono.fromCallable(callable).subscribeOn(Schedulers.boundedElastic());
+    }
+}
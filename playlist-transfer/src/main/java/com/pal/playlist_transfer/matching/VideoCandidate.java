@@ -0,0 +1,10 @@
+package com.pal.playlist_transfer.matching;
+
+/**
+ * A YouTube video that may be the match for a track.
+ * @param durationMs length of the video, -1 if unknown (search results don't carry it).
+ */
+public record VideoCandidate(String videoId, String title, String channelTitle, long durationMs) {
+
+    public static final long UNKNOWN_DURATION = -1;
+}
@@ -0,0 +1,93 @@
+package com.pal.playlist_transfer.metrics;
+
+import com.pal.playlist_transfer.model.TransferItemStatus;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.ratelimit.TransferConcurrencyLimiter;
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transfer-level metrics: running/waiting transfers, per-stage timings, track outcomes and
+ * the combined track rate of the running transfers (transfer.tracks.rate). The rate is not tagged
+ * with the job id: one time series per job would grow without bound, the per-job numbers are on
+ * the progress endpoints instead.
+ */
+@Component
+public class TransferMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Long, JobProgress> running = new ConcurrentHashMap<>();
+
+    public TransferMetrics(MeterRegistry meterRegistry, TransferConcurrencyLimiter concurrencyLimiter) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("transfer.active", concurrencyLimiter, TransferConcurrencyLimiter::activeTransfers)
+                .description("Transfers currently running")
+                .register(meterRegistry);
+        // Same in both executor modes: a waiting transfer is queued in the limiter, not in the executor
+        Gauge.builder("transfer.waiting", concurrencyLimiter, TransferConcurrencyLimiter::waitingTransfers)
+                .description("Transfers waiting for a free transfer slot")
+                .register(meterRegistry);
+        Gauge.builder("transfer.tracks.rate", running, jobs -> jobs.values().stream().mapToDouble(JobProgress::tracksPerSecond).sum())
+                .description("Tracks per second processed by all running transfers together")
+                .register(meterRegistry);
+    }
+
+    public void jobStarted(TransferJob job) {
+        running.put(job.getId(), new JobProgress(System.nanoTime()));
+    }
+
+    public void trackProcessed(TransferJob job, TransferItemStatus status) {
+        JobProgress progress = running.get(job.getId());
+        if (progress != null) {
+            progress.processed.incrementAndGet();
+        }
+        meterRegistry.counter("transfer.tracks", "result", status.name().toLowerCase(Locale.ROOT)).increment();
+    }
+
+    public void jobFinished(TransferJob job) {
+        JobProgress progress = running.remove(job.getId());
+        if (progress == null) {
+            return;
+        }
+        Timer.builder("transfer.job.duration")
+                .description("Wall time of a transfer run")
+                .tag("status", job.getStatus().name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .record(System.nanoTime() - progress.startNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("transfer.job.tracks.per.second")
+                .description("Average tracks per second of finished transfer runs")
+                .register(meterRegistry)
+                .record(progress.tracksPerSecond());
+    }
+
+    /**
+     * Times one pipeline stage (transfer.stage, tagged with the stage name) from subscription to termination.
+     */
+    public <T> Mono<T> timeStage(String stage, Mono<T> mono) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return mono.doFinally(signal -> sample.stop(meterRegistry.timer("transfer.stage", "stage", stage)));
+        });
+    }
+
+    private static final class JobProgress {
+        private final long startNanos;
+        private final AtomicInteger processed = new AtomicInteger();
+
+        private JobProgress(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        private double tracksPerSecond() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            return seconds > 0 ? processed.get() / seconds : 0;
+        }
+    }
+}
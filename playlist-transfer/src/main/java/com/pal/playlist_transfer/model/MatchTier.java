@@ -0,0 +1,9 @@
+package com.pal.playlist_transfer.model;
+
+// How a track's YouTube video was found, cheapest first (YouTube quota units in brackets)
+public enum MatchTier {
+    CACHE,       // this exact Spotify track was matched before (0)
+    KNOWN_ID,    // recently verified video of the same recording (ISRC) (0)
+    VIDEOS_LIST, // older videos of the ISRC, or videos of the same title+artist that pass CandidateScorer, re-checked with videos.list (1)
+    SEARCH       // search.list (100), +1 for the candidates' durations when scoring
+}
@@ -0,0 +1,52 @@
+package com.pal.playlist_transfer.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// A Spotify playlist kept in sync with a YouTube playlist: what the last sync run left behind
+@Entity
+@Table(name = "playlist_syncs", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_playlist_syncs_owner_playlist", columnNames = {"principalName", "spotifyPlaylistId"})
+})
+@Data
+@NoArgsConstructor
+public class PlaylistSync {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String principalName;
+
+    @Column(nullable = false)
+    private String spotifyPlaylistId;
+
+    @Column(nullable = false)
+    private String youtubePlaylistId;
+
+    private String spotifySnapshotId; // Spotify playlist version the YouTube playlist matches
+
+    private int trackCount;
+
+    // A sync run didn't finish cleanly: the stored tracks may not match the YouTube playlist any more,
+    // the next run reads the playlist back from YouTube
+    private boolean dirty;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    public PlaylistSync(String principalName, String spotifyPlaylistId, String youtubePlaylistId) {
+        this.principalName = principalName;
+        this.spotifyPlaylistId = spotifyPlaylistId;
+        this.youtubePlaylistId = youtubePlaylistId;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+}
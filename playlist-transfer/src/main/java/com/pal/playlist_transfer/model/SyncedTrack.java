@@ -0,0 +1,45 @@
+package com.pal.playlist_transfer.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One track of a PlaylistSync as of its last run, in Spotify playlist order
+@Entity
+@Table(name = "synced_tracks", indexes = {
+        @Index(name = "idx_synced_tracks_sync_position", columnList = "sync_id, position")
+})
+@Data
+@NoArgsConstructor
+public class SyncedTrack {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "sync_id")
+    private PlaylistSync sync;
+
+    @Column(nullable = false)
+    private int position; // index in the Spotify playlist
+
+    @Column(nullable = false)
+    private String spotifyTrackId;
+
+    private String videoId; // null if no video was found
+
+    private String playlistItemId; // YouTube playlist item, null if the video isn't in the playlist (not found, duplicate)
+
+    private Instant matchedAt; // last lookup of a track no video was found for, null if unknown (looked up again)
+
+    public SyncedTrack(PlaylistSync sync, int position, String spotifyTrackId, String videoId, String playlistItemId) {
+        this.sync = sync;
+        this.position = position;
+        this.spotifyTrackId = spotifyTrackId;
+        this.videoId = videoId;
+        this.playlistItemId = playlistItemId;
+    }
+}
@@ -0,0 +1,48 @@
+package com.pal.playlist_transfer.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// A Spotify track we already resolved to a YouTube video, shared by all users
+@Entity
+@Table(name = "track_matches", indexes = {
+        @Index(name = "idx_track_matches_isrc", columnList = "isrc"),
+        @Index(name = "idx_track_matches_normalized_key", columnList = "normalizedKey")
+})
+@Data
+@NoArgsConstructor
+public class TrackMatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, nullable = false)
+    private String spotifyTrackId;
+
+    private String isrc;
+
+    @Column(length = 512)
+    private String normalizedKey; // normalized "title|artist", see TrackKeys
+
+    @Column(nullable = false)
+    private String videoId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt; // when YouTube last confirmed the video, matches age by it
+
+    public TrackMatch(String spotifyTrackId, String isrc, String normalizedKey, String videoId) {
+        this.spotifyTrackId = spotifyTrackId;
+        this.isrc = isrc;
+        this.normalizedKey = normalizedKey;
+        this.videoId = videoId;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+}
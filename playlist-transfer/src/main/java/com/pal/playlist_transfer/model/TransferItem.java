@@ -0,0 +1,52 @@
+package com.pal.playlist_transfer.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome for a single track of a TransferJob
+@Entity
+@Table(name = "transfer_items", indexes = {
+        @Index(name = "idx_transfer_items_job_position", columnList = "job_id, position")
+})
+@Data
+@NoArgsConstructor
+public class TransferItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "job_id")
+    private TransferJob job;
+
+    @Column(nullable = false)
+    private int position; // index in the Spotify playlist
+
+    @Column(nullable = false)
+    private String spotifyTrackId;
+
+    private String trackName;
+
+    private String videoId;
+
+    private String playlistItemId; // YouTube playlist item created for it, set when ADDED
+
+    @Enumerated(EnumType.STRING)
+    private MatchTier matchTier; // how videoId was found, null if it wasn't
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransferItemStatus status;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    public TransferItem(TransferJob job, int position, String spotifyTrackId, String trackName) {
+        this.job = job;
+        this.position = position;
+        this.spotifyTrackId = spotifyTrackId;
+        this.trackName = trackName;
+    }
+}
@@ -0,0 +1,8 @@
+package com.pal.playlist_transfer.model;
+
+public enum TransferItemStatus {
+    ADDED,
+    NOT_FOUND,
+    DUPLICATE, // video already in the YouTube playlist, not inserted again
+    FAILED
+}
@@ -0,0 +1,71 @@
+package com.pal.playlist_transfer.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// One Spotify -> YouTube playlist transfer. Progress is checkpointed so it can resume after a restart.
+// schema.sql adds uk_transfer_jobs_active: one active job per user and playlist.
+@Entity
+@Table(name = "transfer_jobs", indexes = {
+        @Index(name = "idx_transfer_jobs_owner_playlist", columnList = "principalName, spotifyPlaylistId")
+})
+@Data
+@NoArgsConstructor
+public class TransferJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String principalName; // OAuth2 principal that started the transfer
+
+    @Column(nullable = false)
+    private String spotifyPlaylistId;
+
+    private String youtubePlaylistId; // set once the target playlist exists, reused on resume
+
+    @Enumerated(EnumType.STRING)
+    private TransferMode mode = TransferMode.FULL; // null for jobs from before sync mode, same as FULL
+
+    private String spotifySnapshotId; // version of the Spotify playlist when the job read it
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TransferStatus status;
+
+    private int totalTracks;
+
+    // Checkpoint: tracks [0, nextPosition) are done, resume starts here
+    private int nextPosition;
+
+    private int successCount;
+    private int failCount;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    private String workerId; // QUEUE worker mode: node that claimed the job
+
+    // Optimistic lock: a save from a stale copy fails instead of overwriting what another node or thread wrote
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    public TransferJob(String principalName, String spotifyPlaylistId) {
+        this.principalName = principalName;
+        this.spotifyPlaylistId = spotifyPlaylistId;
+        this.status = TransferStatus.QUEUED;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+}
@@ -0,0 +1,6 @@
+package com.pal.playlist_transfer.model;
+
+public enum TransferMode {
+    FULL, // copy the whole playlist into a new YouTube playlist
+    SYNC  // keep one YouTube playlist in line with the Spotify one, applying only what changed since the last run
+}
@@ -0,0 +1,10 @@
+package com.pal.playlist_transfer.model;
+
+public enum TransferStatus {
+    QUEUED,
+    DEFERRED,    // waiting for YouTube quota (or a new job's admission decision), admitted once the budget allows it
+    RUNNING,
+    INTERRUPTED, // was RUNNING when the application stopped, resumable
+    COMPLETED,
+    FAILED       // stopped on an error, resumable
+}
@@ -32,7 +32,7 @@ public class User {
         if("spotify".equalsIgnoreCase(provider)){
             this.spotifyId = providerId;
         } else if("Google".equalsIgnoreCase(provider)){
-            this.googleId = provider;
+            this.googleId = providerId;
         }
     }
 
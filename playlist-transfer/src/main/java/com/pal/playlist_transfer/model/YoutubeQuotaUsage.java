@@ -0,0 +1,22 @@
+package com.pal.playlist_transfer.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// YouTube quota units spent on one quota day (midnight to midnight Pacific), shared by every node
+@Entity
+@Table(name = "youtube_quota_usage")
+@Data
+@NoArgsConstructor
+public class YoutubeQuotaUsage {
+
+    @Id
+    @Column(name = "quota_day")
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private long unitsUsed;
+}
@@ -0,0 +1,84 @@
+package com.pal.playlist_transfer.oauth2;
+
+import com.pal.playlist_transfer.cache.LruTtlCache;
+import com.pal.playlist_transfer.config.TokenCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+
+/**
+ * Write-through in-memory cache in front of another {@link OAuth2AuthorizedClientService}
+ * (the JDBC one). The exchange filter resolves the authorized client on every WebClient call;
+ * with this in front the database is only read on a miss and only written when a token changes
+ * (login, refresh, removal).
+ * Metrics: transfer.token.cache (result=hit|miss).
+ */
+public class CachingOAuth2AuthorizedClientService implements OAuth2AuthorizedClientService {
+
+    private final OAuth2AuthorizedClientService delegate;
+    private final TokenCacheProperties properties;
+    private final LruTtlCache<String, OAuth2AuthorizedClient> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public CachingOAuth2AuthorizedClientService(OAuth2AuthorizedClientService delegate,
+                                                TokenCacheProperties properties,
+                                                MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.cache = new LruTtlCache<>(properties.getMaxEntries(), properties.getTtl());
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId, String principalName) {
+        if (!properties.isEnabled()) {
+            return delegate.loadAuthorizedClient(clientRegistrationId, principalName);
+        }
+        String key = key(clientRegistrationId, principalName);
+        OAuth2AuthorizedClient cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return (T) cached;
+        }
+        misses.increment();
+        T loaded = delegate.loadAuthorizedClient(clientRegistrationId, principalName);
+        // Absent clients aren't cached, the user may log in with that provider any moment
+        if (loaded != null) {
+            cache.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal) {
+        delegate.saveAuthorizedClient(authorizedClient, principal);
+        if (properties.isEnabled()) {
+            // Refreshed or newly authorized: replace the cached entry only once the database has it
+            cache.put(key(authorizedClient.getClientRegistration().getRegistrationId(), principal.getName()), authorizedClient);
+        }
+    }
+
+    @Override
+    public void removeAuthorizedClient(String clientRegistrationId, String principalName) {
+        // Invalidate first, so no one keeps using a client that is being removed
+        cache.remove(key(clientRegistrationId, principalName));
+        delegate.removeAuthorizedClient(clientRegistrationId, principalName);
+    }
+
+    private static String key(String clientRegistrationId, String principalName) {
+        return clientRegistrationId + ":" + principalName;
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("transfer.token.cache")
+                .description("Authorized client lookups by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,54 @@
+package com.pal.playlist_transfer.oauth2;
+
+import com.pal.playlist_transfer.model.User;
+import com.pal.playlist_transfer.repository.UserRepository;
+import com.pal.playlist_transfer.webclient.ApiProviders;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authorized clients are stored under the principal name of the login they came from: the Spotify
+ * user id for "spotify", the Google subject for "google". A transfer only knows the name of the
+ * login that started it, so this maps it to the name the other registration's client is stored
+ * under, through the linked {@link User}.
+ */
+@Component
+@RequiredArgsConstructor
+public class LinkedAccountPrincipalResolver {
+
+    private final UserRepository userRepository;
+
+    // Links never change once both ids are known, so resolved names are kept for good
+    private final Map<String, String> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * @return the principal name the registration's authorized client is stored under, or the given
+     * name if the user isn't linked (yet).
+     */
+    public String principalName(String registrationId, String principalName) {
+        String key = registrationId + ":" + principalName;
+        String cached = resolved.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String linked = findUser(principalName)
+                .map(user -> ApiProviders.SPOTIFY.equals(registrationId) ? user.getSpotifyId()
+                        : ApiProviders.GOOGLE.equals(registrationId) ? user.getGoogleId() : null)
+                .orElse(null);
+        if (linked == null) {
+            // Not cached: the user may log in with the other provider any moment
+            return principalName;
+        }
+        resolved.put(key, linked);
+        return linked;
+    }
+
+    private Optional<User> findUser(String principalName) {
+        return userRepository.findBySpotifyId(principalName)
+                .or(() -> userRepository.findByGoogleId(principalName));
+    }
+}
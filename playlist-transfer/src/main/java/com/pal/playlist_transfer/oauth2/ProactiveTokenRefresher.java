@@ -0,0 +1,80 @@
+package com.pal.playlist_transfer.oauth2;
+
+import com.pal.playlist_transfer.config.TokenRefreshProperties;
+import com.pal.playlist_transfer.service.TransferJobService;
+import com.pal.playlist_transfer.webclient.ApiProviders;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProviderBuilder;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Refreshes the access tokens of users with active transfers shortly before they expire, so the
+ * refresh grant runs in the background instead of in front of a transfer's next API call.
+ * Goes through the same {@link TokenRefreshCoordinator} as the request-time manager.
+ */
+@Slf4j
+@Component
+public class ProactiveTokenRefresher {
+
+    private static final List<String> REGISTRATIONS = List.of(ApiProviders.SPOTIFY, ApiProviders.GOOGLE);
+
+    private final OAuth2AuthorizedClientService authorizedClientService;
+    private final LinkedAccountPrincipalResolver principalResolver;
+    private final TokenRefreshCoordinator refreshCoordinator;
+    private final TransferJobService transferJobService;
+    private final TokenRefreshProperties properties;
+    private final AuthorizedClientServiceOAuth2AuthorizedClientManager refreshManager;
+
+    public ProactiveTokenRefresher(ClientRegistrationRepository clientRegistrationRepository,
+                                   OAuth2AuthorizedClientService authorizedClientService,
+                                   LinkedAccountPrincipalResolver principalResolver,
+                                   TokenRefreshCoordinator refreshCoordinator,
+                                   TransferJobService transferJobService,
+                                   TokenRefreshProperties properties) {
+        this.authorizedClientService = authorizedClientService;
+        this.principalResolver = principalResolver;
+        this.refreshCoordinator = refreshCoordinator;
+        this.transferJobService = transferJobService;
+        this.properties = properties;
+
+        // No servlet request here; with refreshAhead as clock skew the provider refreshes what we hand it
+        this.refreshManager = new AuthorizedClientServiceOAuth2AuthorizedClientManager(clientRegistrationRepository, authorizedClientService);
+        this.refreshManager.setAuthorizedClientProvider(OAuth2AuthorizedClientProviderBuilder.builder()
+                .refreshToken(refresh -> refresh.clockSkew(properties.getRefreshAhead()))
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.token-refresh.check-interval:1m}")
+    public void refreshExpiringTokens() {
+        if (!properties.isProactive()) {
+            return;
+        }
+        for (String principalName : transferJobService.activePrincipalNames()) {
+            for (String registrationId : REGISTRATIONS) {
+                // Jobs carry the name of the login that started them, the other provider's token is stored under its own
+                refreshIfExpiring(registrationId, principalResolver.principalName(registrationId, principalName));
+            }
+        }
+    }
+
+    private void refreshIfExpiring(String registrationId, String principalName) {
+        OAuth2AuthorizedClient client = authorizedClientService.loadAuthorizedClient(registrationId, principalName);
+        if (client == null || !TokenRefreshCoordinator.expiresWithin(client, properties.getRefreshAhead())) {
+            return;
+        }
+        try {
+            refreshCoordinator.refresh(registrationId, principalName, () -> refreshManager.authorize(
+                    OAuth2AuthorizeRequest.withClientRegistrationId(registrationId).principal(principalName).build()));
+        } catch (RuntimeException e) {
+            // Already logged by the coordinator; the next call retries the refresh itself
+        }
+    }
+}
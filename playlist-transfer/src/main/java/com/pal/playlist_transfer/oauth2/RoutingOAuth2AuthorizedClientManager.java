@@ -0,0 +1,47 @@
+package com.pal.playlist_transfer.oauth2;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+
+/**
+ * Picks the authorized client manager by where the call comes from:
+ * <ul>
+ *     <li>within an HTTP request: the web manager (session-aware, can start an authorization code flow)</li>
+ *     <li>anywhere else (async executor, queue workers, schedulers): the worker manager, which only
+ *     needs a principal name and reads tokens from the authorized client service. The principal name
+ *     is first mapped to the one the registration's client is stored under (linked accounts).</li>
+ * </ul>
+ */
+public class RoutingOAuth2AuthorizedClientManager implements OAuth2AuthorizedClientManager {
+
+    private final OAuth2AuthorizedClientManager webManager;
+    private final OAuth2AuthorizedClientManager workerManager;
+    private final LinkedAccountPrincipalResolver principalResolver;
+
+    public RoutingOAuth2AuthorizedClientManager(OAuth2AuthorizedClientManager webManager,
+                                                OAuth2AuthorizedClientManager workerManager,
+                                                LinkedAccountPrincipalResolver principalResolver) {
+        this.webManager = webManager;
+        this.workerManager = workerManager;
+        this.principalResolver = principalResolver;
+    }
+
+    @Override
+    public OAuth2AuthorizedClient authorize(OAuth2AuthorizeRequest authorizeRequest) {
+        if (authorizeRequest.getAttribute(HttpServletRequest.class.getName()) != null) {
+            return webManager.authorize(authorizeRequest);
+        }
+
+        String registrationId = authorizeRequest.getClientRegistrationId();
+        String principalName = principalResolver.principalName(registrationId, authorizeRequest.getPrincipal().getName());
+        OAuth2AuthorizeRequest.Builder workerRequest = authorizeRequest.getAuthorizedClient() != null
+                ? OAuth2AuthorizeRequest.withAuthorizedClient(authorizeRequest.getAuthorizedClient())
+                : OAuth2AuthorizeRequest.withClientRegistrationId(registrationId);
+        return workerManager.authorize(workerRequest
+                .principal(principalName)
+                .attributes(attributes -> attributes.putAll(authorizeRequest.getAttributes()))
+                .build());
+    }
+}
@@ -0,0 +1,49 @@
+package com.pal.playlist_transfer.oauth2;
+
+import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+
+import java.time.Duration;
+
+/**
+ * Wraps an authorized client manager so concurrent calls of one user that all find the access token
+ * about to expire trigger a single refresh grant instead of one each.
+ * Calls with a valid token go straight to the delegate; only the refresh path is coordinated.
+ */
+public class SingleFlightOAuth2AuthorizedClientManager implements OAuth2AuthorizedClientManager {
+
+    private final OAuth2AuthorizedClientManager delegate;
+    private final OAuth2AuthorizedClientService authorizedClientService;
+    private final TokenRefreshCoordinator refreshCoordinator;
+    private final Duration clockSkew;
+
+    /**
+     * @param clockSkew must match the delegate's refresh token provider, so both agree on "about to expire".
+     */
+    public SingleFlightOAuth2AuthorizedClientManager(OAuth2AuthorizedClientManager delegate,
+                                                     OAuth2AuthorizedClientService authorizedClientService,
+                                                     TokenRefreshCoordinator refreshCoordinator,
+                                                     Duration clockSkew) {
+        this.delegate = delegate;
+        this.authorizedClientService = authorizedClientService;
+        this.refreshCoordinator = refreshCoordinator;
+        this.clockSkew = clockSkew;
+    }
+
+    @Override
+    public OAuth2AuthorizedClient authorize(OAuth2AuthorizeRequest authorizeRequest) {
+        String registrationId = authorizeRequest.getClientRegistrationId();
+        String principalName = authorizeRequest.getPrincipal().getName();
+
+        // Served from the token cache, so this check is cheap
+        OAuth2AuthorizedClient current = authorizeRequest.getAuthorizedClient() != null
+                ? authorizeRequest.getAuthorizedClient()
+                : authorizedClientService.loadAuthorizedClient(registrationId, principalName);
+        if (current == null || !TokenRefreshCoordinator.expiresWithin(current, clockSkew)) {
+            return delegate.authorize(authorizeRequest);
+        }
+        return refreshCoordinator.refresh(registrationId, principalName, () -> delegate.authorize(authorizeRequest));
+    }
+}
@@ -0,0 +1,83 @@
+package com.pal.playlist_transfer.oauth2;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight token refresh: per registration id and principal at most one refresh grant runs
+ * at a time, every other caller that needs the same refresh waits for it and gets its result.
+ * Shared by the request-time manager and the background refresh, so they never race either.
+ * Metrics: transfer.token.refresh (provider, result=refreshed|joined|failed).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRefreshCoordinator {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CompletableFuture<OAuth2AuthorizedClient>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @return true if the client has a refresh token and its access token expires within the window.
+     */
+    public static boolean expiresWithin(OAuth2AuthorizedClient client, Duration window) {
+        Instant expiresAt = client.getAccessToken().getExpiresAt();
+        return client.getRefreshToken() != null && expiresAt != null && Instant.now().plus(window).isAfter(expiresAt);
+    }
+
+    /**
+     * Runs the refresh, or waits for the one already running for the same registration and principal.
+     * Blocking; callers are on bounded-elastic or scheduler threads.
+     */
+    public OAuth2AuthorizedClient refresh(String registrationId, String principalName, Supplier<OAuth2AuthorizedClient> refresh) {
+        String key = registrationId + ":" + principalName;
+        CompletableFuture<OAuth2AuthorizedClient> mine = new CompletableFuture<>();
+        CompletableFuture<OAuth2AuthorizedClient> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            count(registrationId, "joined");
+            return join(running);
+        }
+
+        try {
+            log.debug("Refreshing {} token for {}", registrationId, principalName);
+            OAuth2AuthorizedClient refreshed = refresh.get();
+            mine.complete(refreshed);
+            count(registrationId, "refreshed");
+            return refreshed;
+        } catch (RuntimeException e) {
+            log.warn("Refreshing the {} token for {} failed: {}", registrationId, principalName, e.getMessage());
+            mine.completeExceptionally(e);
+            count(registrationId, "failed");
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // Rethrows the leader's exception as is (OAuth2AuthorizationException etc.)
+    private static OAuth2AuthorizedClient join(CompletableFuture<OAuth2AuthorizedClient> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void count(String registrationId, String result) {
+        meterRegistry.counter("transfer.token.refresh", "provider", registrationId, "result", result).increment();
+    }
+}
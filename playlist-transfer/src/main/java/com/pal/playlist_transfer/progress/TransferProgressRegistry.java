@@ -0,0 +1,182 @@
+package com.pal.playlist_transfer.progress;
+
+import com.pal.playlist_transfer.config.TransferPipelineProperties;
+import com.pal.playlist_transfer.dto.transfer.TransferProgress;
+import com.pal.playlist_transfer.model.TransferItem;
+import com.pal.playlist_transfer.model.TransferItemStatus;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.model.TransferStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory progress of the transfers started on this instance.
+ * The pipeline updates it per track; readers only ever see the latest immutable snapshot, so
+ * polling and SSE watchers never touch the database or the providers.
+ * Each transfer has a replay-latest sink: a new watcher gets the current state right away, and
+ * updates are pushed at most once per second (status changes immediately), however many watch.
+ * Finished transfers are dropped after transfer.pipeline.progress-retention.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferProgressRegistry {
+
+    private static final long EMIT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final TransferPipelineProperties pipelineProperties;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public void queued(TransferJob job) {
+        evictExpired();
+        Entry entry = new Entry(job.getPrincipalName());
+        Entry previous = entries.put(job.getId(), entry);
+        if (previous != null) {
+            // Resumed job: watchers of the previous run see it end
+            previous.sink.tryEmitComplete();
+        }
+        synchronized (entry) {
+            entry.reset(job);
+            publish(entry, job, true);
+        }
+    }
+
+    public void started(TransferJob job) {
+        Entry entry = entries.compute(job.getId(), (id, existing) ->
+                existing == null || existing.finishedAt != null ? new Entry(job.getPrincipalName()) : existing);
+        synchronized (entry) {
+            entry.reset(job);
+            entry.startedNanos = System.nanoTime();
+            publish(entry, job, true);
+        }
+    }
+
+    // Status change outside the pipeline (QUEUED <-> DEFERRED)
+    public void updated(TransferJob job) {
+        Entry entry = entries.get(job.getId());
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            publish(entry, job, true);
+        }
+    }
+
+    public void trackProcessed(TransferJob job, TransferItem item) {
+        Entry entry = entries.get(job.getId());
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            entry.processed++;
+            if (item.getVideoId() != null) {
+                entry.matched++;
+            }
+            if (item.getStatus() == TransferItemStatus.ADDED) {
+                entry.added++;
+            } else if (item.getStatus() != TransferItemStatus.DUPLICATE) {
+                entry.failed++;
+            }
+            publish(entry, job, false);
+        }
+    }
+
+    public void finished(TransferJob job) {
+        Entry entry = entries.get(job.getId());
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            publish(entry, job, true);
+            entry.finishedAt = Instant.now();
+            entry.sink.tryEmitComplete();
+        }
+    }
+
+    /**
+     * @return the latest progress of the transfer, empty if it isn't tracked here or belongs to someone else.
+     */
+    public Optional<TransferProgress> get(Long transferId, String principalName) {
+        return entry(transferId, principalName).map(entry -> entry.latest);
+    }
+
+    /**
+     * @return the current progress followed by every update until the transfer ends,
+     * empty if it isn't tracked here or belongs to someone else.
+     */
+    public Optional<Flux<TransferProgress>> stream(Long transferId, String principalName) {
+        return entry(transferId, principalName).map(entry -> entry.sink.asFlux());
+    }
+
+    private Optional<Entry> entry(Long transferId, String principalName) {
+        return Optional.ofNullable(entries.get(transferId))
+                .filter(entry -> entry.principalName.equals(principalName));
+    }
+
+    // Called with the entry's lock held, which also keeps the sink emissions serialized
+    private void publish(Entry entry, TransferJob job, boolean force) {
+        long now = System.nanoTime();
+        entry.latest = snapshot(entry, job, now);
+        if (force || now - entry.lastEmitNanos >= EMIT_INTERVAL_NANOS) {
+            entry.lastEmitNanos = now;
+            entry.sink.tryEmitNext(entry.latest);
+        }
+    }
+
+    private static TransferProgress snapshot(Entry entry, TransferJob job, long now) {
+        int done = entry.startPosition + entry.processed;
+        double seconds = entry.startedNanos > 0 ? (now - entry.startedNanos) / 1e9 : 0;
+        double rate = seconds > 0 ? entry.processed / seconds : 0;
+        Long etaSeconds = null;
+        if (job.getStatus() == TransferStatus.COMPLETED) {
+            etaSeconds = 0L;
+        } else if (rate > 0 && job.getTotalTracks() >= done) {
+            etaSeconds = Math.round((job.getTotalTracks() - done) / rate);
+        }
+        return new TransferProgress(job.getId(), job.getSpotifyPlaylistId(), job.getYoutubePlaylistId(), job.getStatus(),
+                job.getTotalTracks(), done, entry.matched, entry.added, entry.failed,
+                Math.round(rate * 100) / 100.0, etaSeconds, job.getErrorMessage(), Instant.now());
+    }
+
+    private void evictExpired() {
+        Instant cutoff = Instant.now().minus(pipelineProperties.getProgressRetention());
+        entries.values().removeIf(entry -> entry.finishedAt != null && entry.finishedAt.isBefore(cutoff));
+    }
+
+    private static final class Entry {
+        private final String principalName;
+        private final Sinks.Many<TransferProgress> sink = Sinks.many().replay().latest();
+
+        private int startPosition;
+        private int processed;
+        private int matched;
+        private int added;
+        private int failed;
+        private long startedNanos;
+        private long lastEmitNanos;
+        private volatile TransferProgress latest;
+        private volatile Instant finishedAt;
+
+        private Entry(String principalName) {
+            this.principalName = principalName;
+        }
+
+        // Counters continue from the job's checkpoint when it is resumed
+        private void reset(TransferJob job) {
+            startPosition = job.getNextPosition();
+            processed = 0;
+            matched = job.getSuccessCount();
+            added = job.getSuccessCount();
+            failed = job.getFailCount();
+        }
+    }
+}
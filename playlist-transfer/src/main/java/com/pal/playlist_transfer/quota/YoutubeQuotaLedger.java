@@ -0,0 +1,155 @@
+package com.pal.playlist_transfer.quota;
+
+import com.pal.playlist_transfer.config.YoutubeProperties;
+import com.pal.playlist_transfer.repository.YoutubeQuotaUsageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Keeps track of the YouTube Data API quota units spent today.
+ * The quota is per Google Cloud project (default 10,000 units/day) and resets at midnight Pacific time.
+ * Units are booked before a call is sent; when the budget is gone, calls wait for the reset
+ * instead of running into 403 quotaExceeded.
+ * The units are counted per quota day in the database (youtube_quota_usage), so every node books
+ * against, and admits transfers from, the same number. A booking is one atomic upsert.
+ */
+@Slf4j
+@Component
+public class YoutubeQuotaLedger {
+
+    public static final ZoneId QUOTA_ZONE = ZoneId.of("America/Los_Angeles");
+
+    private final MeterRegistry meterRegistry;
+    private final YoutubeProperties.Quota properties;
+    private final YoutubeQuotaUsageRepository usageRepository;
+    private final Clock clock;
+
+    // Day the pause was last logged for, so it is logged once per node and day
+    private volatile LocalDate pausedLogged;
+
+    @Autowired
+    public YoutubeQuotaLedger(MeterRegistry meterRegistry, YoutubeProperties youtubeProperties,
+                              YoutubeQuotaUsageRepository usageRepository) {
+        this(meterRegistry, youtubeProperties, usageRepository, Clock.system(QUOTA_ZONE));
+    }
+
+    YoutubeQuotaLedger(MeterRegistry meterRegistry, YoutubeProperties youtubeProperties,
+                       YoutubeQuotaUsageRepository usageRepository, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.properties = youtubeProperties.getQuota();
+        this.usageRepository = usageRepository;
+        this.clock = clock;
+        Gauge.builder("transfer.youtube.quota.used", this, YoutubeQuotaLedger::unitsUsedToday)
+                .description("YouTube Data API quota units used since midnight Pacific time")
+                .baseUnit("units")
+                .register(meterRegistry);
+        Gauge.builder("transfer.youtube.quota.remaining", this, YoutubeQuotaLedger::remainingToday)
+                .description("YouTube Data API quota units left for transfers today")
+                .baseUnit("units")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cost of one call, see https://developers.google.com/youtube/v3/determine_quota_cost
+     * @param endpoint endpoint as returned by ApiProviders.endpoint, e.g. "/search".
+     */
+    public static int cost(HttpMethod method, String endpoint) {
+        if ("/search".equals(endpoint)) {
+            return 100;
+        }
+        // list calls cost 1, insert/update/delete cost 50
+        return HttpMethod.GET.equals(method) ? 1 : 50;
+    }
+
+    /**
+     * Books the cost of a call. Completes right away while there is budget left, otherwise
+     * once the quota has been reset (no thread is held while waiting).
+     */
+    public Mono<Void> acquire(HttpMethod method, String endpoint) {
+        return Mono.defer(() -> {
+            int cost = cost(method, endpoint);
+            // JDBC, off the event loop
+            return Mono.fromCallable(() -> tryBook(cost))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMap(booked -> {
+                        if (booked) {
+                            countUnits(endpoint, cost);
+                            return Mono.<Void>empty();
+                        }
+                        Duration untilReset = Duration.between(clock.instant(), nextReset()).plusSeconds(1);
+                        return Mono.delay(untilReset).then(acquire(method, endpoint));
+                    });
+        });
+    }
+
+    /**
+     * Google says the quota is gone (403 quotaExceeded): someone else used the project, or our
+     * numbers drifted. Treat today's budget as spent.
+     */
+    public Mono<Void> markExhausted() {
+        return Mono.fromRunnable(() -> usageRepository.raiseTo(today(), properties.getDailyLimit()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
+    }
+
+    public long unitsUsedToday() {
+        return usageRepository.findUnitsUsed(today()).orElse(0L);
+    }
+
+    /**
+     * @return units transfers may still spend today (daily limit minus safety margin minus used), on all nodes together.
+     */
+    public long remainingToday() {
+        return Math.max(0, budget() - unitsUsedToday());
+    }
+
+    public Instant nextReset() {
+        return today().plusDays(1).atStartOfDay(QUOTA_ZONE).toInstant();
+    }
+
+    private boolean tryBook(int cost) {
+        LocalDate today = today();
+        if (!properties.isEnabled()) {
+            usageRepository.add(today, cost);
+            return true;
+        }
+        // A new quota day is a new row, it starts from zero
+        if (cost <= budget() && usageRepository.book(today, cost, budget()) > 0) {
+            return true;
+        }
+        if (!today.equals(pausedLogged)) {
+            pausedLogged = today;
+            log.warn("YouTube quota used up ({} units today), holding YouTube calls until the reset at {}", unitsUsedToday(), nextReset());
+        }
+        return false;
+    }
+
+    private long budget() {
+        return properties.getDailyLimit() - properties.getSafetyMargin();
+    }
+
+    private LocalDate today() {
+        return LocalDate.now(clock.withZone(QUOTA_ZONE));
+    }
+
+    private void countUnits(String endpoint, int cost) {
+        Counter.builder("transfer.youtube.quota.units")
+                .description("YouTube Data API quota units consumed")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .increment(cost);
+    }
+}
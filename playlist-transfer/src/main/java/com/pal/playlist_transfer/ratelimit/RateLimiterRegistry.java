@@ -0,0 +1,59 @@
+package com.pal.playlist_transfer.ratelimit;
+
+import com.pal.playlist_transfer.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the token buckets used to throttle outbound API calls.
+ * There is one bucket per registration id (provider-wide budget) and one per
+ * registration id + principal (per-user budget). A request has to get a permit from both.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimiterRegistry {
+
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Reserves a permit for one request.
+     * @param registrationId OAuth2 registration id of the target provider ("spotify", "google").
+     * @param principalName The user the request is made for.
+     * @return nanoseconds the request has to wait before it may be sent.
+     */
+    public long reserve(String registrationId, String principalName) {
+        RateLimitProperties.ProviderLimits limits =
+                properties.getProviders().getOrDefault(registrationId, new RateLimitProperties.ProviderLimits());
+
+        TokenBucket providerBucket = buckets.computeIfAbsent(registrationId,
+                key -> new TokenBucket(limits.getProvider().getPermitsPerSecond(), limits.getProvider().getBurst()));
+        TokenBucket userBucket = buckets.computeIfAbsent(registrationId + ":" + principalName,
+                key -> new TokenBucket(limits.getPerUser().getPermitsPerSecond(), limits.getPerUser().getBurst()));
+
+        // Both reservations are taken; the request goes out once the slower of the two allows it
+        long waitNanos = Math.max(providerBucket.reserve(), userBucket.reserve());
+
+        Counter.builder("transfer.ratelimit.permits")
+                .description("Permits granted by the outbound rate limiter")
+                .tag("provider", registrationId)
+                .register(meterRegistry)
+                .increment();
+        Timer.builder("transfer.ratelimit.wait")
+                .description("Time requests spent waiting for a rate limit permit")
+                .tag("provider", registrationId)
+                .register(meterRegistry)
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+
+        return waitNanos;
+    }
+}
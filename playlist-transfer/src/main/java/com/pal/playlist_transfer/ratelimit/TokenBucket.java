@@ -0,0 +1,50 @@
+package com.pal.playlist_transfer.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Simple thread-safe token bucket.
+ * Permits refill continuously at a fixed rate up to a burst capacity. A caller that
+ * reserves a permit while the bucket is empty goes into "debt" and is told how long
+ * to wait, so concurrent callers are spaced out instead of all retrying at once.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double permitsPerNano;
+    private final LongSupplier nanoTime;
+    private double available;
+    private long lastRefillNanos;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoTime) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be > 0");
+        }
+        this.capacity = Math.max(1, burst);
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.nanoTime = nanoTime;
+        this.available = this.capacity;
+        this.lastRefillNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * Reserves one permit.
+     * @return how many nanoseconds the caller has to wait before using the permit (0 = go now).
+     */
+    public synchronized long reserve() {
+        long now = nanoTime.getAsLong();
+        available = Math.min(capacity, available + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+
+        available -= 1;
+        if (available >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-available / permitsPerNano);
+    }
+}
@@ -0,0 +1,88 @@
+package com.pal.playlist_transfer.ratelimit;
+
+import com.pal.playlist_transfer.config.ExecutorProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Caps how many transfers run at the same time, independent of how many threads the
+ * async executor has. A transfer holds its permit until its pipeline terminates, not
+ * just while its async task runs.
+ * Waiting for a permit holds no thread: a waiting transfer is a queued callback, completed
+ * by the {@link #release()} that frees its slot.
+ */
+@Component
+public class TransferConcurrencyLimiter {
+
+    private final int maxConcurrentTransfers;
+    private final Deque<MonoSink<Void>> waiting = new ArrayDeque<>();
+    private int available;
+
+    public TransferConcurrencyLimiter(ExecutorProperties executorProperties) {
+        this.maxConcurrentTransfers = executorProperties.getMaxConcurrentTransfers();
+        this.available = maxConcurrentTransfers;
+    }
+
+    /**
+     * Completes once a transfer slot is taken, right away if one is free. Waiters are served in
+     * the order they subscribed. Cancelling while waiting gives up the place in the queue.
+     * The completion runs on the thread of the {@link #release()} that handed the slot over.
+     */
+    public Mono<Void> acquire() {
+        return Mono.create(sink -> {
+            synchronized (this) {
+                if (available == 0 || !waiting.isEmpty()) {
+                    waiting.addLast(sink);
+                    sink.onCancel(() -> {
+                        synchronized (this) {
+                            waiting.remove(sink);
+                        }
+                    });
+                    return;
+                }
+                available--;
+            }
+            sink.success();
+        });
+    }
+
+    /**
+     * Takes a transfer slot if one is free right now, without waiting. Used by the queue worker.
+     */
+    public synchronized boolean tryAcquire() {
+        if (available == 0 || !waiting.isEmpty()) {
+            return false;
+        }
+        available--;
+        return true;
+    }
+
+    public void release() {
+        MonoSink<Void> next;
+        synchronized (this) {
+            next = waiting.pollFirst();
+            if (next == null) {
+                available = Math.min(maxConcurrentTransfers, available + 1);
+                return;
+            }
+        }
+        // The slot goes straight to the next waiter
+        next.success();
+    }
+
+    public synchronized int waitingTransfers() {
+        return waiting.size();
+    }
+
+    public synchronized int availableSlots() {
+        return available;
+    }
+
+    public synchronized int activeTransfers() {
+        return maxConcurrentTransfers - available;
+    }
+}
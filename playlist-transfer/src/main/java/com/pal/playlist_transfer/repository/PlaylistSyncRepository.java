@@ -0,0 +1,10 @@
+package com.pal.playlist_transfer.repository;
+
+import com.pal.playlist_transfer.model.PlaylistSync;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface PlaylistSyncRepository extends JpaRepository<PlaylistSync, Long> {
+    Optional<PlaylistSync> findByPrincipalNameAndSpotifyPlaylistId(String principalName, String spotifyPlaylistId);
+}
@@ -0,0 +1,23 @@
+package com.pal.playlist_transfer.repository;
+
+import com.pal.playlist_transfer.model.SyncedTrack;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SyncedTrackRepository extends JpaRepository<SyncedTrack, Long> {
+    List<SyncedTrack> findBySync_IdOrderByPositionAsc(Long syncId);
+
+    // Tracks no video was found for, last looked up before the given time (or never recorded)
+    @Query("select count(t) > 0 from SyncedTrack t where t.sync.id = :syncId and t.videoId is null "
+            + "and (t.matchedAt is null or t.matchedAt < :before)")
+    boolean existsNotFoundBefore(@Param("syncId") Long syncId, @Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from SyncedTrack t where t.sync.id = :syncId")
+    int deleteBySyncId(@Param("syncId") Long syncId);
+}
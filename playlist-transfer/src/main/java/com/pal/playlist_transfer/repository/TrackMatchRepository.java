@@ -0,0 +1,13 @@
+package com.pal.playlist_transfer.repository;
+
+import com.pal.playlist_transfer.model.TrackMatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface TrackMatchRepository extends JpaRepository<TrackMatch, Long> {
+    Optional<TrackMatch> findBySpotifyTrackId(String spotifyTrackId);
+    List<TrackMatch> findTop10ByIsrcOrderByUpdatedAtDesc(String isrc);
+    List<TrackMatch> findTop10ByNormalizedKeyOrderByUpdatedAtDesc(String normalizedKey);
+}
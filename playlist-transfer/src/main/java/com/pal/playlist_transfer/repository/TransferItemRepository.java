@@ -0,0 +1,16 @@
+package com.pal.playlist_transfer.repository;
+
+import com.pal.playlist_transfer.model.TransferItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface TransferItemRepository extends JpaRepository<TransferItem, Long> {
+    List<TransferItem> findByJob_IdOrderByPositionAsc(Long jobId);
+
+    @Query("select i.videoId from TransferItem i where i.job.id = :jobId "
+            + "and i.status = com.pal.playlist_transfer.model.TransferItemStatus.ADDED")
+    List<String> findAddedVideoIds(@Param("jobId") Long jobId);
+}
@@ -0,0 +1,43 @@
+package com.pal.playlist_transfer.repository;
+
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.model.TransferStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface TransferJobRepository extends JpaRepository<TransferJob, Long> {
+    Optional<TransferJob> findFirstByPrincipalNameAndSpotifyPlaylistIdAndStatusInOrderByCreatedAtDesc(
+            String principalName, String spotifyPlaylistId, Collection<TransferStatus> statuses);
+    List<TransferJob> findByStatusIn(Collection<TransferStatus> statuses);
+    List<TransferJob> findByStatusAndWorkerId(TransferStatus status, String workerId);
+    List<TransferJob> findTop50ByStatusOrderByCreatedAtAsc(TransferStatus status);
+    long countByStatusIn(Collection<TransferStatus> statuses);
+
+    // Compare-and-set, so of several workers polling the same QUEUED job exactly one gets it
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update TransferJob j set j.status = com.pal.playlist_transfer.model.TransferStatus.RUNNING, "
+            + "j.workerId = :workerId, j.updatedAt = :now, j.version = j.version + 1 "
+            + "where j.id = :id and j.status = com.pal.playlist_transfer.model.TransferStatus.QUEUED")
+    int claim(@Param("id") Long id, @Param("workerId") String workerId, @Param("now") Instant now);
+
+    // Compare-and-set of the status, every status change goes through here (or claim/requeue)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update TransferJob j set j.status = :to, j.errorMessage = :errorMessage, j.updatedAt = :now, j.version = j.version + 1 "
+            + "where j.id = :id and j.status = :from")
+    int transition(@Param("id") Long id, @Param("from") TransferStatus from, @Param("to") TransferStatus to,
+                   @Param("errorMessage") String errorMessage, @Param("now") Instant now);
+
+    // RUNNING job of a worker that went down back to QUEUED, for any worker to claim
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update TransferJob j set j.status = com.pal.playlist_transfer.model.TransferStatus.QUEUED, "
+            + "j.workerId = null, j.updatedAt = :now, j.version = j.version + 1 "
+            + "where j.id = :id and j.status = com.pal.playlist_transfer.model.TransferStatus.RUNNING and j.workerId = :workerId")
+    int requeue(@Param("id") Long id, @Param("workerId") String workerId, @Param("now") Instant now);
+}
@@ -0,0 +1,40 @@
+package com.pal.playlist_transfer.repository;
+
+import com.pal.playlist_transfer.model.YoutubeQuotaUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+// Single-statement upserts, so nodes booking at the same time never lose each other's units
+public interface YoutubeQuotaUsageRepository extends JpaRepository<YoutubeQuotaUsage, LocalDate> {
+
+    @Query("select u.unitsUsed from YoutubeQuotaUsage u where u.day = :day")
+    Optional<Long> findUnitsUsed(@Param("day") LocalDate day);
+
+    // Adds cost to the day if it stays within budget; 0 rows when it doesn't
+    @Transactional
+    @Modifying
+    @Query(value = "insert into youtube_quota_usage (quota_day, units_used) values (:day, :cost) "
+            + "on conflict (quota_day) do update set units_used = youtube_quota_usage.units_used + :cost "
+            + "where youtube_quota_usage.units_used + :cost <= :budget", nativeQuery = true)
+    int book(@Param("day") LocalDate day, @Param("cost") long cost, @Param("budget") long budget);
+
+    // Adds cost to the day, no matter the budget
+    @Transactional
+    @Modifying
+    @Query(value = "insert into youtube_quota_usage (quota_day, units_used) values (:day, :cost) "
+            + "on conflict (quota_day) do update set units_used = youtube_quota_usage.units_used + :cost", nativeQuery = true)
+    int add(@Param("day") LocalDate day, @Param("cost") long cost);
+
+    // Raises the day's usage to at least units
+    @Transactional
+    @Modifying
+    @Query(value = "insert into youtube_quota_usage (quota_day, units_used) values (:day, :units) "
+            + "on conflict (quota_day) do update set units_used = greatest(youtube_quota_usage.units_used, :units)", nativeQuery = true)
+    int raiseTo(@Param("day") LocalDate day, @Param("units") long units);
+}
@@ -0,0 +1,158 @@
+package com.pal.playlist_transfer.service;
+
+import com.pal.playlist_transfer.dto.youtube.insertPlaylist.YoutubePlaylistItemResponseDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The insert stage of one transfer: playlistItems.insert calls with several in flight, each at the
+ * explicit position the video has in the final playlist, so the order no longer depends on which
+ * call YouTube finishes first.
+ * <p>
+ * Inserts are numbered in playlist order as they are handed in. Insert k goes to
+ * {@code base + k - (earlier inserts known to have failed or been skipped)}. YouTube rejects a position
+ * past the current end of the playlist (400 invalidPlaylistItemPosition) and aborts colliding writes (409); in both
+ * cases the insert waits until every earlier one has landed or failed and is sent again with the
+ * now exact position, and as a last resort appended. A later insert can never land before an
+ * earlier one, so the final order is the playlist order.
+ * <p>
+ * Videos already in the playlist (from earlier runs of the job, or earlier in this one) are never
+ * inserted again: each call costs 50 quota units and YouTube would happily add the duplicate. A resumed
+ * job reads the playlist back, so inserts that landed after its last checkpoint count as well.
+ * A video counts as in the playlist once its insert succeeded; a later occurrence waits for the
+ * earlier one and only inserts itself if that one failed.
+ * {@link #insert} must be called in playlist order, which the pipeline does.
+ */
+@Slf4j
+class OrderedPlaylistInserts {
+
+    private static final Duration SETTLE_POLL = Duration.ofMillis(50);
+
+    private final YoutubeApiService youtubeApiService;
+    private final String playlistId;
+    private final int base;
+    private final Set<String> addedVideoIds;
+    private final Map<String, String> landedItems;
+    // Latest occurrence of each video handed in, completes with whether the video is in the playlist after it
+    private final Map<String, Mono<Boolean>> occurrences = new ConcurrentHashMap<>();
+
+    private int nextOrdinal;
+    private final BitSet settled = new BitSet();
+    // Inserts that didn't take a new position: failed, already in, or landed in an earlier run
+    private final BitSet skipped = new BitSet();
+
+    /**
+     * @param base number of items in the playlist before this run.
+     * @param addedVideoIds videos this job added and checkpointed in earlier runs.
+     * @param landedItems playlist item id by video id, for videos in the playlist that were never checkpointed
+     *                    (the run stopped between the insert and the checkpoint).
+     */
+    OrderedPlaylistInserts(YoutubeApiService youtubeApiService, String playlistId, int base,
+                           Collection<String> addedVideoIds, Map<String, String> landedItems) {
+        this.youtubeApiService = youtubeApiService;
+        this.playlistId = playlistId;
+        this.base = base;
+        this.addedVideoIds = Set.copyOf(addedVideoIds);
+        this.landedItems = Map.copyOf(landedItems);
+    }
+
+    /**
+     * Inserts a video after every video handed in before it.
+     * @return Mono with the added playlist item, empty if the video is already in the playlist.
+     */
+    Mono<YoutubePlaylistItemResponseDto> insert(String videoId) {
+        int ordinal = nextOrdinal++;
+        Sinks.One<Boolean> outcome = Sinks.one();
+        Mono<Boolean> earlier = occurrences.put(videoId, outcome.asMono());
+        String landedItemId = earlier == null ? landedItems.get(videoId) : null;
+
+        Mono<YoutubePlaylistItemResponseDto> inserted;
+        if (landedItemId != null) {
+            // The insert an earlier run made and didn't get to checkpoint, already in place
+            inserted = Mono.just(landedItem(landedItemId));
+        } else {
+            Mono<Boolean> present = earlier != null ? earlier : Mono.just(addedVideoIds.contains(videoId));
+            inserted = present.flatMap(in -> in ? Mono.empty() : send(videoId, ordinal, Attempt.POSITIONED));
+        }
+        return inserted
+                .doOnSuccess(response -> {
+                    // Only a new insert takes a position
+                    settle(ordinal, response == null || landedItemId != null);
+                    outcome.tryEmitValue(true);
+                })
+                .doOnError(e -> {
+                    settle(ordinal, true);
+                    // Never made it in, a later occurrence tries again
+                    outcome.tryEmitValue(false);
+                })
+                .doOnCancel(() -> outcome.tryEmitValue(false));
+    }
+
+    private static YoutubePlaylistItemResponseDto landedItem(String playlistItemId) {
+        YoutubePlaylistItemResponseDto item = new YoutubePlaylistItemResponseDto();
+        item.setId(playlistItemId);
+        return item;
+    }
+
+    private enum Attempt {
+        POSITIONED, // position from what is known when sending
+        SETTLED,    // every earlier insert is done, position is exact
+        APPEND      // the playlist isn't what we think it is (changed by the user), give up on order
+    }
+
+    private Mono<YoutubePlaylistItemResponseDto> send(String videoId, int ordinal, Attempt attempt) {
+        return Mono.defer(() -> youtubeApiService.addVideoToPlaylistReactive(playlistId, videoId,
+                        attempt == Attempt.APPEND ? null : position(ordinal)))
+                .onErrorResume(OrderedPlaylistInserts::isPositionConflict, e -> switch (attempt) {
+                    case POSITIONED -> earlierSettled(ordinal).then(send(videoId, ordinal, Attempt.SETTLED));
+                    case SETTLED -> {
+                        log.warn("Position {} rejected for video {} in playlist {} with all earlier inserts done, appending instead",
+                                position(ordinal), videoId, playlistId);
+                        yield send(videoId, ordinal, Attempt.APPEND);
+                    }
+                    case APPEND -> Mono.error(e);
+                });
+    }
+
+    private synchronized int position(int ordinal) {
+        return base + ordinal - skipped.get(0, ordinal).cardinality();
+    }
+
+    private synchronized void settle(int ordinal, boolean skip) {
+        settled.set(ordinal);
+        if (skip) {
+            skipped.set(ordinal);
+        }
+    }
+
+    private synchronized boolean earlierAllSettled(int ordinal) {
+        return settled.nextClearBit(0) >= ordinal;
+    }
+
+    // Earlier inserts are in flight on the other pipeline slots, each bounded by the WebClient timeouts
+    private Mono<Void> earlierSettled(int ordinal) {
+        return Flux.interval(Duration.ZERO, SETTLE_POLL)
+                .filter(tick -> earlierAllSettled(ordinal))
+                .next()
+                .then();
+    }
+
+    private static boolean isPositionConflict(Throwable e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        if (!(cause instanceof WebClientResponseException response)) {
+            return false;
+        }
+        int status = response.getStatusCode().value();
+        return status == 409 || (status == 400 && response.getResponseBodyAsString().contains("invalidPlaylistItemPosition"));
+    }
+}
@@ -1,12 +1,24 @@
 package com.pal.playlist_transfer.service;
 
+import com.pal.playlist_transfer.config.SpotifyProperties;
 import com.pal.playlist_transfer.dto.spotify.*;
+import com.pal.playlist_transfer.json.SpotifyTrackPageParser;
+import com.pal.playlist_transfer.webclient.ApiProviders;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,7 +28,12 @@ import java.util.List;
 public class SpotifyApiService {
 
     private final WebClient webClient;
-    private final String SPOTIFY_API_BASE_URL = "https://api.spotify.com/v1";
+    private final SpotifyProperties spotifyProperties;
+    private final SpotifyTrackPageParser trackPageParser;
+
+    // Expected response type for the tracks endpoint: PagingObject containing TrackItemDTOs
+    private static final ParameterizedTypeReference<SpotifyPagingObject<SpotifyTrackItemDto>> TRACK_PAGE_TYPE =
+            new ParameterizedTypeReference<>() {};
 
 
     public List<SpotifyPlaylistDto> getCurrentUserPlaylists() {
@@ -25,10 +42,11 @@ public class SpotifyApiService {
         // needs context about the current request/user, which it gets implicitly
         // when called within a request thread managed by Spring Security.
         // It will automatically use the token associated with the principal
-        // and the "spotify" client registration.
+        // and the "spotify" client registration. Outside a request (async transfers,
+        // queue workers) the token is resolved by principal name alone, see RoutingOAuth2AuthorizedClientManager.
         log.info("Fetching playlists from Spotify for current user...");
         List<SpotifyPlaylistDto> allPlaylists = new ArrayList<>();
-        String url = SPOTIFY_API_BASE_URL + "/me/playlists?limit=50";
+        String url = spotifyProperties.getBaseUrl() + "/me/playlists?limit=50";
 
         while (url!=null){
             log.debug("Requesting playlist from URL : {} ",url);
@@ -40,6 +58,7 @@ public class SpotifyApiService {
 
                 SpotifyPagingObject<SpotifyPlaylistDto> page = this.webClient.get()
                         .uri(url)
+                        .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId(ApiProviders.SPOTIFY))
                         .retrieve()
                         .bodyToMono(responseType)
                         .block();
@@ -69,47 +88,105 @@ public class SpotifyApiService {
     }
 
     public List<SpotifyTrackDto> getPlaylistTracks(String playlistId) {
+        // Blocking wrapper for the controllers, the transfer pipeline uses the Flux directly
+        List<SpotifyTrackDto> allTracks = getPlaylistTracksReactive(playlistId).collectList().block();
+        log.info("Successfully fetched {} valid, non-local tracks for playlist ID: {}.", allTracks.size(), playlistId);
+        return allTracks;
+    }
+
+    /**
+     * Non-blocking, streaming variant of {@link #getPlaylistTracks(String)}.
+     * Emits the valid, non-local tracks in playlist order as soon as their page arrives.
+     * Pages are pulled one at a time by downstream demand, so a slow consumer keeps
+     * at most a few pages in memory no matter how big the playlist is.
+     * @param playlistId The ID of the playlist.
+     * @return Flux of tracks, errors are mapped to RuntimeException like the blocking variant.
+     */
+    public Flux<SpotifyTrackDto> getPlaylistTracksReactive(String playlistId) {
         log.info("Fetching playlist tracks from Spotify playlist id: {}", playlistId);
-        List<SpotifyTrackDto> allTracks = new ArrayList<>();
-        // Note: Spotify endpoint includes market param, but often works without for owned playlists
-        String url = SPOTIFY_API_BASE_URL + "/playlists/" + playlistId + "/tracks?limit=100"; // Max limit is 100
-        while (url != null) {
-            log.debug("Requesting tracks from URL: {}", url);
-            try {
-                // Define the expected response type: PagingObject containing TrackItemDTOs
-                ParameterizedTypeReference<SpotifyPagingObject<SpotifyTrackItemDto>> responseType =
-                        new ParameterizedTypeReference<>() {};
 
-                // Make the blocking call
-                SpotifyPagingObject<SpotifyTrackItemDto> page = this.webClient.get()
-                        .uri(url) // Use the full URL directly
-                        .retrieve()
-                        .bodyToMono(responseType)
-                        .block(); // Make synchronous call
-
-                if (page != null && page.getItems() != null) {
-                    // Extract the actual Track DTO from the TrackItem DTO
-                    // and filter out local tracks which cannot be transferred
-                    List<SpotifyTrackDto> tracksInPage = page.getItems().stream()
-                            .map(SpotifyTrackItemDto::getTrack)
-                            .filter(track -> track != null && !track.isLocal() && track.getId() != null) // Ensure track exists, is not local, and has an ID
-                            .toList();
-
-                    allTracks.addAll(tracksInPage);
-                    url = page.getNext(); // Get URL for the next page
-                    log.debug("Fetched {} valid tracks, next page URL: {}", tracksInPage.size(), url);
-                } else {
-                    log.warn("Received null page or null items from Spotify for playlist tracks at URL: {}", url);
-                    url = null; // Stop looping
-                }
-            } catch (Exception e) {
-                log.error("Error fetching tracks for playlist {} from URL {}: {}", playlistId, url, e.getMessage(), e);
-                // Consider specific error handling (e.g., 404 Not Found for playlistId)
-                throw new RuntimeException("Failed to fetch tracks for playlist " + playlistId + ": " + e.getMessage(), e);
-            }
+        return fetchTrackPages(playlistId)
+                .doOnNext(page -> log.debug("Fetched {} valid tracks at offset {}", page.tracks().size(), page.offset()))
+                // prefetch a single page, the default (256 pages) would buffer the whole playlist
+                .flatMapIterable(SpotifyTrackPage::tracks, 1);
+    }
+
+    /**
+     * Emits the track pages of a playlist in playlist order.
+     * SEQUENTIAL follows page.next, one round trip per page.
+     * PARALLEL uses total/limit of the first page to compute every remaining offset and fetches
+     * those pages with at most pageFetchConcurrency requests in flight; flatMapSequential puts
+     * them back in order.
+     */
+    private Flux<SpotifyTrackPage> fetchTrackPages(String playlistId) {
+        int pageSize = Math.min(100, Math.max(1, spotifyProperties.getPageSize()));
+
+        return fetchTrackPage(playlistId, trackPageUrl(playlistId, 0, pageSize))
+                .flatMapMany(firstPage -> {
+                    if (spotifyProperties.getPageFetchMode() == SpotifyProperties.PageFetchMode.SEQUENTIAL) {
+                        // Request the next page once the previous one arrived
+                        return Mono.just(firstPage)
+                                .expand(page -> page.next() != null
+                                        ? fetchTrackPage(playlistId, page.next())
+                                        : Mono.empty());
+                    }
+
+                    int limit = firstPage.limit() > 0 ? firstPage.limit() : pageSize;
+                    List<Integer> remainingOffsets = new ArrayList<>();
+                    for (int offset = firstPage.offset() + limit; offset < firstPage.total(); offset += limit) {
+                        remainingOffsets.add(offset);
+                    }
+                    log.debug("Playlist {} has {} tracks, fetching {} more pages in parallel", playlistId, firstPage.total(), remainingOffsets.size());
+
+                    return Flux.concat(
+                            Mono.just(firstPage),
+                            Flux.fromIterable(remainingOffsets)
+                                    .flatMapSequential(offset -> fetchTrackPage(playlistId, trackPageUrl(playlistId, offset, limit)),
+                                            Math.max(1, spotifyProperties.getPageFetchConcurrency())));
+                });
+    }
+
+    private String trackPageUrl(String playlistId, int offset, int limit) {
+        // Spotify keeps fields/market on the "next" links it returns, so SEQUENTIAL mode stays projected too
+        return spotifyProperties.getBaseUrl() + "/playlists/" + playlistId + "/tracks?limit=" + limit + "&offset=" + offset // Max limit is 100
+                + projection(spotifyProperties.getTrackFields());
+    }
+
+    // "&fields=...&market=..." for the configured projection, empty when none is configured
+    private String projection(String fields) {
+        StringBuilder query = new StringBuilder();
+        if (fields != null && !fields.isBlank()) {
+            query.append("&fields=").append(fields);
         }
-        log.info("Successfully fetched {} valid, non-local tracks for playlist ID: {}.", allTracks.size(), playlistId);
-        return allTracks;
+        if (spotifyProperties.getMarket() != null && !spotifyProperties.getMarket().isBlank()) {
+            query.append("&market=").append(spotifyProperties.getMarket());
+        }
+        return query.toString();
+    }
+
+    private Mono<SpotifyTrackPage> fetchTrackPage(String playlistId, String url) {
+        log.debug("Requesting tracks from URL: {}", url);
+        WebClient.ResponseSpec response = this.webClient.get()
+                .uri(URI.create(url)) // Use the full URL as is, "next" links come back already encoded
+                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId(ApiProviders.SPOTIFY))
+                .retrieve();
+
+        Mono<SpotifyTrackPage> page = spotifyProperties.isLeanParsing()
+                // Stream-parse the raw body straight into the compact page, never buffering more than maxPageSize
+                ? DataBufferUtils.join(response.bodyToFlux(DataBuffer.class), (int) spotifyProperties.getMaxPageSize().toBytes())
+                        .map(buffer -> {
+                            try (InputStream body = buffer.asInputStream(true)) {
+                                return trackPageParser.parse(body);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        })
+                : response.bodyToMono(TRACK_PAGE_TYPE).map(SpotifyTrackPage::from);
+
+        return page
+                .doOnError(e -> log.error("Error fetching tracks for playlist {} from URL {}: {}", playlistId, url, e.getMessage(), e))
+                // Consider specific error handling (e.g., 404 Not Found for playlistId)
+                .onErrorMap(e -> new RuntimeException("Failed to fetch tracks for playlist " + playlistId + ": " + e.getMessage(), e));
     }
 
 
@@ -120,28 +197,29 @@ public class SpotifyApiService {
      */
 
     public SpotifyFullPlaylistDto getPlaylistDetails(String playlistId) {
+        return getPlaylistDetailsReactive(playlistId).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #getPlaylistDetails(String)}.
+     * @param playlistId The ID of the playlist.
+     * @return Mono with the playlist details, errors if Spotify returns nothing.
+     */
+    public Mono<SpotifyFullPlaylistDto> getPlaylistDetailsReactive(String playlistId) {
         log.info("Fetching details for spotify playlist ID: {}", playlistId);
-        String url = SPOTIFY_API_BASE_URL + "/playlists/" + playlistId;
-
-        try {
-            SpotifyFullPlaylistDto playlistDetails = this.webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(SpotifyFullPlaylistDto.class)
-                    .block();
-
-            if(playlistDetails!=null){
-                log.info("Successfully fetched details for playlist : {}", playlistDetails);
-                return playlistDetails;
-            }
-            else {
-                log.error("Recieved null response when fetching details for playlist : {}", playlistId);
-                throw new RuntimeException("Could not retrieve details for playlist ID: " + playlistId);
-            }
-        }
-        catch (Exception e) {
-            log.error("Error Fetching details for playlist {} from URL {}: {}", playlistId, url, e.getMessage(), e);
-            throw new RuntimeException("Failed to fetch details for playlist " + playlistId + ": " + e.getMessage(), e);
-        }
+        String url = spotifyProperties.getBaseUrl() + "/playlists/" + playlistId + projection(spotifyProperties.getPlaylistFields()).replaceFirst("&", "?");
+
+        return this.webClient.get()
+                .uri(url)
+                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId(ApiProviders.SPOTIFY))
+                .retrieve()
+                .bodyToMono(SpotifyFullPlaylistDto.class)
+                .doOnNext(playlistDetails -> log.info("Successfully fetched details for playlist : {}", playlistDetails))
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.error("Recieved null response when fetching details for playlist : {}", playlistId);
+                    return Mono.error(new RuntimeException("Could not retrieve details for playlist ID: " + playlistId));
+                }))
+                .doOnError(e -> log.error("Error Fetching details for playlist {} from URL {}: {}", playlistId, url, e.getMessage(), e))
+                .onErrorMap(e -> new RuntimeException("Failed to fetch details for playlist " + playlistId + ": " + e.getMessage(), e));
     }
 }
@@ -0,0 +1,205 @@
+package com.pal.playlist_transfer.service;
+
+import com.pal.playlist_transfer.cache.LruTtlCache;
+import com.pal.playlist_transfer.config.MatchCacheProperties;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+import com.pal.playlist_transfer.matching.TrackKeys;
+import com.pal.playlist_transfer.model.TrackMatch;
+import com.pal.playlist_transfer.repository.TrackMatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Track -> YouTube video cache, so a popular song is only searched once for all users.
+ * Looked up by Spotify track id ({@link #lookupExact}), then by ISRC and normalized title+artist
+ * ({@link #lookupKnown}), see TrackMatcher for how the results are used.
+ * Only matches verified within maxAge are used as is, older ones go back to TrackMatcher for re-checking.
+ * An in-memory LRU/TTL tier sits in front of the track_matches table.
+ */
+@Slf4j
+@Service
+public class TrackMatchCache {
+
+    private final TrackMatchRepository trackMatchRepository;
+    private final MatchCacheProperties properties;
+    private final LruTtlCache<String, Verified> memory;
+
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter staleHits;
+    private final Counter misses;
+
+    public TrackMatchCache(TrackMatchRepository trackMatchRepository,
+                           MatchCacheProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.trackMatchRepository = trackMatchRepository;
+        this.properties = properties;
+        this.memory = new LruTtlCache<>(properties.getMaxEntries(), properties.getTtl());
+
+        this.memoryHits = lookupCounter(meterRegistry, "hit", "memory");
+        this.databaseHits = lookupCounter(meterRegistry, "hit", "database");
+        this.staleHits = lookupCounter(meterRegistry, "stale", "database");
+        this.misses = lookupCounter(meterRegistry, "miss", "none");
+    }
+
+    /**
+     * CACHE tier: this exact Spotify track was matched and verified within maxAge.
+     * @return the YouTube video id, empty if we never matched this track or the match is older
+     * (then {@link #lookupKnown} hands it out for re-checking).
+     */
+    public Optional<String> lookupExact(SpotifyTrackDto track, Duration maxAge) {
+        if (!properties.isEnabled() || track.getId() == null) {
+            return Optional.empty();
+        }
+        Instant freshAfter = Instant.now().minus(maxAge);
+        Verified remembered = memory.get(idKey(track.getId()));
+        if (remembered != null && remembered.at().isAfter(freshAfter)) {
+            memoryHits.increment();
+            return Optional.of(remembered.videoId());
+        }
+        Optional<TrackMatch> match = trackMatchRepository.findBySpotifyTrackId(track.getId());
+        if (match.isEmpty()) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (!match.get().getUpdatedAt().isAfter(freshAfter)) {
+            staleHits.increment();
+            return Optional.empty();
+        }
+        databaseHits.increment();
+        memory.put(idKey(track.getId()), new Verified(match.get().getVideoId(), match.get().getUpdatedAt()));
+        return Optional.of(match.get().getVideoId());
+    }
+
+    /**
+     * Videos matched to this track before, to other tracks of the same recording (ISRC) or with the same
+     * normalized title+artist. An ISRC match verified within maxAge is returned as fresh (KNOWN_ID tier) right away.
+     * Everything else is returned, up to maxCandidates, this track's own match first, then ISRC matches,
+     * to be re-checked (VIDEOS_LIST tier).
+     * Title+artist alone can't tell a live or remixed version from the studio one (the key drops such suffixes),
+     * so those are flagged {@link KnownVideos#byName()} and never used unchecked.
+     */
+    public KnownVideos lookupKnown(SpotifyTrackDto track, Duration maxAge, int maxCandidates) {
+        if (!properties.isEnabled()) {
+            return KnownVideos.NONE;
+        }
+        String isrc = track.getIsrc();
+        String normalizedKey = TrackKeys.normalizedKey(track);
+
+        Instant freshAfter = Instant.now().minus(maxAge);
+        Verified remembered = isrc != null ? memory.get(isrcKey(isrc)) : null;
+        if (remembered != null && remembered.at().isAfter(freshAfter)) {
+            return new KnownVideos(remembered.videoId(), remembered.at(), List.of(), Set.of());
+        }
+
+        List<TrackMatch> byIsrc = isrc != null ? trackMatchRepository.findTop10ByIsrcOrderByUpdatedAtDesc(isrc) : List.of();
+        for (TrackMatch match : byIsrc) {
+            if (match.getUpdatedAt().isAfter(freshAfter)) {
+                memory.put(isrcKey(isrc), new Verified(match.getVideoId(), match.getUpdatedAt()));
+                return new KnownVideos(match.getVideoId(), match.getUpdatedAt(), List.of(), Set.of());
+            }
+        }
+        // Reaching here, this track's own match (if any) is stale too: lookupExact would have returned it
+        List<TrackMatch> own = track.getId() != null
+                ? trackMatchRepository.findBySpotifyTrackId(track.getId()).stream().toList() : List.of();
+        Set<String> sameRecording = Stream.concat(own.stream(), byIsrc.stream())
+                .map(TrackMatch::getVideoId)
+                .collect(Collectors.toSet());
+        List<TrackMatch> byName = normalizedKey != null
+                ? trackMatchRepository.findTop10ByNormalizedKeyOrderByUpdatedAtDesc(normalizedKey) : List.of();
+        List<String> stale = Stream.of(own, byIsrc, byName)
+                .flatMap(List::stream)
+                .map(TrackMatch::getVideoId)
+                .distinct()
+                .limit(maxCandidates)
+                .toList();
+        return new KnownVideos(null, null, stale, stale.stream()
+                .filter(videoId -> !sameRecording.contains(videoId))
+                .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Records a match for the track in both tiers.
+     * @param verifiedAt when the video was last confirmed by YouTube: now after a videos.list or search,
+     * the source match's time for a video reused unchecked, so reuse doesn't keep it fresh forever.
+     */
+    public void store(SpotifyTrackDto track, String videoId, Instant verifiedAt) {
+        if (!properties.isEnabled() || track.getId() == null || videoId == null) {
+            return;
+        }
+        String isrc = track.getIsrc();
+        String normalizedKey = TrackKeys.normalizedKey(track);
+        Verified verified = new Verified(videoId, verifiedAt);
+        memory.put(idKey(track.getId()), verified);
+        if (isrc != null) {
+            memory.put(isrcKey(isrc), verified);
+        }
+
+        try {
+            TrackMatch match = trackMatchRepository.findBySpotifyTrackId(track.getId())
+                    .orElseGet(() -> new TrackMatch(track.getId(), isrc, normalizedKey, videoId));
+            match.setVideoId(videoId);
+            match.setUpdatedAt(verified.at());
+            trackMatchRepository.save(match);
+        } catch (DataIntegrityViolationException e) {
+            // Another transfer stored the same track at the same moment - theirs is just as good
+            log.debug("Track match for {} was stored concurrently, keeping existing row", track.getId());
+        }
+    }
+
+    private static String idKey(String trackId) {
+        return "id:" + trackId;
+    }
+
+    private static String isrcKey(String isrc) {
+        return "isrc:" + isrc;
+    }
+
+    // A video and when it was last verified, the memory tier ages its entries by that too
+    private record Verified(String videoId, Instant at) {
+    }
+
+    /**
+     * @param fresh video verified recently, usable as is; null if there is none.
+     * @param verifiedAt when the fresh video was verified, null without one.
+     * @param stale older candidates, ISRC matches first, that need re-checking before use.
+     * @param byName the candidates found by title+artist only, they also need to pass CandidateScorer.
+     */
+    public record KnownVideos(String fresh, Instant verifiedAt, List<String> stale, Set<String> byName) {
+
+        static final KnownVideos NONE = new KnownVideos(null, null, List.of(), Set.of());
+
+        /**
+         * @return every candidate, fresh one first.
+         */
+        public List<String> all() {
+            if (fresh == null) {
+                return stale;
+            }
+            List<String> all = new ArrayList<>(stale.size() + 1);
+            all.add(fresh);
+            stale.stream().filter(videoId -> !videoId.equals(fresh)).forEach(all::add);
+            return all;
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result, String tier) {
+        return Counter.builder("transfer.match.cache")
+                .description("Track match cache lookups")
+                .tag("result", result)
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,139 @@
+package com.pal.playlist_transfer.service;
+
+import com.pal.playlist_transfer.config.WorkerProperties;
+import com.pal.playlist_transfer.config.YoutubeProperties;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.model.TransferStatus;
+import com.pal.playlist_transfer.progress.TransferProgressRegistry;
+import com.pal.playlist_transfer.quota.YoutubeQuotaLedger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Sits in front of {@link TransferService#transferPlaylistAsync(Long, String)} and decides, based on the
+ * YouTube quota left today, whether a transfer may start now:
+ * <ul>
+ *     <li>admit: there is budget for it on top of the transfers already running</li>
+ *     <li>defer: the job goes DEFERRED and is re-checked every admission-interval, at the latest
+ *     it starts after the daily reset (midnight Pacific)</li>
+ * </ul>
+ * The quota left is the one booked by all nodes together (see {@link YoutubeQuotaLedger}).
+ * Transfers that are already running and run out of quota are paused by the WebClient quota filter.
+ * Deferred jobs are admitted in submission order.
+ * In QUEUE worker mode admitting only moves the job to QUEUED for {@link TransferQueueWorker}s, and the
+ * deferred jobs are re-read from the database, so the ones deferred by any node (or before a restart) are admitted.
+ * DEFERRED -> QUEUED is a compare-and-set, so a job several nodes try to admit is admitted once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransferAdmissionScheduler {
+
+    // search.list (100) + videos.list for the candidates' durations (1) + playlistItems.insert (50)
+    private static final int UNITS_PER_TRACK = 151;
+    // playlists.insert
+    private static final int UNITS_PER_PLAYLIST = 50;
+
+    private final TransferService transferService;
+    private final TransferJobService transferJobService;
+    private final TransferProgressRegistry progressRegistry;
+    private final YoutubeQuotaLedger quotaLedger;
+    private final YoutubeProperties youtubeProperties;
+    private final WorkerProperties workerProperties;
+
+    private final Deque<Long> deferred = new ArrayDeque<>();
+
+    /**
+     * Starts the job or leaves it deferred.
+     * @param job a DEFERRED job, see {@link TransferJobService#startOrResume}: it only becomes QUEUED
+     *            (claimable by queue workers) once it is admitted.
+     * @return the job, QUEUED if it was admitted, DEFERRED otherwise.
+     */
+    public synchronized TransferJob submit(TransferJob job) {
+        // Nobody overtakes the transfers that are already waiting
+        if (deferred.isEmpty() && canAdmit(job)) {
+            // Empty if another node's admission run got to it first, which admitted it just the same
+            return transferJobService.transition(job, TransferStatus.DEFERRED, TransferStatus.QUEUED, null)
+                    .map(this::admit)
+                    .orElseGet(() -> transferJobService.get(job.getId()));
+        }
+        log.info("Deferring transfer job {}: {} YouTube quota units left, next reset at {}",
+                job.getId(), quotaLedger.remainingToday(), quotaLedger.nextReset());
+        progressRegistry.updated(job);
+        deferred.addLast(job.getId());
+        return job;
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.youtube.quota.admission-interval:30s}")
+    public synchronized void admitDeferred() {
+        if (workerProperties.getMode() == WorkerProperties.Mode.QUEUE) {
+            deferred.clear();
+            transferJobService.findDeferred().forEach(job -> deferred.addLast(job.getId()));
+        }
+        while (!deferred.isEmpty()) {
+            TransferJob job = transferJobService.find(deferred.peekFirst()).orElse(null);
+            if (job == null || job.getStatus() != TransferStatus.DEFERRED) {
+                deferred.pollFirst();
+                continue;
+            }
+            if (!canAdmit(job)) {
+                return;
+            }
+            deferred.pollFirst();
+            log.info("Admitting deferred transfer job {} ({} YouTube quota units left)", job.getId(), quotaLedger.remainingToday());
+            transferJobService.transition(job, TransferStatus.DEFERRED, TransferStatus.QUEUED, null).ifPresent(this::admit);
+        }
+    }
+
+    public synchronized int deferredTransfers() {
+        return deferred.size();
+    }
+
+    // Returns the job as it stands afterwards: QUEUED, or FAILED if the executor turned it down
+    private TransferJob admit(TransferJob job) {
+        progressRegistry.updated(job);
+        if (workerProperties.getMode() == WorkerProperties.Mode.QUEUE) {
+            // QUEUED in the database is all it takes, a worker on any node picks it up
+            return job;
+        }
+        try {
+            transferService.transferPlaylistAsync(job.getId(), job.getPrincipalName());
+            return job;
+        } catch (TaskRejectedException e) {
+            // Left QUEUED, nothing would ever start it and every new request for the playlist would get a 409
+            log.error("Executor rejected transfer job {}: {}", job.getId(), e.getMessage());
+            TransferJob failed = transferJobService.failUnstarted(job.getId(), "Could not be started: " + e.getMessage())
+                    .orElse(job);
+            progressRegistry.finished(failed);
+            return failed;
+        }
+    }
+
+    // Every transfer that is running or about to run needs its share of the budget
+    private boolean canAdmit(TransferJob job) {
+        if (!youtubeProperties.getQuota().isEnabled()) {
+            return true;
+        }
+        // Running or waiting for a slot, on every node: they all spend the same project's quota
+        long inFlight = transferJobService.countInFlight();
+        return quotaLedger.remainingToday() >= requiredUnits(job) * (inFlight + 1);
+    }
+
+    // What the job needs to make real progress: its remaining tracks, capped at admission-units
+    private long requiredUnits(TransferJob job) {
+        long admissionUnits = youtubeProperties.getQuota().getAdmissionUnits();
+        if (job.getTotalTracks() <= 0) {
+            // Not fetched yet
+            return admissionUnits;
+        }
+        long estimate = (long) Math.max(0, job.getTotalTracks() - job.getNextPosition()) * UNITS_PER_TRACK
+                + (job.getYoutubePlaylistId() == null ? UNITS_PER_PLAYLIST : 0);
+        return Math.max(UNITS_PER_PLAYLIST, Math.min(estimate, admissionUnits));
+    }
+}
@@ -0,0 +1,259 @@
+package com.pal.playlist_transfer.service;
+
+import com.pal.playlist_transfer.config.WorkerProperties;
+import com.pal.playlist_transfer.model.TransferItem;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.model.TransferMode;
+import com.pal.playlist_transfer.model.TransferStatus;
+import com.pal.playlist_transfer.repository.TransferItemRepository;
+import com.pal.playlist_transfer.repository.TransferJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Persistence side of a transfer: creating/resuming jobs and checkpointing their progress.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransferJobService {
+
+    private static final EnumSet<TransferStatus> RESUMABLE = EnumSet.of(TransferStatus.INTERRUPTED, TransferStatus.FAILED);
+    private static final EnumSet<TransferStatus> ACTIVE = EnumSet.of(TransferStatus.QUEUED, TransferStatus.DEFERRED, TransferStatus.RUNNING);
+
+    private final TransferJobRepository transferJobRepository;
+    private final TransferItemRepository transferItemRepository;
+    private final WorkerProperties workerProperties;
+
+    // Jobs claimed before this were claimed by the previous run of this node
+    private final Instant startedAt = Instant.now();
+
+    /**
+     * Jobs that were active when the application went down can't still be running, and the
+     * queued/deferred ones only lived in memory. Mark them INTERRUPTED so the next request for
+     * the same playlist picks them up again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void markAbandonedJobsInterrupted() {
+        if (workerProperties.getMode() == WorkerProperties.Mode.QUEUE) {
+            requeueOrphanedJobs();
+            return;
+        }
+        List<TransferJob> abandoned = transferJobRepository.findByStatusIn(ACTIVE);
+        for (TransferJob job : abandoned) {
+            log.info("Transfer job {} was {} at shutdown (next track {}), marking INTERRUPTED", job.getId(), job.getStatus(), job.getNextPosition());
+            transferJobRepository.transition(job.getId(), job.getStatus(), TransferStatus.INTERRUPTED, null, Instant.now());
+        }
+    }
+
+    /**
+     * QUEUE worker mode: queued and deferred jobs are durable and other nodes may be running theirs.
+     * Only the jobs this node was running go back to QUEUED, to be resumed from their checkpoint by any worker.
+     */
+    private void requeueOrphanedJobs() {
+        List<TransferJob> orphaned = transferJobRepository.findByStatusAndWorkerId(TransferStatus.RUNNING, workerProperties.getId()).stream()
+                .filter(job -> job.getUpdatedAt().isBefore(startedAt))
+                .toList();
+        for (TransferJob job : orphaned) {
+            log.info("Transfer job {} was running on worker {} at shutdown (next track {}), re-queueing it", job.getId(), job.getWorkerId(), job.getNextPosition());
+            transferJobRepository.requeue(job.getId(), workerProperties.getId(), Instant.now());
+        }
+    }
+
+    /**
+     * Returns the job that should run for this user and playlist: an unfinished one of the same mode to resume, or a new one.
+     * The job is DEFERRED until {@link TransferAdmissionScheduler#submit} admits it, so no queue worker can claim it
+     * before admission is decided.
+     * @throws org.springframework.dao.DataIntegrityViolationException if a concurrent request made a job for the same
+     * playlist active first (uk_transfer_jobs_active, see schema.sql).
+     */
+    @Transactional
+    public TransferJob startOrResume(String principalName, String spotifyPlaylistId, TransferMode mode) {
+        Optional<TransferJob> resumable = transferJobRepository
+                .findFirstByPrincipalNameAndSpotifyPlaylistIdAndStatusInOrderByCreatedAtDesc(principalName, spotifyPlaylistId, RESUMABLE)
+                // Jobs from before sync mode have no mode, they are full transfers
+                .filter(job -> (job.getMode() != null ? job.getMode() : TransferMode.FULL) == mode);
+        if (resumable.isPresent()) {
+            TransferJob job = resumable.get();
+            Optional<TransferJob> resumed = transition(job, job.getStatus(), TransferStatus.DEFERRED, null);
+            if (resumed.isPresent()) {
+                log.info("Resuming transfer job {} for playlist {} from track {}", job.getId(), spotifyPlaylistId, job.getNextPosition());
+                return resumed.get();
+            }
+            // A concurrent request resumed it; the new job below then runs into uk_transfer_jobs_active
+        }
+        TransferJob job = new TransferJob(principalName, spotifyPlaylistId);
+        job.setMode(mode);
+        job.setStatus(TransferStatus.DEFERRED);
+        // Flushed right away, so a violated unique index surfaces here and not at commit
+        return transferJobRepository.saveAndFlush(job);
+    }
+
+    /**
+     * @return true if the same user already has this playlist transfer running, queued or deferred.
+     */
+    public boolean isActive(String principalName, String spotifyPlaylistId) {
+        return findActive(principalName, spotifyPlaylistId).isPresent();
+    }
+
+    /**
+     * @return the running, queued or deferred job of the same user for this playlist, if there is one.
+     */
+    public Optional<TransferJob> findActive(String principalName, String spotifyPlaylistId) {
+        return transferJobRepository.findFirstByPrincipalNameAndSpotifyPlaylistIdAndStatusInOrderByCreatedAtDesc(
+                principalName, spotifyPlaylistId, ACTIVE);
+    }
+
+    /**
+     * @return the users that have a transfer running, queued or deferred.
+     */
+    public Set<String> activePrincipalNames() {
+        return transferJobRepository.findByStatusIn(ACTIVE).stream()
+                .map(TransferJob::getPrincipalName)
+                .collect(Collectors.toSet());
+    }
+
+    public TransferJob get(Long jobId) {
+        return find(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown transfer job " + jobId));
+    }
+
+    public Optional<TransferJob> find(Long jobId) {
+        return transferJobRepository.findById(jobId);
+    }
+
+    /**
+     * @return the oldest QUEUED jobs, in the order they should be claimed.
+     */
+    public List<TransferJob> findQueued() {
+        return transferJobRepository.findTop50ByStatusOrderByCreatedAtAsc(TransferStatus.QUEUED);
+    }
+
+    /**
+     * @return jobs admitted on any node that haven't finished yet (QUEUED or RUNNING).
+     */
+    public long countInFlight() {
+        return transferJobRepository.countByStatusIn(List.of(TransferStatus.QUEUED, TransferStatus.RUNNING));
+    }
+
+    /**
+     * @return the oldest DEFERRED jobs, in the order they should be admitted.
+     */
+    public List<TransferJob> findDeferred() {
+        return transferJobRepository.findTop50ByStatusOrderByCreatedAtAsc(TransferStatus.DEFERRED);
+    }
+
+    /**
+     * Atomically moves a QUEUED job to RUNNING for the given worker.
+     * @return the claimed job, empty if another worker claimed it first or it is no longer queued.
+     */
+    @Transactional
+    public Optional<TransferJob> claim(Long jobId, String workerId) {
+        if (transferJobRepository.claim(jobId, workerId, Instant.now()) == 0) {
+            return Optional.empty();
+        }
+        return transferJobRepository.findById(jobId);
+    }
+
+    /**
+     * @return the videos this job already added to its YouTube playlist (checkpointed ones).
+     */
+    public List<String> addedVideoIds(TransferJob job) {
+        return transferItemRepository.findAddedVideoIds(job.getId());
+    }
+
+    /**
+     * QUEUED -> RUNNING. A job claimed by a queue worker already is RUNNING.
+     * @throws IllegalStateException if the job is no longer queued (e.g. it is running elsewhere).
+     */
+    @Transactional
+    public TransferJob markRunning(TransferJob job) {
+        if (job.getStatus() == TransferStatus.RUNNING && workerProperties.getId().equals(job.getWorkerId())) {
+            return job;
+        }
+        return transition(job, TransferStatus.QUEUED, TransferStatus.RUNNING, null)
+                .orElseThrow(() -> new IllegalStateException("Transfer job " + job.getId() + " is no longer queued"));
+    }
+
+    /**
+     * Compare-and-set of the job's status.
+     * @return the job as stored after the change, empty if its status wasn't {@code from} (any more).
+     */
+    @Transactional
+    public Optional<TransferJob> transition(TransferJob job, TransferStatus from, TransferStatus to, String errorMessage) {
+        String message = errorMessage != null && errorMessage.length() > 1000 ? errorMessage.substring(0, 1000) : errorMessage;
+        if (transferJobRepository.transition(job.getId(), from, to, message, Instant.now()) == 0) {
+            log.debug("Transfer job {} is not {} any more, not moving it to {}", job.getId(), from, to);
+            return Optional.empty();
+        }
+        return transferJobRepository.findById(job.getId());
+    }
+
+    /**
+     * Fails a job whose transfer could not be started, so it doesn't block new transfers of its playlist.
+     * Only a job that hasn't started yet (DEFERRED or QUEUED) is failed; a RUNNING one finishes on its own.
+     * @return the failed job, empty if it had started or finished in the meantime.
+     */
+    @Transactional
+    public Optional<TransferJob> failUnstarted(Long jobId, String errorMessage) {
+        TransferJob job = get(jobId);
+        return transition(job, TransferStatus.DEFERRED, TransferStatus.FAILED, errorMessage)
+                .or(() -> transition(job, TransferStatus.QUEUED, TransferStatus.FAILED, errorMessage));
+    }
+
+    @Transactional
+    public TransferJob update(TransferJob job) {
+        job.setUpdatedAt(Instant.now());
+        return save(job);
+    }
+
+    /**
+     * Stores a finished batch of tracks and moves the job's checkpoint past them, in one transaction.
+     */
+    @Transactional
+    public TransferJob checkpoint(TransferJob job, List<TransferItem> batch) {
+        transferItemRepository.saveAll(batch);
+        for (TransferItem item : batch) {
+            job.setNextPosition(Math.max(job.getNextPosition(), item.getPosition() + 1));
+        }
+        job.setUpdatedAt(Instant.now());
+        log.debug("Checkpoint for transfer job {}: next track {}", job.getId(), job.getNextPosition());
+        return save(job);
+    }
+
+    /**
+     * Stores the job's counters and moves it from its current status to {@code status}.
+     * @return the finished job; unchanged if the job was no longer in the status the caller knew it in.
+     */
+    @Transactional
+    public TransferJob finish(TransferJob job, TransferStatus status, String errorMessage) {
+        TransferStatus from = job.getStatus();
+        job.setUpdatedAt(Instant.now());
+        save(job);
+        return transition(job, from, status, errorMessage)
+                .orElseGet(() -> {
+                    log.warn("Transfer job {} was no longer {} when it ended with {}", job.getId(), from, status);
+                    return job;
+                });
+    }
+
+    // The pipeline keeps saving its own copy of the job: carry the new version back into it,
+    // so its next save isn't taken for a stale one
+    private TransferJob save(TransferJob job) {
+        TransferJob saved = transferJobRepository.saveAndFlush(job);
+        job.setVersion(saved.getVersion());
+        return job;
+    }
+}
@@ -0,0 +1,53 @@
+package com.pal.playlist_transfer.service;
+
+import com.pal.playlist_transfer.config.WorkerProperties;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.ratelimit.TransferConcurrencyLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+/**
+ * QUEUE worker mode: drains the QUEUED jobs in the database, independent of any HTTP request,
+ * so transfers can be scheduled, survive restarts and run on whichever node has a free slot.
+ * Each node claims as many jobs as it has transfer slots; a claim is a compare-and-set on the
+ * job's status, so no job runs twice.
+ * The pipeline runs as the job's stored principal, see {@link TransferService#start}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransferQueueWorker {
+
+    private final TransferService transferService;
+    private final TransferJobService transferJobService;
+    private final TransferConcurrencyLimiter concurrencyLimiter;
+    private final WorkerProperties workerProperties;
+
+    @Scheduled(fixedDelayString = "${transfer.worker.poll-interval:5s}")
+    public void drainQueue() {
+        if (workerProperties.getMode() != WorkerProperties.Mode.QUEUE || concurrencyLimiter.availableSlots() == 0) {
+            return;
+        }
+        for (TransferJob queued : transferJobService.findQueued()) {
+            if (!concurrencyLimiter.tryAcquire()) {
+                return;
+            }
+            Optional<TransferJob> claimed = transferJobService.claim(queued.getId(), workerProperties.getId());
+            if (claimed.isEmpty()) {
+                // Another worker was faster
+                concurrencyLimiter.release();
+                continue;
+            }
+            run(claimed.get());
+        }
+    }
+
+    private void run(TransferJob job) {
+        log.info("Worker {} claimed transfer job {} of {}", workerProperties.getId(), job.getId(), job.getPrincipalName());
+        transferService.start(job.getId(), job.getPrincipalName());
+    }
+}
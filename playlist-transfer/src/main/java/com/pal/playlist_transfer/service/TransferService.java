@@ -1,14 +1,37 @@
 package com.pal.playlist_transfer.service;
 
-import com.pal.playlist_transfer.dto.spotify.SpotifyFullPlaylistDto;
+import com.pal.playlist_transfer.config.TransferPipelineProperties;
 import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
-import com.pal.playlist_transfer.dto.youtube.playlist.YoutubePlaylistResponseDto;
+import com.pal.playlist_transfer.matching.TrackMatcher;
+import com.pal.playlist_transfer.metrics.TransferMetrics;
+import com.pal.playlist_transfer.model.MatchTier;
+import com.pal.playlist_transfer.model.TransferItem;
+import com.pal.playlist_transfer.model.TransferItemStatus;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.model.TransferMode;
+import com.pal.playlist_transfer.model.TransferStatus;
+import com.pal.playlist_transfer.progress.TransferProgressRegistry;
+import com.pal.playlist_transfer.ratelimit.TransferConcurrencyLimiter;
+import com.pal.playlist_transfer.sync.PlaylistSyncService;
+import com.pal.playlist_transfer.sync.PlaylistSyncStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -18,82 +41,246 @@ public class TransferService {
 
     private final SpotifyApiService spotifyApiService;
     private final YoutubeApiService youtubeApiService;
+    private final TrackMatcher trackMatcher;
+    private final TransferJobService transferJobService;
+    private final TransferPipelineProperties pipelineProperties;
+    private final TransferConcurrencyLimiter concurrencyLimiter;
+    private final TransferMetrics transferMetrics;
+    private final TransferProgressRegistry progressRegistry;
+    private final PlaylistSyncService playlistSyncService;
+    private final PlaylistSyncStore playlistSyncStore;
 
     // Mark this method to run async
+    // The async task only queues the job for a transfer slot and returns; no thread waits for the slot.
+    // Subscribing off the request thread keeps the servlet request out of the reactor context.
 
     @Async
-    public void transferPlaylistAsync(String spotifyPlaylistId) {
-
-        log.info("Starting transfer for Spotify Playlist ID : {} ", spotifyPlaylistId);
+    public void transferPlaylistAsync(Long jobId, String principalName) {
+        concurrencyLimiter.acquire()
+                .subscribe(null,
+                        e -> log.error("Transfer job {} could not get a transfer slot: {}", jobId, e.getMessage(), e),
+                        () -> start(jobId, principalName));
+    }
 
+    /**
+     * Subscribes to the pipeline of a job that holds a transfer slot, releasing the slot when the pipeline ends.
+     * The pipeline runs as the job's stored principal: tokens are resolved by name through the authorized
+     * client service (see RoutingOAuth2AuthorizedClientManager), and the OAuth2 filter takes the principal
+     * from the thread that subscribes, which may be the one that just released a slot.
+     */
+    public void start(Long jobId, String principalName) {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new PreAuthenticatedAuthenticationToken(principalName, "N/A", AuthorityUtils.NO_AUTHORITIES));
+        SecurityContextHolder.setContext(context);
         try {
-            // 1. Get Spotify Playlist Details (for name/ description)
-            SpotifyFullPlaylistDto spotifyPlaylist = spotifyApiService.getPlaylistDetails(spotifyPlaylistId);
-            if(spotifyPlaylist == null) {
-                log.error("Cannot proceed with transfer: Failed to get details for Spotify playlist {}", spotifyPlaylistId);
-                return;
-            }
-            String playlistTitle = spotifyPlaylist.getName();
-            String playlistDescription = spotifyPlaylist.getDescription() != null ? spotifyPlaylist.getDescription() : "Transferred from Spotify";
-
-            // 2. Create Youtube Playlist
-            // Using private for now, could be configuable
-            YoutubePlaylistResponseDto youtubPlaylist = youtubeApiService.createPlaylist(playlistTitle,playlistDescription,"private");
-            if(youtubPlaylist == null) {
-                log.error("Cannot proceed with transfer: Failed to create youtube playlist {}", playlistTitle);
-                return;
-            }
+            transferPlaylist(jobId)
+                    // The slot is held for the whole pipeline, not just this method
+                    .doFinally(signal -> concurrencyLimiter.release())
+                    .subscribe(
+                            job -> log.info("Transfer job {} finished with status {}", job.getId(), job.getStatus()),
+                            e -> log.error("Transfer job {} ended with an unexpected error: {}", jobId, e.getMessage(), e));
+        } finally {
+            // Pooled threads, don't leave the user behind
+            SecurityContextHolder.setContext(previous);
+        }
+    }
 
-            String youtubePlaylistId = youtubPlaylist.getId();
-            log.info("Created Youtube playlist : {} with id : {}", youtubePlaylistId, youtubePlaylistId);
+    /**
+     * Runs a transfer job end to end without blocking on any HTTP call.
+     * 1. create the YouTube playlist (only if the job doesn't have one yet)
+     * 2. stream the Spotify tracks page by page, from the job's checkpoint on
+     * 3. SEARCH stage: match cache, then YouTube search, up to searchParallelism tracks at once
+     * 4. ADD stage: insert the matches one by one in playlist order
+     * 5. checkpoint every checkpointBatchSize tracks
+     * SYNC jobs do this once, after that they only apply the changes since the last run (see PlaylistSyncService).
+     * @return Mono with the finished job (COMPLETED or FAILED).
+     */
+    public Mono<TransferJob> transferPlaylist(Long jobId) {
+        return blocking(() -> transferJobService.markRunning(transferJobService.get(jobId)))
+                .flatMap(job -> {
+                    log.info("Starting transfer job {} for Spotify Playlist ID : {} ", job.getId(), job.getSpotifyPlaylistId());
+                    transferMetrics.jobStarted(job);
+                    progressRegistry.started(job);
+                    return run(job)
+                            .flatMap(done -> blocking(() -> transferJobService.finish(done, TransferStatus.COMPLETED, null)))
+                            .doOnNext(done -> log.info("Transfer job {} completed for Spotify Playlist ID: {}. Success: {}, Failed/Skipped: {}",
+                                    done.getId(), done.getSpotifyPlaylistId(), done.getSuccessCount(), done.getFailCount()))
+                            .onErrorResume(e -> {
+                                log.error("Transfer failed catastrophically for Spotify Playlist ID {}: {}", job.getSpotifyPlaylistId(), e.getMessage(), e);
+                                // The checkpoint stays where it is; starting the same transfer again resumes from there
+                                return blocking(() -> transferJobService.finish(job, TransferStatus.FAILED, e.getMessage()));
+                            })
+                            .doOnNext(done -> {
+                                transferMetrics.jobFinished(done);
+                                progressRegistry.finished(done);
+                            });
+                });
+    }
 
-            // 3. Get Spotify Tracks
+    private Mono<TransferJob> run(TransferJob job) {
+        if (job.getMode() != TransferMode.SYNC) {
+            boolean resuming = job.getYoutubePlaylistId() != null;
+            return ensureYoutubePlaylist(job).flatMap(ready -> transferTracks(ready, resuming));
+        }
+        boolean resuming = job.getYoutubePlaylistId() != null;
+        return blocking(() -> playlistSyncStore.find(job))
+                .flatMap(sync -> sync.isPresent()
+                        ? playlistSyncService.sync(job, sync.get())
+                        // First sync of this playlist: a full transfer, whose result is what the next run diffs against
+                        : ensureYoutubePlaylist(job)
+                                .flatMap(ready -> transferTracks(ready, resuming))
+                                .flatMap(done -> blocking(() -> {
+                                    playlistSyncStore.saveBaseline(done);
+                                    return done;
+                                })));
+    }
 
-            List<SpotifyTrackDto> spotifyTracks = spotifyApiService.getPlaylistTracks(spotifyPlaylistId);
-            int totalTracks = spotifyTracks.size();
-            log.info("Found {} valid tracks in Spotify playlist : {}", totalTracks, spotifyPlaylistId);
+    private Mono<TransferJob> ensureYoutubePlaylist(TransferJob job) {
+        if (job.getYoutubePlaylistId() != null) {
+            log.info("Resuming transfer job {} into existing Youtube playlist {} from track {}", job.getId(), job.getYoutubePlaylistId(), job.getNextPosition() + 1);
+            return Mono.just(job);
+        }
+        // 1. Get Spotify Playlist Details (for name/ description), then create the Youtube playlist
+        return spotifyApiService.getPlaylistDetailsReactive(job.getSpotifyPlaylistId())
+                .flatMap(spotifyPlaylist -> {
+                    if (spotifyPlaylist.getTracks() != null) {
+                        // Estimate only (includes local tracks), corrected once the stream is done
+                        job.setTotalTracks(spotifyPlaylist.getTracks().getTotal());
+                    }
+                    job.setSpotifySnapshotId(spotifyPlaylist.getSnapshotId());
+                    String playlistDescription = spotifyPlaylist.getDescription() != null ? spotifyPlaylist.getDescription() : "Transferred from Spotify";
+                    // Using private for now, could be configuable
+                    return youtubeApiService.createPlaylistReactive(spotifyPlaylist.getName(), playlistDescription, "private");
+                })
+                .flatMap(youtubePlaylist -> {
+                    log.info("Created Youtube playlist : {} with id : {}", youtubePlaylist.getSnippet().getTitle(), youtubePlaylist.getId());
+                    // Persist right away so a resumed job never creates a second playlist
+                    job.setYoutubePlaylistId(youtubePlaylist.getId());
+                    return blocking(() -> transferJobService.update(job));
+                });
+    }
 
-            // 4. LOOP -> SEARCH -> ADD
+    // Tracks are streamed page by page: matching starts as soon as the first page is in,
+    // and only a bounded number of tracks is held in memory regardless of playlist size.
+    private Mono<TransferJob> transferTracks(TransferJob job, boolean resuming) {
+        if (!resuming) {
+            return transferTracks(job, new OrderedPlaylistInserts(youtubeApiService, job.getYoutubePlaylistId(), 0, List.of(), Map.of()));
+        }
+        // Inserts that landed after the last checkpoint are in the playlist but not in the database,
+        // so read the playlist back (1 quota unit per 50 items) rather than add them a second time
+        return blocking(() -> transferJobService.addedVideoIds(job))
+                .zipWith(youtubeApiService.listPlaylistItemsReactive(job.getYoutubePlaylistId()).collectList())
+                .flatMap(known -> {
+                    Set<String> added = new HashSet<>(known.getT1());
+                    Map<String, String> landed = new HashMap<>();
+                    known.getT2().stream()
+                            .filter(item -> item.getContentDetails() != null && item.getContentDetails().getVideoId() != null)
+                            .filter(item -> !added.contains(item.getContentDetails().getVideoId()))
+                            .forEach(item -> landed.putIfAbsent(item.getContentDetails().getVideoId(), item.getId()));
+                    int base = Math.max(job.getSuccessCount(), known.getT2().size());
+                    log.info("Resuming transfer job {}: {} items in Youtube playlist {}, {} of them not checkpointed",
+                            job.getId(), known.getT2().size(), job.getYoutubePlaylistId(), landed.size());
+                    return transferTracks(job, new OrderedPlaylistInserts(youtubeApiService, job.getYoutubePlaylistId(), base, added, landed));
+                });
+    }
 
-            int successCount = 0;
-            int failCount = 0;
-            for(int i = 0; i < totalTracks; i++) {
-                SpotifyTrackDto track  = spotifyTracks.get(i);
-                log.info("[Track {}/{}] Processing: {} by {}", (i+1), totalTracks, track.getName(), track.getArtists().stream().map(a->a.getName()).collect(Collectors.joining(", ")));
+    private Mono<TransferJob> transferTracks(TransferJob job, OrderedPlaylistInserts inserts) {
+        int window = Math.max(1, pipelineProperties.getSearchParallelism());
+        int insertWindow = Math.max(1, pipelineProperties.getInsertParallelism());
+        int batchSize = Math.max(1, pipelineProperties.getCheckpointBatchSize());
+        int startPosition = job.getNextPosition();
+        AtomicInteger streamedTracks = new AtomicInteger();
 
-                // COnstruct search query ( SIMPLE VERSION )
+        return spotifyApiService.getPlaylistTracksReactive(job.getSpotifyPlaylistId())
+                .doOnNext(track -> streamedTracks.incrementAndGet())
+                .index()
+                // Resume: positions before the checkpoint are already done
+                .skip(startPosition)
+                // SEARCH: up to `window` lookups in flight, results come out in playlist order
+                .flatMapSequential(indexed -> transferMetrics.timeStage("match",
+                        matchTrack(indexed.getT1().intValue(), indexed.getT2(), job.getTotalTracks())), window)
+                // ADD: up to `insertWindow` inserts in flight at explicit positions, results in playlist order
+                .flatMapSequential(match -> transferMetrics.timeStage("add", addTrack(job, inserts, match)), insertWindow)
+                .doOnNext(item -> {
+                    // In order and one at a time again, so the job counters need no locking
+                    countResult(job, item);
+                    transferMetrics.trackProcessed(job, item.getStatus());
+                    progressRegistry.trackProcessed(job, item);
+                })
+                // CHECKPOINT
+                .buffer(batchSize)
+                .concatMap(batch -> transferMetrics.timeStage("checkpoint", blocking(() -> transferJobService.checkpoint(job, batch))))
+                .then(Mono.fromSupplier(() -> {
+                    log.info("Streamed {} valid tracks from Spotify playlist : {}", streamedTracks.get(), job.getSpotifyPlaylistId());
+                    job.setTotalTracks(streamedTracks.get());
+                    return job;
+                }));
+    }
 
-                String artistName = track.getArtists().isEmpty() ? "" : track.getArtists().get(0).getName();
-                String query = track.getName()+" "+artistName;
+    // Search stage, see TrackMatcher: cache, known videos and videos.list before a YouTube search (100 quota units)
+    private Mono<TrackMatchResult> matchTrack(int position, SpotifyTrackDto track, int totalTracks) {
+        log.info("[Track {}/{}] Processing: {} by {}", (position + 1), totalTracks, track.getName(), track.getArtists().stream().map(a->a.getName()).collect(Collectors.joining(", ")));
 
-                try {
-                    // 4 a -> Search on yt
-                    String videoId = youtubeApiService.searchVideo(query);
+        return trackMatcher.match(track)
+                .map(match -> new TrackMatchResult(position, track, match.videoId(), match.tier()))
+                .defaultIfEmpty(new TrackMatchResult(position, track, null, null))
+                // A failed lookup (YouTube or the database down, after the retries) is not "not found": it fails the
+                // job, which resumes from its last checkpoint when started again
+                .doOnError(e -> log.error("[Track {}/{}] Lookup failed for '{}': {}", (position + 1), totalTracks, track.getName(), e.getMessage()));
+    }
 
-                    if(videoId == null) {
-                        // 4b Add to Youtube Playlist
-                        youtubeApiService.addVideoToPlaylist(youtubePlaylistId,videoId);
-                        log.info("[Track {}/{}] Successfully searched and added '{}' (Video ID :{})", (i+1), totalTracks, track.getName(), videoId);
-                        successCount++;
-                    }
-                    else {
-                        log.warn("[Track {}/{}] Could not find YouTube video for '{}'. Skipping.", (i + 1), totalTracks, track.getName());
-                        failCount++;
-                    }
-                    // Optional: Add a small delay to avoid hitting rate limits too quickly
-                     Thread.sleep(500); // Sleep for 5
-                }catch (Exception e) {
-                    log.error("[Track {}/{}] Failed to process track '{}': {}", (i + 1), totalTracks, track.getName(), e.getMessage());
-                    failCount++;
-                    // Decide whether to continue or stop on error - continuing for now
-
-                }
+    // Add stage. Called in playlist order, the inserts themselves overlap (see OrderedPlaylistInserts)
+    private Mono<TransferItem> addTrack(TransferJob job, OrderedPlaylistInserts inserts, TrackMatchResult match) {
+        SpotifyTrackDto track = match.track();
+        int totalTracks = job.getTotalTracks();
+        int trackNumber = match.position() + 1;
+        TransferItem item = new TransferItem(job, match.position(), track.getId(), track.getName());
+        item.setVideoId(match.videoId());
+        item.setMatchTier(match.tier());
+
+        if (match.videoId() == null) {
+            log.warn("[Track {}/{}] Could not find YouTube video for '{}'. Skipping.", trackNumber, totalTracks, track.getName());
+            item.setStatus(TransferItemStatus.NOT_FOUND);
+            return Mono.just(item);
+        }
+
+        return inserts.insert(match.videoId())
+                .map(response -> {
+                    log.info("[Track {}/{}] Successfully searched and added '{}' (Video ID :{})", trackNumber, totalTracks, track.getName(), match.videoId());
+                    item.setPlaylistItemId(response.getId());
+                    item.setStatus(TransferItemStatus.ADDED);
+                    return item;
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.info("[Track {}/{}] Video {} for '{}' is already in the playlist. Skipping.", trackNumber, totalTracks, match.videoId(), track.getName());
+                    item.setStatus(TransferItemStatus.DUPLICATE);
+                    return item;
+                }))
+                .onErrorResume(e -> {
+                    log.error("[Track {}/{}] Failed to process track '{}': {}", trackNumber, totalTracks, track.getName(), e.getMessage());
+                    item.setStatus(TransferItemStatus.FAILED);
+                    item.setErrorMessage(e.getMessage());
+                    // Continuing with the next track
+                    return Mono.just(item);
+                });
+    }
+
+    private static void countResult(TransferJob job, TransferItem item) {
+        switch (item.getStatus()) {
+            case ADDED -> job.setSuccessCount(job.getSuccessCount() + 1);
+            case NOT_FOUND, FAILED -> job.setFailCount(job.getFailCount() + 1);
+            case DUPLICATE -> {
+                // Already in the playlist, neither
             }
-            log.info("Transfer completed for Spotify Playlist ID: {}. Success: {}, Failed/Skipped: {}",
-                    spotifyPlaylistId, successCount, failCount);
-        } catch (Exception e) {
-            log.error("Transfer failed catastrophically for Spotify Playlist ID {}: {}", spotifyPlaylistId, e.getMessage(), e);
-            // Handle overall failure - maybe update a status if we had status tracking
         }
     }
+
+    // JPA calls are blocking, keep them off the event loop
+    private static <T> Mono<T> blocking(Callable<T> callable) {
+        return Mono.fromCallable(callable).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private record TrackMatchResult(int position, SpotifyTrackDto track, String videoId, MatchTier tier) {
+    }
 }
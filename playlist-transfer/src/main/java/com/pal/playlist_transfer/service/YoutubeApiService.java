@@ -1,5 +1,7 @@
 package com.pal.playlist_transfer.service;
 
+import com.pal.playlist_transfer.config.YoutubeProperties;
+import com.pal.playlist_transfer.dto.youtube.insertPlaylist.YoutubePlaylistItemListResponseDto;
 import com.pal.playlist_transfer.dto.youtube.insertPlaylist.YoutubePlaylistItemRequestDto;
 import com.pal.playlist_transfer.dto.youtube.insertPlaylist.YoutubePlaylistItemResponseDto;
 import com.pal.playlist_transfer.dto.youtube.insertPlaylist.YoutubePlaylistItemSnippetDto;
@@ -10,12 +12,24 @@ import com.pal.playlist_transfer.dto.youtube.playlist.YoutubePlaylistSnippetDto;
 import com.pal.playlist_transfer.dto.youtube.playlist.YoutubePlaylistStatusDto;
 import com.pal.playlist_transfer.dto.youtube.search.YoutubeSearchListResponseDto;
 import com.pal.playlist_transfer.dto.youtube.search.YoutubeSearchResultDto;
+import com.pal.playlist_transfer.dto.youtube.video.YoutubeVideoDto;
+import com.pal.playlist_transfer.dto.youtube.video.YoutubeVideoListResponseDto;
+import com.pal.playlist_transfer.matching.VideoCandidate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Slf4j
 @Service
@@ -23,7 +37,7 @@ import org.springframework.web.reactive.function.client.WebClient;
 public class YoutubeApiService {
 
     private final WebClient webClient;
-    private final String YOUTUBE_API_BASE_URL = "https://www.googleapis.com/youtube/v3";
+    private final YoutubeProperties youtubeProperties;
 
 
     /**
@@ -35,6 +49,14 @@ public class YoutubeApiService {
      */
 
     public YoutubePlaylistResponseDto createPlaylist(String title, String description, String privacyStatus) {
+        return createPlaylistReactive(title, description, privacyStatus).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #createPlaylist(String, String, String)}.
+     * @return Mono with the created playlist, errors with RuntimeException if creation failed.
+     */
+    public Mono<YoutubePlaylistResponseDto> createPlaylistReactive(String title, String description, String privacyStatus) {
 
         log.info("Attempting to create youtube playlist with titel : {} ", title);
 
@@ -43,33 +65,25 @@ public class YoutubeApiService {
         YoutubePlaylistStatusDto status = new YoutubePlaylistStatusDto(privacyStatus);
         YoutubePlaylistRequestDto requestBody = new YoutubePlaylistRequestDto(snippet, status);
 
-        try {
-            // MAKE THE POST requeest using the configured WebClient
-            // The filter funtion automatically adds the Google token
-
-            YoutubePlaylistResponseDto response = this.webClient.post()
-                    .uri(YOUTUBE_API_BASE_URL+"/playlists?part=snippet,status")
-                    .bodyValue(requestBody)
-            // Explicitly tell the WebClient filter to use the "google" registration
-            // This is good practice if the default isn't guaranteed or if multiple clients exist.
-                    .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google"))
-                    .retrieve()
-                    .bodyToMono(YoutubePlaylistResponseDto.class)
-                    .block();
-            if (response != null && response.getId() != null) {
-                log.info("Successfully created YouTube playlist '{}' with ID: {}", response.getSnippet().getTitle(), response.getId());
-                return response;
-            } else {
-                log.error("Failed to create YouTube playlist '{}'. Response or ID was null.", title);
-                throw new RuntimeException("Failed to create YouTube playlist '" + title + "'. Response or ID was null.");
-            }
-        } catch (Exception e) {
-            log.error("Error creating YouTube playlist '{}': {}", title, e.getMessage(), e);
-            // Handle potential errors like quota limits (403), invalid request (400), etc.
-            throw new RuntimeException("Error creating YouTube playlist '" + title + "': " + e.getMessage(), e);
-        }
-
-
+        // MAKE THE POST requeest using the configured WebClient
+        // The filter funtion automatically adds the Google token
+        return this.webClient.post()
+                .uri(youtubeProperties.getBaseUrl()+"/playlists?part=snippet,status")
+                .bodyValue(requestBody)
+                // Explicitly tell the WebClient filter to use the "google" registration
+                // This is good practice if the default isn't guaranteed or if multiple clients exist.
+                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google"))
+                .retrieve()
+                .bodyToMono(YoutubePlaylistResponseDto.class)
+                .filter(response -> response.getId() != null)
+                .doOnNext(response -> log.info("Successfully created YouTube playlist '{}' with ID: {}", response.getSnippet().getTitle(), response.getId()))
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.error("Failed to create YouTube playlist '{}'. Response or ID was null.", title);
+                    return Mono.error(new RuntimeException("Failed to create YouTube playlist '" + title + "'. Response or ID was null."));
+                }))
+                // Handle potential errors like quota limits (403), invalid request (400), etc.
+                .doOnError(e -> log.error("Error creating YouTube playlist '{}': {}", title, e.getMessage(), e))
+                .onErrorMap(e -> new RuntimeException("Error creating YouTube playlist '" + title + "': " + e.getMessage(), e));
     }
 
 
@@ -81,50 +95,147 @@ public class YoutubeApiService {
      */
 
     public String searchVideo(String query){
+        return searchVideoReactive(query).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #searchVideo(String)}.
+     * @return Mono with the video ID of the top result, empty if nothing was found or the search failed.
+     */
+    public Mono<String> searchVideoReactive(String query) {
         log.info("Searching Youtube for query : {} ",query);
 
-        try {
-            // Call the search.list endpoint
-
-            YoutubeSearchListResponseDto response = this.webClient.get()
-                    .uri(YOUTUBE_API_BASE_URL +"/search", uriBuilder -> uriBuilder
-
-                            .queryParam("part","snippet") // Basic Details
-                            .queryParam("q",query) // The Search query itself
-                            .queryParam("type","video") // WE ONly want videos
-                            .queryParam("maxResults",1) // Get only the top result for now
-                            .queryParam("videoCategoryId","10") //"10" is the category ID for Music (optional, but helps)
-                            .build())
-                    .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google")) //Use Google token
-                    .retrieve()
-                    .bodyToMono(YoutubeSearchListResponseDto.class)
-                    .block();
-
-            if(response!=null && response.getItems()!=null && response.getItems().size() > 0){
-                // Get the first search result
-                YoutubeSearchResultDto topResult = response.getItems().get(0);
-                if(topResult.getId()!=null && "youtube#video".equals(topResult.getId().getKind())){
-                    String videoId = topResult.getId().getVideoId();
-                    log.info("Found vido for query {}, Video ID: {}, Title: {}", query, videoId,topResult.getSnippet().getTitle());
-                    return videoId;
-                }
-                else{
-                    log.warn("Top search result for query {} was not a video or had no ID", query);
-                }
+        // Call the search.list endpoint
+        return this.webClient.get()
+                .uri(youtubeProperties.getBaseUrl() +"/search", uriBuilder -> uriBuilder
+
+                        .queryParam("part","snippet") // Basic Details
+                        .queryParam("q",query) // The Search query itself
+                        .queryParam("type","video") // WE ONly want videos
+                        .queryParam("maxResults",1) // Get only the top result for now
+                        .queryParam("videoCategoryId","10") //"10" is the category ID for Music (optional, but helps)
+                        .build())
+                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google")) //Use Google token
+                .retrieve()
+                .bodyToMono(YoutubeSearchListResponseDto.class)
+                .flatMap(response -> {
+                    if(response.getItems()!=null && response.getItems().size() > 0){
+                        // Get the first search result
+                        YoutubeSearchResultDto topResult = response.getItems().get(0);
+                        if(topResult.getId()!=null && "youtube#video".equals(topResult.getId().getKind())){
+                            String videoId = topResult.getId().getVideoId();
+                            log.info("Found vido for query {}, Video ID: {}, Title: {}", query, videoId,topResult.getSnippet().getTitle());
+                            return Mono.justOrEmpty(videoId);
+                        }
+                        log.warn("Top search result for query {} was not a video or had no ID", query);
+                    }
+                    else {
+                        log.warn("No Youtube results found for query {}", query);
+                    }
+                    return Mono.<String>empty();
+                })
+                .onErrorResume(e -> {
+                    log.error("Error searching Youtube for query {} : {}", query, e.getMessage(), e);
+                    // Don't necessarily throw exception here, failing to find a song is expected sometimes
+                    return Mono.empty();
+                });
+    }
 
-            }
-            else {
-                log.warn("No Youtube results found for query {}", query);
-            }
+
+    /**
+     * Searches YouTube and returns several results for the caller to choose from. With details, the
+     * results are looked up with videos.list as well (1 more unit) for their durations, and the ones
+     * that can't be added to a playlist are dropped.
+     * @return Mono with the candidates, best ranked first; empty list if nothing was found. A failed search
+     * or lookup errors with RuntimeException (after the retry filter gave up), it doesn't mean "not found".
+     */
+    public Mono<List<VideoCandidate>> searchCandidatesReactive(String query, int maxResults, boolean withDetails) {
+        log.info("Searching Youtube for query : {} ({} candidates)", query, maxResults);
+
+        Mono<List<VideoCandidate>> searched = this.webClient.get()
+                .uri(youtubeProperties.getBaseUrl() + "/search", uriBuilder -> uriBuilder
+                        .queryParam("part", "snippet")
+                        .queryParam("q", query)
+                        .queryParam("type", "video")
+                        .queryParam("maxResults", maxResults)
+                        .queryParam("videoCategoryId", "10") //"10" is the category ID for Music
+                        .build())
+                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google")) //Use Google token
+                .retrieve()
+                .bodyToMono(YoutubeSearchListResponseDto.class)
+                .map(response -> response.getItems() == null ? List.<VideoCandidate>of() : response.getItems().stream()
+                        .filter(result -> result.getId() != null && "youtube#video".equals(result.getId().getKind()) && result.getId().getVideoId() != null)
+                        .map(result -> new VideoCandidate(result.getId().getVideoId(),
+                                result.getSnippet() != null ? result.getSnippet().getTitle() : null,
+                                result.getSnippet() != null ? result.getSnippet().getChannelTitle() : null,
+                                VideoCandidate.UNKNOWN_DURATION))
+                        .toList())
+                .doOnNext(candidates -> {
+                    if (candidates.isEmpty()) {
+                        log.warn("No Youtube results found for query {}", query);
+                    }
+                })
+                .doOnError(e -> log.error("Error searching Youtube for query {} : {}", query, e.getMessage(), e))
+                .onErrorMap(e -> new RuntimeException("Error searching Youtube for query " + query + ": " + e.getMessage(), e));
+        if (!withDetails) {
+            return searched;
         }
-        catch (Exception e) {
-            log.error("Error searching Youtube for query {} : {}", query, e.getMessage(), e);
-            // Don't necessarily throw exception here, failing to find a song is expected sometimes
-            // throw new RuntimeException("Error searching YouTube for query '" + query + "': " + e.getMessage(), e);
+        // Empty after the lookup: none of the results can be added to a playlist
+        return searched.flatMap(candidates -> candidates.isEmpty() ? Mono.just(candidates)
+                : findAvailableVideosReactive(candidates.stream().map(VideoCandidate::videoId).toList()));
+    }
+
+    /**
+     * Looks videos up with videos.list: 1 quota unit for up to 50 ids, instead of 100 for a search.
+     * @param videoIds video ids, best first (at most 50).
+     * @return Mono with the videos that still exist and can be added to a playlist, in the given order,
+     * with title, channel and duration; an empty list if none can. Errors with RuntimeException if the lookup failed.
+     */
+    public Mono<List<VideoCandidate>> findAvailableVideosReactive(List<String> videoIds) {
+        log.debug("Looking up {} Youtube videos: {}", videoIds.size(), videoIds);
+
+        return this.webClient.get()
+                .uri(youtubeProperties.getBaseUrl() + "/videos", uriBuilder -> uriBuilder
+                        .queryParam("part", "snippet,contentDetails,status")
+                        .queryParam("id", String.join(",", videoIds))
+                        .build())
+                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google")) //Use Google token
+                .retrieve()
+                .bodyToMono(YoutubeVideoListResponseDto.class)
+                .map(response -> {
+                    Map<String, VideoCandidate> available = new HashMap<>();
+                    if (response.getItems() != null) {
+                        response.getItems().stream()
+                                .filter(YoutubeApiService::isAvailable)
+                                .forEach(video -> available.put(video.getId(), toCandidate(video)));
+                    }
+                    return videoIds.stream().map(available::get).filter(Objects::nonNull).toList();
+                })
+                .doOnError(e -> log.error("Error looking up Youtube videos {} : {}", videoIds, e.getMessage(), e))
+                .onErrorMap(e -> new RuntimeException("Error looking up Youtube videos " + videoIds + ": " + e.getMessage(), e));
+    }
+
+    private static VideoCandidate toCandidate(YoutubeVideoDto video) {
+        long durationMs = VideoCandidate.UNKNOWN_DURATION;
+        if (video.getContentDetails() != null && video.getContentDetails().getDuration() != null) {
+            try {
+                durationMs = Duration.parse(video.getContentDetails().getDuration()).toMillis();
+            } catch (DateTimeParseException e) {
+                log.debug("Unparseable duration {} of video {}", video.getContentDetails().getDuration(), video.getId());
+            }
         }
-        return null;
+        return new VideoCandidate(video.getId(),
+                video.getSnippet() != null ? video.getSnippet().getTitle() : null,
+                video.getSnippet() != null ? video.getSnippet().getChannelTitle() : null,
+                durationMs);
     }
 
+    // Deleted videos aren't returned at all; private and still processing ones can't be added
+    private static boolean isAvailable(YoutubeVideoDto video) {
+        return video.getStatus() != null
+                && "processed".equals(video.getStatus().getUploadStatus())
+                && !"private".equals(video.getStatus().getPrivacyStatus());
+    }
 
     /**
      * Adds a video to a specific YouTube playlist.
@@ -135,52 +246,133 @@ public class YoutubeApiService {
 
 
     public YoutubePlaylistItemResponseDto addVideoToPlaylist(String playlistId, String videoId) {
-        log.info("Attempting to add video ID: {} to YouTube playlist ID: {}", videoId, playlistId);
+        return addVideoToPlaylistReactive(playlistId, videoId).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #addVideoToPlaylist(String, String)}.
+     * @return Mono with the added playlist item, errors with RuntimeException if the insert failed.
+     */
+    public Mono<YoutubePlaylistItemResponseDto> addVideoToPlaylistReactive(String playlistId, String videoId) {
+        return addVideoToPlaylistReactive(playlistId, videoId, null);
+    }
+
+    /**
+     * Adds a video at an explicit position (zero-based), or at the end if position is null.
+     * A position past the end of the playlist is rejected by YouTube (400 invalidPlaylistItemPosition).
+     * @return Mono with the added playlist item, errors with RuntimeException (cause: the WebClient exception) if the insert failed.
+     */
+    public Mono<YoutubePlaylistItemResponseDto> addVideoToPlaylistReactive(String playlistId, String videoId, Integer position) {
+        log.info("Attempting to add video ID: {} to YouTube playlist ID: {} at position {}", videoId, playlistId, position != null ? position : "end");
 
         // Construct the request body
         YoutubeResourceIdDto resourceId = new YoutubeResourceIdDto("youtube#video", videoId);
-        YoutubePlaylistItemSnippetDto snippet = new YoutubePlaylistItemSnippetDto(playlistId, resourceId);
-        YoutubePlaylistItemRequestDto requestBody = new YoutubePlaylistItemRequestDto(snippet);
-
-        try {
-            // Make the POST request to playlistItems.insert
-            YoutubePlaylistItemResponseDto response = this.webClient.post()
-                    .uri(YOUTUBE_API_BASE_URL + "/playlistItems?part=snippet") // API endpoint and parts
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .bodyValue(requestBody)
-                    .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google")) // Use Google token
-                    .retrieve()
-                    .bodyToMono(YoutubePlaylistItemResponseDto.class) // Expect response DTO
-                    .block(); // Synchronous call
-
-            if (response != null && response.getId() != null) {
-                log.info("Successfully added video ID: {} to playlist ID: {}. New item ID: {}", videoId, playlistId, response.getId());
-                return response;
-            } else {
-                log.error("Failed to add video ID: {} to playlist ID: {}. Response or ID was null.", videoId, playlistId);
-                // This could happen for various reasons, e.g., duplicate video?
-                throw new RuntimeException("Failed to add video " + videoId + " to playlist " + playlistId + ". Response or ID was null.");
-            }
-
-        } catch (Exception e) {
-            // Handle potential errors:
-            // 400 Bad Request (invalid videoId/playlistId format?)
-            // 403 Forbidden (quota exceeded? user doesn't own playlist?)
-            // 404 Not Found (playlistId or videoId doesn't exist?)
-            // 409 Conflict (Video already in playlist?) - Need to check actual error code/reason from Google
-            log.error("Error adding video ID: {} to playlist ID: {}: {}", videoId, playlistId, e.getMessage(), e);
-
-            // Check if it's a known "duplicate" error (often a 409 Conflict)
-            // if (e instanceof WebClientResponseException && ((WebClientResponseException) e).getStatusCode().value() == 409) {
-            //    log.warn("Video {} might already be in playlist {}. Skipping.", videoId, playlistId);
-            //    return null; // Or return a specific status/object indicating duplication
-            // }
-
-            throw new RuntimeException("Error adding video " + videoId + " to playlist " + playlistId + ": " + e.getMessage(), e);
-        }
+        YoutubePlaylistItemSnippetDto snippet = new YoutubePlaylistItemSnippetDto(playlistId, resourceId, position);
+        YoutubePlaylistItemRequestDto requestBody = new YoutubePlaylistItemRequestDto(null, snippet);
+
+        // Make the POST request to playlistItems.insert
+        return this.webClient.post()
+                .uri(youtubeProperties.getBaseUrl() + "/playlistItems?part=snippet") // API endpoint and parts
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requestBody)
+                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google")) // Use Google token
+                .retrieve()
+                .bodyToMono(YoutubePlaylistItemResponseDto.class) // Expect response DTO
+                .filter(response -> response.getId() != null)
+                .doOnNext(response -> log.info("Successfully added video ID: {} to playlist ID: {}. New item ID: {}", videoId, playlistId, response.getId()))
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.error("Failed to add video ID: {} to playlist ID: {}. Response or ID was null.", videoId, playlistId);
+                    // This could happen for various reasons, e.g., duplicate video?
+                    return Mono.error(new RuntimeException("Failed to add video " + videoId + " to playlist " + playlistId + ". Response or ID was null."));
+                }))
+                // Handle potential errors:
+                // 400 Bad Request (invalid videoId/playlistId format?)
+                // 403 Forbidden (quota exceeded? user doesn't own playlist?)
+                // 404 Not Found (playlistId or videoId doesn't exist?)
+                // 409 Conflict: YouTube allows duplicates, this is a concurrent write to the same playlist ("aborted")
+                // Duplicates are never sent, the transfer keeps the set of video ids already in the playlist.
+                .doOnError(e -> log.error("Error adding video ID: {} to playlist ID: {}: {}", videoId, playlistId, e.getMessage(), e))
+
+                .onErrorMap(e -> new RuntimeException("Error adding video " + videoId + " to playlist " + playlistId + ": " + e.getMessage(), e));
     }
 
+    /**
+     * Moves a playlist item with playlistItems.update (50 quota units).
+     * @param position zero-based index the item has once it is moved.
+     * @return Mono completing once YouTube applied the move, errors with RuntimeException otherwise.
+     */
+    public Mono<Void> movePlaylistItemReactive(String playlistItemId, String playlistId, String videoId, int position) {
+        log.info("Moving playlist item {} (video ID: {}) of YouTube playlist ID: {} to position {}", playlistItemId, videoId, playlistId, position);
+
+        // update replaces the whole snippet, so playlistId and resourceId have to be sent again
+        YoutubeResourceIdDto resourceId = new YoutubeResourceIdDto("youtube#video", videoId);
+        YoutubePlaylistItemRequestDto requestBody = new YoutubePlaylistItemRequestDto(playlistItemId,
+                new YoutubePlaylistItemSnippetDto(playlistId, resourceId, position));
+
+        return this.webClient.put()
+                .uri(youtubeProperties.getBaseUrl() + "/playlistItems?part=snippet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(requestBody)
+                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google")) // Use Google token
+                .retrieve()
+                .toBodilessEntity()
+                .then()
+                .doOnError(e -> log.error("Error moving playlist item {} of playlist ID: {}: {}", playlistItemId, playlistId, e.getMessage(), e))
+                .onErrorMap(e -> new RuntimeException("Error moving playlist item " + playlistItemId + " of playlist " + playlistId + ": " + e.getMessage(), e));
+    }
 
+    /**
+     * Removes a playlist item with playlistItems.delete (50 quota units).
+     * An item that is already gone (404) counts as removed.
+     */
+    public Mono<Void> removePlaylistItemReactive(String playlistItemId) {
+        log.info("Removing YouTube playlist item {}", playlistItemId);
+
+        return this.webClient.delete()
+                .uri(youtubeProperties.getBaseUrl() + "/playlistItems", uriBuilder -> uriBuilder
+                        .queryParam("id", playlistItemId)
+                        .build())
+                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google")) // Use Google token
+                .retrieve()
+                .onStatus(status -> status.value() == 404, response -> {
+                    log.info("Playlist item {} was already removed", playlistItemId);
+                    return Mono.empty();
+                })
+                .toBodilessEntity()
+                .then()
+                .doOnError(e -> log.error("Error removing playlist item {}: {}", playlistItemId, e.getMessage(), e))
+                .onErrorMap(e -> new RuntimeException("Error removing playlist item " + playlistItemId + ": " + e.getMessage(), e));
+    }
 
+    /**
+     * Reads a playlist back with playlistItems.list, 50 items per page and 1 quota unit per page.
+     * @return Flux of the items (id and contentDetails.videoId) in playlist order.
+     */
+    public Flux<YoutubePlaylistItemResponseDto> listPlaylistItemsReactive(String playlistId) {
+        log.info("Listing the items of YouTube playlist ID: {}", playlistId);
+
+        return fetchPlaylistItemPage(playlistId, null)
+                .expand(page -> page.getNextPageToken() != null
+                        ? fetchPlaylistItemPage(playlistId, page.getNextPageToken())
+                        : Mono.empty())
+                .concatMapIterable(page -> page.getItems() != null ? page.getItems() : List.of());
+    }
 
+    private Mono<YoutubePlaylistItemListResponseDto> fetchPlaylistItemPage(String playlistId, String pageToken) {
+        return this.webClient.get()
+                .uri(youtubeProperties.getBaseUrl() + "/playlistItems", uriBuilder -> {
+                    uriBuilder.queryParam("part", "contentDetails")
+                            .queryParam("playlistId", playlistId)
+                            .queryParam("maxResults", 50);
+                    if (pageToken != null) {
+                        uriBuilder.queryParam("pageToken", pageToken);
+                    }
+                    return uriBuilder.build();
+                })
+                .attributes(ServerOAuth2AuthorizedClientExchangeFilterFunction.clientRegistrationId("google")) // Use Google token
+                .retrieve()
+                .bodyToMono(YoutubePlaylistItemListResponseDto.class)
+                .doOnError(e -> log.error("Error listing the items of playlist ID: {}: {}", playlistId, e.getMessage(), e))
+                .onErrorMap(e -> new RuntimeException("Failed to list the items of playlist " + playlistId + ": " + e.getMessage(), e));
+    }
 }
@@ -0,0 +1,242 @@
+package com.pal.playlist_transfer.sync;
+
+import com.pal.playlist_transfer.model.MatchTier;
+import com.pal.playlist_transfer.model.SyncedTrack;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Diff between the current Spotify track list of a sync and its YouTube playlist, and the bookkeeping
+ * to apply it one call at a time.
+ * <p>
+ * Every Spotify track gets a {@link Slot}. Occurrences of a track are paired with the playlist items of
+ * the same track in order (a track can be in a playlist more than once); items left without a track are
+ * removed. Tracks no video was found for last time keep that result until the lookup is older than the
+ * retry cutoff; those and the tracks the sync has never seen are matched.
+ * <p>
+ * Of the paired items, the longest run that is already in Spotify order stays where it is. Every other
+ * item is moved, and every new video inserted, right behind the slot before it; positions are taken
+ * from the playlist as it is after the previous call, so they are exact. That is one playlistItems.update
+ * per track that changed place, instead of one per track between its old and new position.
+ * <p>
+ * Not thread-safe, a sync applies its changes one by one.
+ */
+final class PlaylistDiff {
+
+    enum Action {
+        MATCH,     // new track, no video yet
+        KEEP,      // in the playlist and already in order
+        MOVE,      // in the playlist, out of order
+        INSERT,    // video to add
+        DUPLICATE, // video already in the playlist for another track
+        NOT_FOUND  // no video
+    }
+
+    static final class Slot {
+
+        final int position; // index in the Spotify playlist
+        final String spotifyTrackId;
+        final boolean isNew; // not part of the last sync
+        Action action;
+        PlaylistEntry entry; // this track's item in the YouTube playlist
+        String videoId;
+        MatchTier matchTier;
+        Instant matchedAt; // last lookup, kept for tracks no video was found for
+
+        private Slot(int position, String spotifyTrackId, boolean isNew) {
+            this.position = position;
+            this.spotifyTrackId = spotifyTrackId;
+            this.isNew = isNew;
+        }
+
+        void matched(String videoId, MatchTier matchTier) {
+            this.videoId = videoId;
+            this.matchTier = matchTier;
+        }
+    }
+
+    private final List<Slot> slots;
+    private final List<PlaylistEntry> removals;
+    private final Map<String, Deque<PlaylistEntry>> unknownByVideo;
+    private final List<PlaylistEntry> playlist; // the YouTube playlist as of the last applied call
+    private PlaylistEntry last; // item of the last slot placed
+
+    private PlaylistDiff(List<Slot> slots, List<PlaylistEntry> removals, Map<String, Deque<PlaylistEntry>> unknownByVideo,
+                         List<PlaylistEntry> playlist) {
+        this.slots = slots;
+        this.removals = removals;
+        this.unknownByVideo = unknownByVideo;
+        this.playlist = playlist;
+    }
+
+    /**
+     * @param trackIds the Spotify tracks, in playlist order.
+     * @param playlist the YouTube playlist items, in playlist order.
+     * @param absent tracks of the last sync that aren't in the playlist (not found, duplicates).
+     * @param retryNotFoundBefore not found tracks last looked up before this are matched again.
+     */
+    static PlaylistDiff plan(List<String> trackIds, List<PlaylistEntry> playlist, List<SyncedTrack> absent, Instant retryNotFoundBefore) {
+        Map<String, Deque<PlaylistEntry>> itemsByTrack = new HashMap<>();
+        Map<String, Deque<PlaylistEntry>> unknownByVideo = new HashMap<>();
+        for (PlaylistEntry entry : playlist) {
+            if (entry.spotifyTrackId != null) {
+                itemsByTrack.computeIfAbsent(entry.spotifyTrackId, id -> new ArrayDeque<>()).addLast(entry);
+            } else if (entry.videoId != null) {
+                unknownByVideo.computeIfAbsent(entry.videoId, id -> new ArrayDeque<>()).addLast(entry);
+            }
+        }
+        Map<String, Deque<SyncedTrack>> absentByTrack = new HashMap<>();
+        for (SyncedTrack track : absent) {
+            absentByTrack.computeIfAbsent(track.getSpotifyTrackId(), id -> new ArrayDeque<>()).addLast(track);
+        }
+
+        List<Slot> slots = new ArrayList<>(trackIds.size());
+        Set<PlaylistEntry> paired = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int position = 0; position < trackIds.size(); position++) {
+            String trackId = trackIds.get(position);
+            PlaylistEntry entry = poll(itemsByTrack, trackId);
+            SyncedTrack known = entry == null ? poll(absentByTrack, trackId) : null;
+            Slot slot = new Slot(position, trackId, entry == null && known == null);
+            if (entry != null) {
+                slot.entry = entry;
+                slot.videoId = entry.videoId;
+                paired.add(entry);
+            } else if (known != null) {
+                slot.videoId = known.getVideoId();
+                slot.matchedAt = known.getMatchedAt();
+            }
+            boolean retry = known != null && known.getVideoId() == null
+                    && (known.getMatchedAt() == null || known.getMatchedAt().isBefore(retryNotFoundBefore));
+            slot.action = slot.isNew || retry ? Action.MATCH : null;
+            slots.add(slot);
+        }
+
+        List<PlaylistEntry> removals = playlist.stream()
+                .filter(entry -> entry.spotifyTrackId != null && !paired.contains(entry))
+                .toList();
+        return new PlaylistDiff(slots, removals, unknownByVideo, new ArrayList<>(playlist));
+    }
+
+    private static <T> T poll(Map<String, Deque<T>> queues, String key) {
+        Deque<T> queue = queues.get(key);
+        return queue != null ? queue.pollFirst() : null;
+    }
+
+    List<Slot> slots() {
+        return slots;
+    }
+
+    // Items of tracks that are no longer in the Spotify playlist
+    List<PlaylistEntry> removals() {
+        return removals;
+    }
+
+    /**
+     * Decides what happens to every slot, once the new tracks are matched.
+     * A video that is in the playlist without the sync knowing it (added on YouTube, or by an
+     * interrupted run) is taken over instead of being inserted a second time.
+     */
+    void resolve() {
+        Set<String> videos = new HashSet<>();
+        for (Slot slot : slots) {
+            if (slot.entry != null) {
+                videos.add(slot.entry.videoId);
+            }
+        }
+        for (Slot slot : slots) {
+            if (slot.entry != null) {
+                continue;
+            }
+            if (slot.videoId == null) {
+                slot.action = Action.NOT_FOUND;
+                continue;
+            }
+            PlaylistEntry unknown = poll(unknownByVideo, slot.videoId);
+            if (unknown != null) {
+                slot.entry = unknown;
+            } else {
+                slot.action = videos.add(slot.videoId) ? Action.INSERT : Action.DUPLICATE;
+            }
+        }
+        markInOrder();
+    }
+
+    // Longest increasing subsequence of the paired items' playlist indices, O(n log n)
+    private void markInOrder() {
+        Map<PlaylistEntry, Integer> index = new IdentityHashMap<>();
+        for (int i = 0; i < playlist.size(); i++) {
+            index.put(playlist.get(i), i);
+        }
+        List<Slot> paired = slots.stream().filter(slot -> slot.entry != null).toList();
+        int[] tails = new int[paired.size()]; // tails[k]: slot ending the best run of length k + 1
+        int[] previous = new int[paired.size()];
+        int length = 0;
+        for (int i = 0; i < paired.size(); i++) {
+            int value = index.get(paired.get(i).entry);
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (index.get(paired.get(tails[middle]).entry) < value) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            length = Math.max(length, low + 1);
+        }
+        paired.forEach(slot -> slot.action = Action.MOVE);
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            paired.get(i).action = Action.KEEP;
+        }
+    }
+
+    void removed(PlaylistEntry entry) {
+        playlist.remove(entry);
+    }
+
+    // Removals YouTube didn't apply
+    List<PlaylistEntry> failedRemovals() {
+        return removals.stream().filter(playlist::contains).toList();
+    }
+
+    // Slot that stays where it is
+    void kept(Slot slot) {
+        last = slot.entry;
+    }
+
+    /**
+     * @param moving the item about to be moved, null for an insert.
+     * @return the position right behind the last placed slot, as YouTube counts it once {@code moving} left its place.
+     */
+    int nextPosition(PlaylistEntry moving) {
+        if (last == null) {
+            return 0;
+        }
+        int index = playlist.indexOf(last);
+        if (moving != null && playlist.indexOf(moving) < index) {
+            index--;
+        }
+        return index + 1;
+    }
+
+    // The item is now at position, after a move or insert YouTube accepted
+    void placed(Slot slot, PlaylistEntry entry, int position) {
+        playlist.remove(entry);
+        playlist.add(position, entry);
+        slot.entry = entry;
+        last = entry;
+    }
+}
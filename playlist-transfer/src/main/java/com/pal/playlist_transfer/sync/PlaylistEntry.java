@@ -0,0 +1,15 @@
+package com.pal.playlist_transfer.sync;
+
+// An item of the YouTube playlist while a sync is applied. Compared by identity: a video can be in the playlist twice.
+final class PlaylistEntry {
+
+    final String playlistItemId;
+    final String videoId;
+    final String spotifyTrackId; // null for items the sync doesn't know (added on YouTube, or by an interrupted run)
+
+    PlaylistEntry(String playlistItemId, String videoId, String spotifyTrackId) {
+        this.playlistItemId = playlistItemId;
+        this.videoId = videoId;
+        this.spotifyTrackId = spotifyTrackId;
+    }
+}
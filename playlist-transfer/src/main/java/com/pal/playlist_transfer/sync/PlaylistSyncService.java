@@ -0,0 +1,299 @@
+package com.pal.playlist_transfer.sync;
+
+import com.pal.playlist_transfer.config.MatchingProperties;
+import com.pal.playlist_transfer.config.TransferPipelineProperties;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+import com.pal.playlist_transfer.matching.TrackMatcher;
+import com.pal.playlist_transfer.metrics.TransferMetrics;
+import com.pal.playlist_transfer.model.PlaylistSync;
+import com.pal.playlist_transfer.model.SyncedTrack;
+import com.pal.playlist_transfer.model.TransferItem;
+import com.pal.playlist_transfer.model.TransferItemStatus;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.progress.TransferProgressRegistry;
+import com.pal.playlist_transfer.service.SpotifyApiService;
+import com.pal.playlist_transfer.service.YoutubeApiService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Incremental sync of a Spotify playlist into the YouTube playlist it was first transferred to
+ * (TransferMode.SYNC). The first run is a regular transfer whose result becomes the baseline: Spotify's
+ * snapshot_id plus, per track, its video and YouTube playlist item. Every later run
+ * 1. reads the playlist details (one Spotify call) and is done right there if snapshot_id didn't change,
+ *    unless tracks no video was found for are due for another lookup (transfer.matching.not-found-retry-after)
+ * 2. otherwise streams the track list and diffs it against the baseline, see {@link PlaylistDiff}
+ * 3. matches only the tracks it has never seen (and not found ones due for another lookup), removes the
+ *    ones that are gone, then moves and inserts one call at a time until the YouTube playlist is in Spotify order
+ * 4. stores the result as the new baseline
+ * A run that didn't get every change applied leaves the sync dirty; the next run reads the playlist back
+ * with playlistItems.list (1 quota unit per 50 items) instead of trusting the baseline.
+ * Metrics: transfer.sync.runs (result=unchanged|applied), transfer.sync.changes (change=added|removed|moved).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaylistSyncService {
+
+    private final PlaylistSyncStore playlistSyncStore;
+    private final SpotifyApiService spotifyApiService;
+    private final YoutubeApiService youtubeApiService;
+    private final TrackMatcher trackMatcher;
+    private final TransferPipelineProperties pipelineProperties;
+    private final MatchingProperties matchingProperties;
+    private final TransferMetrics transferMetrics;
+    private final TransferProgressRegistry progressRegistry;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Brings the sync's YouTube playlist up to date with the Spotify playlist.
+     * @return Mono with the job, its counters cover the tracks new to the playlist.
+     */
+    public Mono<TransferJob> sync(TransferJob job, PlaylistSync sync) {
+        // Counters of an earlier, failed run of this job are redone by this one
+        job.setYoutubePlaylistId(sync.getYoutubePlaylistId());
+        job.setSuccessCount(0);
+        job.setFailCount(0);
+
+        return spotifyApiService.getPlaylistDetailsReactive(job.getSpotifyPlaylistId())
+                .flatMap(details -> {
+                    String snapshotId = details.getSnapshotId();
+                    job.setSpotifySnapshotId(snapshotId);
+                    Instant retryNotFoundBefore = Instant.now().minus(matchingProperties.getNotFoundRetryAfter());
+                    Mono<TransferJob> changed = Mono.defer(() -> Mono.zip(
+                                    spotifyApiService.getPlaylistTracksReactive(job.getSpotifyPlaylistId()).collectList(), baseline(sync))
+                            .flatMap(current -> apply(job, sync, current.getT1(), current.getT2(), retryNotFoundBefore)));
+                    if (sync.isDirty() || snapshotId == null || !snapshotId.equals(sync.getSpotifySnapshotId())) {
+                        return changed;
+                    }
+                    return blocking(() -> playlistSyncStore.hasNotFoundBefore(sync, retryNotFoundBefore))
+                            .flatMap(retry -> {
+                                if (retry) {
+                                    log.info("Spotify playlist {} is unchanged, looking up its tracks without a video again", job.getSpotifyPlaylistId());
+                                    return changed;
+                                }
+                                log.info("Spotify playlist {} is unchanged since the last sync (snapshot {}), nothing to do", job.getSpotifyPlaylistId(), snapshotId);
+                                job.setTotalTracks(sync.getTrackCount());
+                                job.setNextPosition(sync.getTrackCount());
+                                meterRegistry.counter("transfer.sync.runs", "result", "unchanged").increment();
+                                return Mono.just(job);
+                            });
+                });
+    }
+
+    // The YouTube playlist as the last run left it, read back from YouTube if that run didn't finish cleanly
+    private Mono<Baseline> baseline(PlaylistSync sync) {
+        return blocking(() -> playlistSyncStore.tracks(sync))
+                .flatMap(tracks -> {
+                    List<SyncedTrack> absent = tracks.stream().filter(track -> track.getPlaylistItemId() == null).toList();
+                    if (!sync.isDirty()) {
+                        List<PlaylistEntry> playlist = tracks.stream()
+                                .filter(track -> track.getPlaylistItemId() != null)
+                                .map(track -> new PlaylistEntry(track.getPlaylistItemId(), track.getVideoId(), track.getSpotifyTrackId()))
+                                .toList();
+                        return Mono.just(new Baseline(playlist, absent));
+                    }
+
+                    log.info("Last sync of YouTube playlist {} didn't finish cleanly, reading it back", sync.getYoutubePlaylistId());
+                    Map<String, String> trackByItem = new HashMap<>();
+                    tracks.stream()
+                            .filter(track -> track.getPlaylistItemId() != null)
+                            .forEach(track -> trackByItem.put(track.getPlaylistItemId(), track.getSpotifyTrackId()));
+                    return youtubeApiService.listPlaylistItemsReactive(sync.getYoutubePlaylistId())
+                            .filter(item -> item.getContentDetails() != null)
+                            .map(item -> new PlaylistEntry(item.getId(), item.getContentDetails().getVideoId(), trackByItem.get(item.getId())))
+                            .collectList()
+                            .map(playlist -> new Baseline(playlist, absent));
+                });
+    }
+
+    private Mono<TransferJob> apply(TransferJob job, PlaylistSync sync, List<SpotifyTrackDto> tracks, Baseline baseline,
+                                    Instant retryNotFoundBefore) {
+        PlaylistDiff diff = PlaylistDiff.plan(tracks.stream().map(SpotifyTrackDto::getId).toList(), baseline.playlist(), baseline.absent(),
+                retryNotFoundBefore);
+        String playlistId = sync.getYoutubePlaylistId();
+        int window = Math.max(1, pipelineProperties.getSearchParallelism());
+        AtomicBoolean clean = new AtomicBoolean(true);
+        AtomicInteger removed = new AtomicInteger();
+        AtomicInteger moved = new AtomicInteger();
+        job.setTotalTracks(tracks.size());
+
+        return blocking(() -> playlistSyncStore.markDirty(sync))
+                // MATCH: tracks the sync has never seen and not found ones due again, same tiers as a transfer
+                .thenMany(Flux.fromIterable(diff.slots())
+                        .filter(slot -> slot.action == PlaylistDiff.Action.MATCH)
+                        .flatMapSequential(slot -> match(slot, tracks.get(slot.position)), window))
+                .then(Mono.fromRunnable(diff::resolve))
+                // REMOVE
+                .thenMany(Flux.fromIterable(diff.removals())
+                        .concatMap(entry -> youtubeApiService.removePlaylistItemReactive(entry.playlistItemId)
+                                .then(Mono.fromRunnable(() -> {
+                                    diff.removed(entry);
+                                    removed.incrementAndGet();
+                                }))
+                                .onErrorResume(e -> {
+                                    log.error("Could not remove playlist item {} from YouTube playlist {}: {}", entry.playlistItemId, playlistId, e.getMessage());
+                                    clean.set(false);
+                                    return Mono.empty();
+                                })))
+                // MOVE / INSERT: one call at a time in Spotify order, each position depends on the calls before it
+                .thenMany(Flux.fromIterable(diff.slots())
+                        .concatMap(slot -> Mono.defer(() -> place(job, diff, playlistId, slot, tracks.get(slot.position), clean, moved))))
+                .doOnNext(item -> {
+                    countResult(job, item);
+                    transferMetrics.trackProcessed(job, item.getStatus());
+                    progressRegistry.trackProcessed(job, item);
+                })
+                .collectList()
+                .flatMap(items -> {
+                    List<SyncedTrack> syncedTracks = syncedTracks(diff, clean.get());
+                    job.setNextPosition(tracks.size());
+                    return blocking(() -> playlistSyncStore.store(sync, job.getSpotifySnapshotId(), tracks.size(), syncedTracks, !clean.get(), items));
+                })
+                .map(stored -> {
+                    countChanges(job.getSuccessCount(), removed.get(), moved.get());
+                    meterRegistry.counter("transfer.sync.runs", "result", "applied").increment();
+                    log.info("Synced Spotify playlist {} into YouTube playlist {}: {} added, {} removed, {} moved{}",
+                            job.getSpotifyPlaylistId(), playlistId, job.getSuccessCount(), removed.get(), moved.get(),
+                            stored.isDirty() ? ", some changes failed and are retried on the next sync" : "");
+                    return job;
+                });
+    }
+
+    private Mono<PlaylistDiff.Slot> match(PlaylistDiff.Slot slot, SpotifyTrackDto track) {
+        return trackMatcher.match(track)
+                .doOnNext(match -> slot.matched(match.videoId(), match.tier()))
+                // Fails the sync before anything changed on YouTube, the next run matches the track again
+                .doOnError(e -> log.error("[Sync] Lookup failed for '{}': {}", track.getName(), e.getMessage()))
+                .thenReturn(slot)
+                .doOnNext(looked -> looked.matchedAt = Instant.now());
+    }
+
+    // Applies the slot's action; emits an item for every track that is new to the playlist
+    private Mono<TransferItem> place(TransferJob job, PlaylistDiff diff, String playlistId, PlaylistDiff.Slot slot, SpotifyTrackDto track,
+                                     AtomicBoolean clean, AtomicInteger moved) {
+        switch (slot.action) {
+            case KEEP -> {
+                diff.kept(slot);
+                return Mono.empty();
+            }
+            case MOVE -> {
+                PlaylistEntry entry = slot.entry;
+                int position = diff.nextPosition(entry);
+                return youtubeApiService.movePlaylistItemReactive(entry.playlistItemId, playlistId, entry.videoId, position)
+                        .then(Mono.<TransferItem>fromRunnable(() -> {
+                            diff.placed(slot, entry, position);
+                            moved.incrementAndGet();
+                        }))
+                        .onErrorResume(e -> {
+                            log.error("[Sync] Could not move '{}' to position {}: {}", track.getName(), position, e.getMessage());
+                            clean.set(false);
+                            return Mono.empty();
+                        });
+            }
+            case INSERT -> {
+                TransferItem item = newItem(job, slot, track);
+                int position = diff.nextPosition(null);
+                return youtubeApiService.addVideoToPlaylistReactive(playlistId, slot.videoId, position)
+                        .map(response -> {
+                            diff.placed(slot, new PlaylistEntry(response.getId(), slot.videoId, slot.spotifyTrackId), position);
+                            item.setPlaylistItemId(response.getId());
+                            item.setStatus(TransferItemStatus.ADDED);
+                            return item;
+                        })
+                        .onErrorResume(e -> {
+                            log.error("[Sync] Failed to add '{}' at position {}: {}", track.getName(), position, e.getMessage());
+                            clean.set(false);
+                            item.setStatus(TransferItemStatus.FAILED);
+                            item.setErrorMessage(e.getMessage());
+                            return Mono.just(item);
+                        });
+            }
+            default -> {
+                // DUPLICATE / NOT_FOUND: only reported when the track is new, otherwise the last sync did already
+                if (!slot.isNew) {
+                    return Mono.empty();
+                }
+                TransferItem item = newItem(job, slot, track);
+                item.setStatus(slot.action == PlaylistDiff.Action.DUPLICATE ? TransferItemStatus.DUPLICATE : TransferItemStatus.NOT_FOUND);
+                return Mono.just(item);
+            }
+        }
+    }
+
+    private static TransferItem newItem(TransferJob job, PlaylistDiff.Slot slot, SpotifyTrackDto track) {
+        TransferItem item = new TransferItem(job, slot.position, slot.spotifyTrackId, track.getName());
+        item.setVideoId(slot.videoId);
+        item.setMatchTier(slot.matchTier);
+        return item;
+    }
+
+    // The new baseline: every track with where it ended up. Failed inserts are left out so the next run
+    // tries them again; items that couldn't be removed are kept (past the end) so it removes them then.
+    private static List<SyncedTrack> syncedTracks(PlaylistDiff diff, boolean clean) {
+        List<SyncedTrack> syncedTracks = new ArrayList<>();
+        for (PlaylistDiff.Slot slot : diff.slots()) {
+            switch (slot.action) {
+                case KEEP, MOVE, INSERT -> {
+                    if (slot.entry != null) {
+                        syncedTracks.add(new SyncedTrack(null, slot.position, slot.spotifyTrackId, slot.entry.videoId, slot.entry.playlistItemId));
+                    }
+                }
+                case DUPLICATE -> syncedTracks.add(new SyncedTrack(null, slot.position, slot.spotifyTrackId, slot.videoId, null));
+                case NOT_FOUND -> {
+                    SyncedTrack notFound = new SyncedTrack(null, slot.position, slot.spotifyTrackId, null, null);
+                    notFound.setMatchedAt(slot.matchedAt);
+                    syncedTracks.add(notFound);
+                }
+                case MATCH -> {
+                    // resolve() leaves no slot in MATCH
+                }
+            }
+        }
+        if (!clean) {
+            int position = diff.slots().size();
+            for (PlaylistEntry entry : diff.failedRemovals()) {
+                syncedTracks.add(new SyncedTrack(null, position++, entry.spotifyTrackId, entry.videoId, entry.playlistItemId));
+            }
+        }
+        return syncedTracks;
+    }
+
+    private static void countResult(TransferJob job, TransferItem item) {
+        switch (item.getStatus()) {
+            case ADDED -> job.setSuccessCount(job.getSuccessCount() + 1);
+            case NOT_FOUND, FAILED -> job.setFailCount(job.getFailCount() + 1);
+            case DUPLICATE -> {
+                // Already in the playlist, neither
+            }
+        }
+    }
+
+    private void countChanges(int added, int removed, int moved) {
+        meterRegistry.counter("transfer.sync.changes", "change", "added").increment(added);
+        meterRegistry.counter("transfer.sync.changes", "change", "removed").increment(removed);
+        meterRegistry.counter("transfer.sync.changes", "change", "moved").increment(moved);
+    }
+
+    // JPA calls are blocking, keep them off the event loop
+    private static <T> Mono<T> blocking(Callable<T> callable) {
+        return Mono.fromCallable(callable).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private record Baseline(List<PlaylistEntry> playlist, List<SyncedTrack> absent) {
+    }
+}
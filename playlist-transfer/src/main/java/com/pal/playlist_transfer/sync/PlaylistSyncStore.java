@@ -0,0 +1,112 @@
+package com.pal.playlist_transfer.sync;
+
+import com.pal.playlist_transfer.model.PlaylistSync;
+import com.pal.playlist_transfer.model.SyncedTrack;
+import com.pal.playlist_transfer.model.TransferItem;
+import com.pal.playlist_transfer.model.TransferItemStatus;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.repository.PlaylistSyncRepository;
+import com.pal.playlist_transfer.repository.SyncedTrackRepository;
+import com.pal.playlist_transfer.repository.TransferItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Persistence side of a sync: the baseline (snapshot and tracks) each run diffs against.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaylistSyncStore {
+
+    private final PlaylistSyncRepository playlistSyncRepository;
+    private final SyncedTrackRepository syncedTrackRepository;
+    private final TransferItemRepository transferItemRepository;
+
+    public Optional<PlaylistSync> find(TransferJob job) {
+        return playlistSyncRepository.findByPrincipalNameAndSpotifyPlaylistId(job.getPrincipalName(), job.getSpotifyPlaylistId());
+    }
+
+    public List<SyncedTrack> tracks(PlaylistSync sync) {
+        return syncedTrackRepository.findBySync_IdOrderByPositionAsc(sync.getId());
+    }
+
+    // Whether a track no video was found for is due for another lookup
+    public boolean hasNotFoundBefore(PlaylistSync sync, Instant before) {
+        return syncedTrackRepository.existsNotFoundBefore(sync.getId(), before);
+    }
+
+    /**
+     * Turns the first, full transfer of a sync into its baseline. Tracks that failed are left out, so
+     * the next run tries them again; tracks no video was found for are kept and only searched again
+     * once transfer.matching.not-found-retry-after has passed.
+     */
+    @Transactional
+    public PlaylistSync saveBaseline(TransferJob job) {
+        PlaylistSync sync = find(job)
+                .orElseGet(() -> new PlaylistSync(job.getPrincipalName(), job.getSpotifyPlaylistId(), job.getYoutubePlaylistId()));
+        sync.setYoutubePlaylistId(job.getYoutubePlaylistId());
+        sync.setSpotifySnapshotId(job.getSpotifySnapshotId());
+        sync.setTrackCount(job.getTotalTracks());
+        sync.setDirty(false);
+        sync.setUpdatedAt(Instant.now());
+        PlaylistSync saved = playlistSyncRepository.save(sync);
+
+        List<SyncedTrack> tracks = new ArrayList<>();
+        for (TransferItem item : transferItemRepository.findByJob_IdOrderByPositionAsc(job.getId())) {
+            if (item.getStatus() == TransferItemStatus.FAILED) {
+                continue;
+            }
+            if (item.getStatus() == TransferItemStatus.ADDED && item.getPlaylistItemId() == null) {
+                // Added before playlist item ids were recorded, only found by reading the playlist back
+                saved.setDirty(true);
+            }
+            String playlistItemId = item.getStatus() == TransferItemStatus.ADDED ? item.getPlaylistItemId() : null;
+            SyncedTrack track = new SyncedTrack(saved, item.getPosition(), item.getSpotifyTrackId(), item.getVideoId(), playlistItemId);
+            if (item.getStatus() == TransferItemStatus.NOT_FOUND) {
+                track.setMatchedAt(saved.getUpdatedAt());
+            }
+            tracks.add(track);
+        }
+        syncedTrackRepository.deleteBySyncId(saved.getId());
+        syncedTrackRepository.saveAll(tracks);
+        log.info("Stored sync baseline of Spotify playlist {} -> YouTube playlist {}: {} tracks, snapshot {}",
+                saved.getSpotifyPlaylistId(), saved.getYoutubePlaylistId(), tracks.size(), saved.getSpotifySnapshotId());
+        return playlistSyncRepository.save(saved);
+    }
+
+    // Set before the first change of a run, so a run that never gets to store its result is noticed
+    @Transactional
+    public PlaylistSync markDirty(PlaylistSync sync) {
+        sync.setDirty(true);
+        sync.setUpdatedAt(Instant.now());
+        return playlistSyncRepository.save(sync);
+    }
+
+    /**
+     * Replaces the baseline with the outcome of a run, together with the job's items, in one transaction.
+     * @param dirty true if some change wasn't applied, the next run then reads the playlist back from YouTube.
+     */
+    @Transactional
+    public PlaylistSync store(PlaylistSync sync, String snapshotId, int trackCount, List<SyncedTrack> tracks, boolean dirty,
+                              List<TransferItem> items) {
+        sync.setSpotifySnapshotId(snapshotId);
+        sync.setTrackCount(trackCount);
+        sync.setDirty(dirty);
+        sync.setUpdatedAt(Instant.now());
+        PlaylistSync saved = playlistSyncRepository.save(sync);
+
+        syncedTrackRepository.deleteBySyncId(saved.getId());
+        tracks.forEach(track -> track.setSync(saved));
+        syncedTrackRepository.saveAll(tracks);
+        transferItemRepository.saveAll(items);
+        return saved;
+    }
+}
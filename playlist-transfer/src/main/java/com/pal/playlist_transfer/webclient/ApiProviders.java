@@ -0,0 +1,84 @@
+package com.pal.playlist_transfer.webclient;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.web.reactive.function.client.ClientRequest;
+
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Helpers for figuring out which provider / user an outbound WebClient request belongs to.
+ */
+public final class ApiProviders {
+
+    public static final String SPOTIFY = "spotify";
+    public static final String GOOGLE = "google";
+
+    // Same attribute names ServletOAuth2AuthorizedClientExchangeFilterFunction uses
+    private static final String CLIENT_REGISTRATION_ID_ATTR_NAME =
+            OAuth2AuthorizedClient.class.getName().concat(".CLIENT_REGISTRATION_ID");
+    private static final String AUTHENTICATION_ATTR_NAME = Authentication.class.getName();
+
+    private static final Pattern API_VERSION = Pattern.compile("v\\d+");
+    // Path segments followed by a resource id, e.g. /playlists/{id}/tracks
+    private static final Set<String> ID_PARENTS = Set.of("playlists", "tracks", "albums", "artists", "users");
+
+    private ApiProviders() {
+    }
+
+    /**
+     * @return the OAuth2 registration id the request is made with, or null if it is not a provider call.
+     */
+    public static String registrationId(ClientRequest request) {
+        Object explicit = request.attribute(CLIENT_REGISTRATION_ID_ATTR_NAME).orElse(null);
+        if (explicit instanceof String registrationId) {
+            return registrationId;
+        }
+        // Spotify calls rely on the default client (no explicit attribute), so fall back to the host
+        String host = request.url().getHost();
+        if (host == null) {
+            return null;
+        }
+        if (host.endsWith("spotify.com")) {
+            return SPOTIFY;
+        }
+        if (host.endsWith("googleapis.com")) {
+            return GOOGLE;
+        }
+        return null;
+    }
+
+    /**
+     * @return the name of the principal the request is made for, "anonymous" if there is none.
+     */
+    public static String principalName(ClientRequest request) {
+        Object authentication = request.attribute(AUTHENTICATION_ATTR_NAME).orElse(null);
+        if (authentication instanceof Authentication auth && auth.getName() != null) {
+            return auth.getName();
+        }
+        return "anonymous";
+    }
+
+    /**
+     * Low-cardinality endpoint name for metrics: the path after the API version with ids
+     * replaced, e.g. "/playlists/{id}/tracks" or "/search". "other" for non-API paths.
+     */
+    public static String endpoint(ClientRequest request) {
+        StringBuilder endpoint = new StringBuilder();
+        boolean afterVersion = false;
+        boolean idExpected = false;
+        for (String segment : request.url().getPath().split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (!afterVersion) {
+                afterVersion = API_VERSION.matcher(segment).matches();
+                continue;
+            }
+            endpoint.append('/').append(idExpected ? "{id}" : segment);
+            idExpected = !idExpected && ID_PARENTS.contains(segment);
+        }
+        return endpoint.isEmpty() ? "other" : endpoint.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.pal.playlist_transfer.webclient;
+
+import com.pal.playlist_transfer.circuitbreaker.CircuitBreaker;
+import com.pal.playlist_transfer.circuitbreaker.CircuitBreakerRegistry;
+import com.pal.playlist_transfer.circuitbreaker.CircuitOpenException;
+import com.pal.playlist_transfer.config.CircuitBreakerProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Guards every provider call with the provider's circuit breaker.
+ * While a circuit is open the calls are not failed but held back until it half-opens, which
+ * pauses the transfer pipelines using that provider instead of burning through their track lists.
+ * Only calls held back longer than max-pause fail, with {@link CircuitOpenException}.
+ * 5xx, 429 and connection errors count as failures.
+ * Sits inside the YouTube quota filter, so a permit (possibly a half-open probe) is only taken once
+ * the call has its quota and is about to be sent.
+ */
+@Component
+@RequiredArgsConstructor
+public class CircuitBreakerExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final CircuitBreakerProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String registrationId = ApiProviders.registrationId(request);
+        if (!properties.isEnabled() || registrationId == null) {
+            return next.exchange(request);
+        }
+        CircuitBreaker breaker = circuitBreakerRegistry.get(registrationId);
+        return Mono.defer(() -> permit(breaker, registrationId, System.nanoTime(), false))
+                .flatMap(permit -> next.exchange(request)
+                        .doOnNext(response -> breaker.onResult(permit, !isFailure(response)))
+                        .doOnError(e -> breaker.onResult(permit, false))
+                        .doOnCancel(() -> breaker.onCancel(permit)));
+    }
+
+    private Mono<CircuitBreaker.Permit> permit(CircuitBreaker breaker, String registrationId, long heldSinceNanos, boolean held) {
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+        long heldNanos = System.nanoTime() - heldSinceNanos;
+        if (permit.granted()) {
+            if (held) {
+                meterRegistry.timer("transfer.circuit.paused", "provider", registrationId).record(heldNanos, TimeUnit.NANOSECONDS);
+            }
+            return Mono.just(permit);
+        }
+        if (heldNanos + permit.waitNanos() > properties.getMaxPause().toNanos()) {
+            return Mono.error(new CircuitOpenException("Circuit for " + registrationId + " has been open for more than " + properties.getMaxPause()));
+        }
+        return Mono.delay(Duration.ofNanos(permit.waitNanos()))
+                .then(Mono.defer(() -> permit(breaker, registrationId, heldSinceNanos, true)));
+    }
+
+    private static boolean isFailure(ClientResponse response) {
+        int status = response.statusCode().value();
+        return status >= 500 || status == 429;
+    }
+}
@@ -0,0 +1,48 @@
+package com.pal.playlist_transfer.webclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every provider call made through the shared WebClient (transfer.api.requests, tagged with
+ * provider, endpoint, method and status).
+ * It is the innermost filter, so rate limit waits and token resolution are not part of the timing.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricsExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String provider = ApiProviders.registrationId(request);
+        String endpoint = ApiProviders.endpoint(request);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return next.exchange(request)
+                    .doOnNext(response -> record(request, provider, endpoint, String.valueOf(response.statusCode().value()), start))
+                    .doOnError(e -> record(request, provider, endpoint, "IO_ERROR", start));
+        });
+    }
+
+    private void record(ClientRequest request, String provider, String endpoint, String status, long start) {
+        Timer.builder("transfer.api.requests")
+                .description("Outbound provider API calls")
+                .tag("provider", provider != null ? provider : "other")
+                .tag("endpoint", endpoint)
+                .tag("method", request.method().name())
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,43 @@
+package com.pal.playlist_transfer.webclient;
+
+import com.pal.playlist_transfer.config.RateLimitProperties;
+import com.pal.playlist_transfer.ratelimit.RateLimiterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Throttles every provider call made through the shared WebClient.
+ * Instead of blocking the calling thread the request is delayed until its permit is due.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitingExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private final RateLimiterRegistry rateLimiterRegistry;
+    private final RateLimitProperties properties;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String registrationId = ApiProviders.registrationId(request);
+        if (!properties.isEnabled() || registrationId == null) {
+            return next.exchange(request);
+        }
+
+        long waitNanos = rateLimiterRegistry.reserve(registrationId, ApiProviders.principalName(request));
+        if (waitNanos <= 0) {
+            return next.exchange(request);
+        }
+        log.debug("Rate limit: delaying {} {} by {} ms", request.method(), request.url(), waitNanos / 1_000_000);
+        return Mono.delay(Duration.ofNanos(waitNanos))
+                .then(Mono.defer(() -> next.exchange(request)));
+    }
+}
@@ -0,0 +1,162 @@
+package com.pal.playlist_transfer.webclient;
+
+import com.pal.playlist_transfer.config.RetryProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retries transient provider failures with exponential backoff and jitter, honouring Retry-After.
+ * <ul>
+ *     <li>429 (both providers), waiting for Retry-After when it is given</li>
+ *     <li>YouTube 403 rateLimitExceeded / userRateLimitExceeded (quotaExceeded is the quota filter's job)</li>
+ *     <li>5xx for reads; for writes only 503, other 5xx may have been applied already (a retried
+ *     playlistItems.insert would add the video twice)</li>
+ *     <li>connection failures and timeouts; for writes only if the connection was never made</li>
+ * </ul>
+ * Every request has a deadline: no retry is scheduled that would end after it, the last response
+ * or error is handed to the caller instead.
+ * Outermost filter, so every attempt books its own quota units and rate limit permit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RetryExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private static final Set<HttpMethod> IDEMPOTENT = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.OPTIONS);
+
+    private final RetryProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String provider = ApiProviders.registrationId(request);
+        if (!properties.isEnabled() || provider == null) {
+            return next.exchange(request);
+        }
+        return Mono.defer(() -> attempt(request, next, provider, 1, System.nanoTime() + properties.getDeadline().toNanos()));
+    }
+
+    private Mono<ClientResponse> attempt(ClientRequest request, ExchangeFunction next, String provider, int attempt, long deadlineNanos) {
+        return next.exchange(request)
+                .flatMap(response -> classify(request, provider, response))
+                .onErrorResume(e -> isRetryable(request, e) ? Mono.just(Outcome.retry(e.getClass().getSimpleName(), e)) : Mono.error(e))
+                .flatMap(outcome -> {
+                    if (!outcome.retryable()) {
+                        return outcome.result();
+                    }
+                    String endpoint = ApiProviders.endpoint(request);
+                    Duration delay = outcome.retryAfter() != null ? outcome.retryAfter() : backoff(attempt);
+                    boolean tooLong = outcome.retryAfter() != null && outcome.retryAfter().compareTo(properties.getMaxRetryAfter()) > 0;
+                    if (attempt >= properties.getMaxAttempts() || tooLong || System.nanoTime() + delay.toNanos() > deadlineNanos) {
+                        log.warn("Giving up on {} {} after {} attempt(s): {}", request.method(), request.url().getPath(), attempt, outcome.reason());
+                        meterRegistry.counter("transfer.api.retries.exhausted", "provider", provider, "endpoint", endpoint, "reason", outcome.reason()).increment();
+                        return outcome.result();
+                    }
+                    log.debug("Retrying {} {} in {} ms (attempt {} failed: {})", request.method(), request.url().getPath(), delay.toMillis(), attempt, outcome.reason());
+                    meterRegistry.counter("transfer.api.retries", "provider", provider, "endpoint", endpoint, "reason", outcome.reason()).increment();
+                    return outcome.release()
+                            .then(Mono.delay(delay))
+                            .then(Mono.defer(() -> attempt(request, next, provider, attempt + 1, deadlineNanos)));
+                });
+    }
+
+    private Mono<Outcome> classify(ClientRequest request, String provider, ClientResponse response) {
+        int status = response.statusCode().value();
+        if (status == 429) {
+            return Mono.just(Outcome.retry("429", response, retryAfter(response)));
+        }
+        if (status >= 500) {
+            boolean retryable = status == 503 || IDEMPOTENT.contains(request.method());
+            return Mono.just(retryable ? Outcome.retry(String.valueOf(status), response, retryAfter(response)) : Outcome.done(response));
+        }
+        if (status == 403 && ApiProviders.GOOGLE.equals(provider)) {
+            // Google signals short-term rate limits as 403 with a reason in the body; put the body back for the caller
+            return response.bodyToMono(String.class)
+                    .defaultIfEmpty("")
+                    .map(body -> {
+                        ClientResponse restored = response.mutate().body(body).build();
+                        boolean rateLimited = body.contains("rateLimitExceeded") || body.contains("userRateLimitExceeded");
+                        return rateLimited ? Outcome.retry("403_rate_limit", restored, retryAfter(restored)) : Outcome.done(restored);
+                    });
+        }
+        return Mono.just(Outcome.done(response));
+    }
+
+    private static boolean isRetryable(ClientRequest request, Throwable e) {
+        if (e instanceof WebClientRequestException) {
+            // A write may have reached the provider unless the connection was never established
+            return IDEMPOTENT.contains(request.method()) || e.getCause() instanceof ConnectException;
+        }
+        return e instanceof TimeoutException && IDEMPOTENT.contains(request.method());
+    }
+
+    private Duration backoff(int attempt) {
+        long base = properties.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20);
+        long capped = Math.min(base, properties.getMaxBackoff().toMillis());
+        double jitter = Math.min(1, Math.max(0, properties.getJitter()));
+        // Spread the retries of many transfers instead of having them hit the provider at the same instant
+        long millis = Math.round(capped * (1 - jitter * ThreadLocalRandom.current().nextDouble()));
+        return Duration.ofMillis(Math.max(1, millis));
+    }
+
+    // Retry-After is either delta-seconds or an HTTP date
+    private static Duration retryAfter(ClientResponse response) {
+        String value = response.headers().asHttpHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                Duration untilDate = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+                return untilDate.isNegative() ? Duration.ZERO : untilDate;
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    private record Outcome(boolean retryable, String reason, ClientResponse response, Throwable error, Duration retryAfter) {
+
+        static Outcome done(ClientResponse response) {
+            return new Outcome(false, null, response, null, null);
+        }
+
+        static Outcome retry(String reason, ClientResponse response, Duration retryAfter) {
+            return new Outcome(true, reason, response, null, retryAfter);
+        }
+
+        static Outcome retry(String reason, Throwable error) {
+            return new Outcome(true, reason, null, error, null);
+        }
+
+        Mono<ClientResponse> result() {
+            return response != null ? Mono.just(response) : Mono.error(error);
+        }
+
+        // The failed response's body is dropped before the next attempt so the connection goes back to the pool
+        Mono<Void> release() {
+            return response != null ? response.releaseBody() : Mono.empty();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.pal.playlist_transfer.webclient;
+
+import com.pal.playlist_transfer.quota.YoutubeQuotaLedger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Books the quota cost of every YouTube call in the {@link YoutubeQuotaLedger} before it is sent.
+ * Once the budget is gone the call is held until the daily reset, so running transfers pause
+ * instead of failing track after track. A 403 quotaExceeded from Google marks the budget as spent
+ * and the call is sent again after the reset (once).
+ * Sits right inside the retry filter, so every attempt is booked, and outside the circuit breaker,
+ * so waiting for the reset doesn't count as a call in flight.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class YoutubeQuotaExchangeFilterFunction implements ExchangeFilterFunction {
+
+    private static final String QUOTA_RETRIED_ATTR_NAME = YoutubeQuotaExchangeFilterFunction.class.getName() + ".RETRIED";
+
+    private final YoutubeQuotaLedger quotaLedger;
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!ApiProviders.GOOGLE.equals(ApiProviders.registrationId(request))) {
+            return next.exchange(request);
+        }
+        return quotaLedger.acquire(request.method(), ApiProviders.endpoint(request))
+                .then(Mono.defer(() -> next.exchange(request)))
+                .flatMap(response -> {
+                    if (response.statusCode().value() != HttpStatus.FORBIDDEN.value()) {
+                        return Mono.just(response);
+                    }
+                    // The body tells quota errors apart from permission errors; put it back for the caller
+                    return response.bodyToMono(String.class)
+                            .defaultIfEmpty("")
+                            .flatMap(body -> {
+                                boolean quotaExceeded = body.contains("quotaExceeded") || body.contains("dailyLimitExceeded");
+                                if (quotaExceeded && request.attribute(QUOTA_RETRIED_ATTR_NAME).isEmpty()) {
+                                    log.warn("YouTube reported the quota as exceeded on {} {}, retrying after the reset at {}",
+                                            request.method(), request.url().getPath(), quotaLedger.nextReset());
+                                    return quotaLedger.markExhausted()
+                                            .then(filter(ClientRequest.from(request).attribute(QUOTA_RETRIED_ATTR_NAME, true).build(), next));
+                                }
+                                return Mono.just(response.mutate().body(body).build());
+                            });
+                });
+    }
+}
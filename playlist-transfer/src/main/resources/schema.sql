@@ -0,0 +1,17 @@
+-- Runs after Hibernate's ddl-auto (spring.jpa.defer-datasource-initialization), for what the JPA
+-- annotations can't express.
+
+-- At most one active (queued, deferred or running) transfer per user and Spotify playlist. Of two
+-- concurrent requests for the same playlist only one can create or resume a job, the other one gets a 409.
+-- Duplicates from before the index existed keep only their newest job active.
+UPDATE transfer_jobs j SET status = 'INTERRUPTED'
+WHERE j.status IN ('QUEUED', 'DEFERRED', 'RUNNING')
+  AND EXISTS (SELECT 1 FROM transfer_jobs n
+              WHERE n.principal_name = j.principal_name
+                AND n.spotify_playlist_id = j.spotify_playlist_id
+                AND n.status IN ('QUEUED', 'DEFERRED', 'RUNNING')
+                AND n.id > j.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_transfer_jobs_active
+    ON transfer_jobs (principal_name, spotify_playlist_id)
+    WHERE status IN ('QUEUED', 'DEFERRED', 'RUNNING');
@@ -0,0 +1,140 @@
+package com.pal.playlist_transfer.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long LONG_OPEN = TimeUnit.HOURS.toNanos(1);
+
+    private final List<String> transitions = new ArrayList<>();
+
+    @Test
+    void opensOnceTheFailureRateReachesTheThreshold() {
+        CircuitBreaker breaker = breaker(10, 4, LONG_OPEN, 1);
+
+        record(breaker, false, false, false);
+        // Three failures, but fewer than minimumCalls recorded
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        record(breaker, true);
+        // 3 of 4 failed, 75% >= 50%
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(transitions).containsExactly("CLOSED->OPEN");
+    }
+
+    @Test
+    void staysClosedBelowTheThreshold() {
+        CircuitBreaker breaker = breaker(10, 4, LONG_OPEN, 1);
+
+        record(breaker, true, false, true, true, false, true, true);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void forgetsOutcomesThatLeftTheWindow() {
+        CircuitBreaker breaker = breaker(4, 4, LONG_OPEN, 1);
+
+        // 1 of 4 failed
+        record(breaker, false, true, true, true);
+        // The failure drops out as the window slides, this one takes its place: still 1 of 4
+        record(breaker, false);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        record(breaker, false);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void holdsCallsBackWhileOpen() {
+        CircuitBreaker breaker = breaker(2, 2, LONG_OPEN, 1);
+        record(breaker, false, false);
+
+        CircuitBreaker.Permit permit = breaker.tryAcquire();
+
+        assertThat(permit.granted()).isFalse();
+        assertThat(permit.waitNanos()).isPositive().isLessThanOrEqualTo(LONG_OPEN);
+    }
+
+    @Test
+    void halfOpensAfterTheOpenDurationAndClosesWhenAllProbesSucceed() {
+        CircuitBreaker breaker = breaker(2, 2, 0, 2);
+        record(breaker, false, false);
+
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+        CircuitBreaker.Permit third = breaker.tryAcquire();
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(first.granted()).isTrue();
+        assertThat(first.probe()).isTrue();
+        assertThat(second.granted()).isTrue();
+        // Only halfOpenProbes calls at a time
+        assertThat(third.granted()).isFalse();
+
+        breaker.onResult(first, true);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.onResult(second, true);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED");
+    }
+
+    @Test
+    void reopensOnAFailedProbe() {
+        CircuitBreaker breaker = breaker(2, 2, 0, 2);
+        record(breaker, false, false);
+
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        breaker.onResult(probe, false);
+
+        assertThat(transitions).containsExactly("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN");
+    }
+
+    @Test
+    void cancelledProbeFreesItsSlot() {
+        CircuitBreaker breaker = breaker(2, 2, 0, 1);
+        record(breaker, false, false);
+
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertThat(breaker.tryAcquire().granted()).isFalse();
+
+        breaker.onCancel(probe);
+
+        CircuitBreaker.Permit next = breaker.tryAcquire();
+        assertThat(next.granted()).isTrue();
+        assertThat(next.probe()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void closedCircuitStartsWithACleanWindow() {
+        CircuitBreaker breaker = breaker(4, 2, 0, 1);
+        record(breaker, false, false);
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        breaker.onResult(probe, true);
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // 1 of 3 failed; with the two failures from before it opened it would be over half
+        record(breaker, true, true, false);
+
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private CircuitBreaker breaker(int windowSize, int minimumCalls, long openNanos, int halfOpenProbes) {
+        return new CircuitBreaker(windowSize, minimumCalls, 0.5, openNanos, halfOpenProbes,
+                (from, to) -> transitions.add(from + "->" + to));
+    }
+
+    // Sends calls through a closed circuit with the given outcomes
+    private static void record(CircuitBreaker breaker, boolean... successes) {
+        for (boolean success : successes) {
+            breaker.onResult(breaker.tryAcquire(), success);
+        }
+    }
+}
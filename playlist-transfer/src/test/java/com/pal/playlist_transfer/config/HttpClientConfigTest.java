@@ -0,0 +1,106 @@
+package com.pal.playlist_transfer.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpClientConfigTest {
+
+    private final HttpClientConfig config = new HttpClientConfig();
+    private final HttpClientProperties properties = new HttpClientProperties();
+    private final SpotifyProperties spotifyProperties = new SpotifyProperties();
+    private final YoutubeProperties youtubeProperties = new YoutubeProperties();
+    private ConnectionProvider connectionProvider;
+    private HttpServer server;
+    private ExecutorService serverThreads;
+
+    @AfterEach
+    void tearDown() {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+        if (server != null) {
+            server.stop(0);
+            serverThreads.shutdownNow();
+        }
+    }
+
+    @Test
+    void sizesEachProviderPoolOverTheDefaults() {
+        properties.setMetrics(false);
+        properties.getDefaults().setMaxConnections(40);
+        HttpClientProperties.Pool spotify = new HttpClientProperties.Pool();
+        spotify.setMaxConnections(7);
+        properties.getProviders().put("spotify", spotify);
+
+        connectionProvider = config.providerConnectionProvider(properties, spotifyProperties, youtubeProperties);
+
+        assertThat(connectionProvider.maxConnections()).isEqualTo(40);
+        assertThat(connectionProvider.maxConnectionsPerHost())
+                .containsEntry(InetSocketAddress.createUnresolved("api.spotify.com", 443), 7)
+                // No pool of its own: the defaults
+                .containsEntry(InetSocketAddress.createUnresolved("www.googleapis.com", 443), 40);
+    }
+
+    @Test
+    void appliesEachProvidersResponseTimeout() throws IOException {
+        startSlowServer(Duration.ofSeconds(2));
+        int port = server.getAddress().getPort();
+        // Same server, told apart by the host name
+        spotifyProperties.setBaseUrl("http://127.0.0.1:" + port);
+        youtubeProperties.setBaseUrl("http://localhost:" + port);
+        properties.setMetrics(false);
+        properties.getDefaults().setResponseTimeout(Duration.ofSeconds(5));
+        HttpClientProperties.Pool spotify = new HttpClientProperties.Pool();
+        spotify.setResponseTimeout(Duration.ofMillis(200));
+        properties.getProviders().put("spotify", spotify);
+
+        connectionProvider = config.providerConnectionProvider(properties, spotifyProperties, youtubeProperties);
+        WebClient webClient = WebClient.builder()
+                .clientConnector(config.providerHttpConnector(connectionProvider, properties, spotifyProperties, youtubeProperties))
+                .build();
+
+        assertThatThrownBy(() -> get(webClient, spotifyProperties.getBaseUrl()))
+                .hasRootCauseInstanceOf(ReadTimeoutException.class);
+        assertThat(get(webClient, youtubeProperties.getBaseUrl())).isEqualTo("ok");
+    }
+
+    private static String get(WebClient webClient, String url) {
+        return webClient.get().uri(url + "/slow").retrieve().bodyToMono(String.class).block(Duration.ofSeconds(10));
+    }
+
+    private void startSlowServer(Duration delay) throws IOException {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(0), 16);
+        server.setExecutor(serverThreads);
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(delay.toMillis());
+                byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+    }
+}
@@ -0,0 +1,106 @@
+package com.pal.playlist_transfer.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pal.playlist_transfer.dto.spotify.SpotifyArtistDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackPage;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpotifyTrackPageParserTest {
+
+    private final SpotifyTrackPageParser parser = new SpotifyTrackPageParser(new ObjectMapper());
+
+    @Test
+    void readsThePagingFieldsAndTheTrack() throws IOException {
+        SpotifyTrackPage page = parse("""
+                {"next":"https://api.spotify.com/v1/playlists/p1/tracks?offset=100&limit=100","offset":0,"limit":100,"total":250,
+                 "items":[{"added_at":"2024-01-01T00:00:00Z","track":{"id":"t1","name":"Shake It Off","duration_ms":219200,
+                   "is_local":false,"uri":"spotify:track:t1","external_ids":{"isrc":"USCJY1431309"},
+                   "artists":[{"id":"a1","name":"Taylor Swift"}],"album":{"id":"al1","name":"1989"}}}]}""");
+
+        assertThat(page.next()).endsWith("offset=100&limit=100");
+        assertThat(page.offset()).isZero();
+        assertThat(page.limit()).isEqualTo(100);
+        assertThat(page.total()).isEqualTo(250);
+        SpotifyTrackDto track = page.tracks().get(0);
+        assertThat(track.getId()).isEqualTo("t1");
+        assertThat(track.getName()).isEqualTo("Shake It Off");
+        assertThat(track.getDurationMs()).isEqualTo(219_200);
+        assertThat(track.getUri()).isEqualTo("spotify:track:t1");
+        assertThat(track.getIsrc()).isEqualTo("USCJY1431309");
+        assertThat(track.getArtists()).extracting(SpotifyArtistDto::getName).containsExactly("Taylor Swift");
+        assertThat(track.getAlbum().getName()).isEqualTo("1989");
+    }
+
+    @Test
+    void dropsRemovedLocalAndIdLessTracks() throws IOException {
+        SpotifyTrackPage page = parse("""
+                {"items":[
+                  {"track":null},
+                  {"added_at":"2024-01-01T00:00:00Z"},
+                  {"is_local":true,"track":{"id":null,"name":"Demo","is_local":true,"uri":"spotify:local:::Demo:180"}},
+                  {"track":{"name":"No id"}},
+                  {"track":{"id":"t2","name":"Blank Space"}}
+                ],"next":null,"total":5}""");
+
+        assertThat(page.tracks()).extracting(SpotifyTrackDto::getId).containsExactly("t2");
+        assertThat(page.next()).isNull();
+        assertThat(page.total()).isEqualTo(5);
+    }
+
+    @Test
+    void skipsUnknownFieldsAtEveryLevel() throws IOException {
+        // What an unprojected page carries on top of the projected fields
+        SpotifyTrackPage page = parse("""
+                {"href":"https://api.spotify.com/v1/playlists/p1/tracks","previous":null,
+                 "items":[{"added_by":{"id":"u1","external_urls":{"spotify":"https://open.spotify.com/user/u1"}},
+                   "video_thumbnail":{"url":null},
+                   "track":{"available_markets":["US","DE"],"disc_number":1,"explicit":false,
+                     "album":{"images":[{"url":"https://i.scdn.co/image/1","height":640,"width":640}],
+                       "artists":[{"id":"a1","name":"Taylor Swift","type":"artist"}],"release_date":"2014-10-27","name":"1989"},
+                     "artists":[{"external_urls":{"spotify":"https://open.spotify.com/artist/a1"},"id":"a1","name":"Taylor Swift"}],
+                     "external_ids":{"isrc":"USCJY1431309","upc":{"nested":true}},
+                     "id":"t1","name":"Shake It Off","popularity":80}}],
+                 "total":1}""");
+
+        SpotifyTrackDto track = page.tracks().get(0);
+        assertThat(track.getId()).isEqualTo("t1");
+        assertThat(track.getName()).isEqualTo("Shake It Off");
+        assertThat(track.getArtists()).extracting(SpotifyArtistDto::getId).containsExactly("a1");
+        assertThat(track.getAlbum().getArtists()).extracting(SpotifyArtistDto::getName).containsExactly("Taylor Swift");
+        // Nested values under external_ids are not strings, left out
+        assertThat(track.getExternalIds()).containsOnlyKeys("isrc");
+        assertThat(page.total()).isEqualTo(1);
+    }
+
+    @Test
+    void missingArtistsReadAsNone() throws IOException {
+        SpotifyTrackPage page = parse("""
+                {"items":[{"track":{"id":"t1","name":"Shake It Off"}},
+                          {"track":{"id":"t2","name":"Blank Space","artists":null}}]}""");
+
+        assertThat(page.tracks()).allSatisfy(track -> assertThat(track.getArtists()).isEmpty());
+    }
+
+    @Test
+    void failsOnMalformedInput() {
+        assertThatThrownBy(() -> parse("[]")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> parse("")).isInstanceOf(IOException.class);
+        // Cut off mid-page
+        assertThatThrownBy(() -> parse("{\"items\":[{\"track\":{\"id\":\"t1\",\"name\":"))
+                .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> parse("{\"items\":[{\"track\":{\"id\":\"t1\"]}"))
+                .isInstanceOf(JsonParseException.class);
+    }
+
+    private SpotifyTrackPage parse(String json) throws IOException {
+        return parser.parse(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,272 @@
+package com.pal.playlist_transfer.load;
+
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.model.TransferStatus;
+import com.pal.playlist_transfer.repository.TransferJobRepository;
+import com.pal.playlist_transfer.stub.ProviderStubServer;
+import com.pal.playlist_transfer.stub.StubSettings;
+import com.pal.playlist_transfer.webclient.ApiProviders;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * End-to-end load driver: fires many POST /api/transfers/spotify/{id} at the application, with
+ * Spotify and YouTube replaced by {@link ProviderStubServer}, and reports throughput,
+ * per-track latency, threads and heap.
+ * <p>
+ * Off by default. It needs the same PostgreSQL as the application (see application.yml), e.g.
+ * <pre>
+ * ./mvnw test -Dtest=TransferLoadTest -Dloadtest=true \
+ *     -Dloadtest.users=20 -Dloadtest.transfers=100 -Dstub.playlist-size=300 -Dstub.latency-ms=80
+ * </pre>
+ * Any application property can be overridden the same way, e.g. -Dtransfer.executor.mode=virtual
+ * or -Dtransfer.rate-limit.enabled=false. Stub options are listed on {@link StubSettings}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@SpringBootTest(properties = {
+        "spring.security.oauth2.client.registration.spotify.client-id=load-test",
+        "spring.security.oauth2.client.registration.spotify.client-secret=load-test",
+        "spring.security.oauth2.client.registration.google.client-id=load-test",
+        "spring.security.oauth2.client.registration.google.client-secret=load-test",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.springframework.security=INFO"
+})
+@AutoConfigureMockMvc
+class TransferLoadTest {
+
+    private static ProviderStubServer stub;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ClientRegistrationRepository clientRegistrationRepository;
+    @Autowired
+    private OAuth2AuthorizedClientService authorizedClientService;
+    @Autowired
+    private TransferJobRepository transferJobRepository;
+
+    @DynamicPropertySource
+    static void providerStub(DynamicPropertyRegistry registry) {
+        // Started here and not in a static initializer, so a skipped test never opens a port
+        stub = ProviderStubServer.start(StubSettings.fromSystemProperties());
+        registry.add("transfer.spotify.base-url", stub::spotifyBaseUrl);
+        registry.add("transfer.youtube.base-url", stub::youtubeBaseUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @TestConfiguration
+    static class LoadTestConfig {
+
+        // The stub tokens never expire and there is no servlet request on the transfer threads,
+        // so resolve the authorized clients straight from the service
+        @Bean
+        @Primary
+        OAuth2AuthorizedClientManager loadTestAuthorizedClientManager(ClientRegistrationRepository clientRegistrationRepository,
+                                                                      OAuth2AuthorizedClientService authorizedClientService) {
+            return new AuthorizedClientServiceOAuth2AuthorizedClientManager(clientRegistrationRepository, authorizedClientService);
+        }
+    }
+
+    @Test
+    void transferThroughput() throws Exception {
+        int users = Integer.getInteger("loadtest.users", 10);
+        int transfers = Integer.getInteger("loadtest.transfers", 50);
+        Duration timeout = Duration.ofMinutes(Long.getLong("loadtest.timeout-minutes", 10));
+        // Unique per run, so neither the match cache nor old jobs short-circuit the work
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        List<OAuth2AuthenticationToken> principals = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            principals.add(seedUser("load-" + runId + "-user-" + i));
+        }
+
+        ResourceSampler sampler = ResourceSampler.start();
+        Instant started = Instant.now();
+
+        // Fire all requests at once, like many users clicking "transfer" together
+        List<Long> postLatencies = Collections.synchronizedList(new ArrayList<>());
+        Map<Integer, Integer> postStatuses = new ConcurrentHashMap<>();
+        Map<String, String> playlistOwners = new ConcurrentHashMap<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < transfers; i++) {
+                OAuth2AuthenticationToken principal = principals.get(i % users);
+                String playlistId = "load-" + runId + "-" + i;
+                playlistOwners.put(playlistId, principal.getName());
+                clients.submit(() -> {
+                    long start = System.nanoTime();
+                    int status = mockMvc.perform(post("/api/transfers/spotify/" + playlistId).with(authentication(principal)))
+                            .andReturn().getResponse().getStatus();
+                    postLatencies.add(System.nanoTime() - start);
+                    postStatuses.merge(status, 1, Integer::sum);
+                    return null;
+                });
+            }
+        }
+
+        List<TransferJob> jobs = awaitJobs(playlistOwners, started.plus(timeout));
+        Duration elapsed = Duration.between(started, Instant.now());
+        sampler.stop();
+
+        report(transfers, users, jobs, elapsed, postStatuses, postLatencies, sampler);
+
+        assertThat(jobs).as("jobs finished within %s", timeout).hasSize(transfers)
+                .allMatch(job -> job.getStatus() == TransferStatus.COMPLETED || job.getStatus() == TransferStatus.FAILED);
+    }
+
+    private OAuth2AuthenticationToken seedUser(String name) {
+        DefaultOAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OAUTH2_USER"), Map.of("id", name), "id");
+        OAuth2AuthenticationToken authentication =
+                new OAuth2AuthenticationToken(user, user.getAuthorities(), ApiProviders.SPOTIFY);
+        Instant now = Instant.now();
+        for (String registrationId : List.of(ApiProviders.SPOTIFY, ApiProviders.GOOGLE)) {
+            OAuth2AccessToken token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER,
+                    "stub-" + registrationId + "-" + name, now, now.plus(Duration.ofDays(1)));
+            authorizedClientService.saveAuthorizedClient(
+                    new OAuth2AuthorizedClient(clientRegistrationRepository.findByRegistrationId(registrationId), name, token),
+                    authentication);
+        }
+        return authentication;
+    }
+
+    // Polls until every job is COMPLETED or FAILED, or the deadline passes
+    private List<TransferJob> awaitJobs(Map<String, String> playlistOwners, Instant deadline) throws InterruptedException {
+        Set<TransferStatus> any = EnumSet.allOf(TransferStatus.class);
+        List<TransferJob> jobs = List.of();
+        while (Instant.now().isBefore(deadline)) {
+            jobs = playlistOwners.entrySet().stream()
+                    .map(entry -> transferJobRepository.findFirstByPrincipalNameAndSpotifyPlaylistIdAndStatusInOrderByCreatedAtDesc(
+                            entry.getValue(), entry.getKey(), any))
+                    .flatMap(Optional::stream)
+                    .toList();
+            boolean done = jobs.size() == playlistOwners.size() && jobs.stream()
+                    .allMatch(job -> job.getStatus() == TransferStatus.COMPLETED || job.getStatus() == TransferStatus.FAILED);
+            if (done) {
+                break;
+            }
+            Thread.sleep(500);
+        }
+        return jobs;
+    }
+
+    private void report(int transfers, int users, List<TransferJob> jobs, Duration elapsed, Map<Integer, Integer> postStatuses,
+                        List<Long> postLatencies, ResourceSampler sampler) {
+        long completed = jobs.stream().filter(job -> job.getStatus() == TransferStatus.COMPLETED).count();
+        long failed = jobs.stream().filter(job -> job.getStatus() == TransferStatus.FAILED).count();
+        long tracksAdded = jobs.stream().mapToLong(TransferJob::getSuccessCount).sum();
+        long tracksSkipped = jobs.stream().mapToLong(TransferJob::getFailCount).sum();
+        double seconds = elapsed.toMillis() / 1000.0;
+        List<Long> trackLatencies = stub.trackLatenciesNanos();
+
+        StringBuilder report = new StringBuilder("\n===== Transfer load test =====\n")
+                .append(String.format("transfers          %d (%d users), POST statuses %s%n", transfers, users, postStatuses))
+                .append(String.format("jobs               %d completed, %d failed, %d unfinished%n", completed, failed, transfers - completed - failed))
+                .append(String.format("tracks             %d added, %d not found/failed%n", tracksAdded, tracksSkipped))
+                .append(String.format("wall time          %.1f s%n", seconds))
+                .append(String.format("throughput         %.1f tracks/s, %.2f transfers/s%n", tracksAdded / seconds, (completed + failed) / seconds))
+                .append(String.format("track latency      p50 %d ms, p99 %d ms (search.list -> playlistItems.insert, n=%d)%n",
+                        percentileMillis(trackLatencies, 0.50), percentileMillis(trackLatencies, 0.99), trackLatencies.size()))
+                .append(String.format("POST latency       p50 %d ms, p99 %d ms%n",
+                        percentileMillis(postLatencies, 0.50), percentileMillis(postLatencies, 0.99)))
+                .append(String.format("threads            peak %d (platform), max sampled %d%n", sampler.peakThreads(), sampler.maxThreads()))
+                .append(String.format("heap               max sampled %d MB, committed %d MB%n",
+                        sampler.maxHeapBytes() / (1024 * 1024), sampler.committedHeapBytes() / (1024 * 1024)))
+                .append("stub requests\n");
+        stub.requestCounts().forEach((endpoint, count) -> report.append(String.format("  %-55s %d%n", endpoint, count)));
+        log.info(report.toString());
+    }
+
+    private static long percentileMillis(List<Long> nanos, double percentile) {
+        if (nanos.isEmpty()) {
+            return 0;
+        }
+        long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, index)]);
+    }
+
+    /**
+     * Samples live threads and used heap every 250 ms while the load runs.
+     * Virtual threads don't show up in the thread counts, only their carriers do.
+     */
+    private static final class ResourceSampler {
+
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicLong maxThreads = new AtomicLong();
+        private final AtomicLong maxHeapBytes = new AtomicLong();
+
+        static ResourceSampler start() {
+            ResourceSampler sampler = new ResourceSampler();
+            sampler.threads.resetPeakThreadCount();
+            sampler.scheduler.scheduleAtFixedRate(sampler::sample, 0, 250, TimeUnit.MILLISECONDS);
+            return sampler;
+        }
+
+        private void sample() {
+            maxThreads.accumulateAndGet(threads.getThreadCount(), Math::max);
+            maxHeapBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+
+        void stop() {
+            scheduler.shutdownNow();
+            sample();
+        }
+
+        int peakThreads() {
+            return threads.getPeakThreadCount();
+        }
+
+        long maxThreads() {
+            return maxThreads.get();
+        }
+
+        long maxHeapBytes() {
+            return maxHeapBytes.get();
+        }
+
+        long committedHeapBytes() {
+            return memory.getHeapMemoryUsage().getCommitted();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.pal.playlist_transfer.matching;
+
+import com.pal.playlist_transfer.dto.spotify.SpotifyAlbumDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyArtistDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CandidateScorerTest {
+
+    private static final SpotifyTrackDto SHAKE_IT_OFF = track("Shake It Off", "Taylor Swift", "1989", 219_000);
+
+    @Test
+    void scoresTheStudioRecordingHighest() {
+        VideoCandidate topic = new VideoCandidate("a", "Taylor Swift - Shake It Off", "Taylor Swift - Topic", 221_000);
+
+        // duration 0.35 (within 3s) + title 0.30 + artist 0.25 + Topic channel 0.05
+        assertThat(CandidateScorer.score(SHAKE_IT_OFF, topic)).isCloseTo(0.95, within(1e-9));
+    }
+
+    @Test
+    void scoresDurationDownToNothingAt30SecondsOff() {
+        VideoCandidate halfway = new VideoCandidate("a", "Shake It Off", "Taylor Swift - Topic", 235_500);
+        VideoCandidate far = new VideoCandidate("b", "Shake It Off", "Taylor Swift - Topic", 249_000);
+
+        assertThat(CandidateScorer.score(SHAKE_IT_OFF, halfway)).isCloseTo(0.775, within(1e-9));
+        assertThat(CandidateScorer.score(SHAKE_IT_OFF, far)).isCloseTo(0.60, within(1e-9));
+    }
+
+    @Test
+    void penalizesVersionsTheTrackIsNot() {
+        VideoCandidate live = new VideoCandidate("a", "Taylor Swift - Shake It Off (Live)", "Taylor Swift - Topic", 219_000);
+        SpotifyTrackDto liveTrack = track("Shake It Off (Live)", "Taylor Swift", "", 219_000);
+
+        assertThat(CandidateScorer.score(SHAKE_IT_OFF, live)).isCloseTo(0.70, within(1e-9));
+        // A live track isn't penalized for its live video
+        assertThat(CandidateScorer.score(liveTrack, live)).isCloseTo(0.95, within(1e-9));
+    }
+
+    @Test
+    void recognizesTheArtistsChannel() {
+        assertThat(channelOf("Taylor Swift - Topic", "Taylor Swift")).isTrue();
+        assertThat(channelOf("TaylorSwiftVEVO", "Taylor Swift")).isTrue();
+        assertThat(channelOf("Taylor Swift Official", "Taylor Swift")).isTrue();
+        assertThat(channelOf("Records presents Bo", "Bo")).isTrue();
+    }
+
+    @Test
+    void ignoresTheArtistInsideOtherWords() {
+        assertThat(channelOf("Bodyguard Music", "Bo")).isFalse();
+        assertThat(channelOf("JumboVEVO", "Bo")).isFalse();
+        assertThat(channelOf("Taylor Swifties Fan Club", "Taylor Swift")).isFalse();
+        assertThat(channelOf("Taylor Swift", "")).isFalse();
+    }
+
+    @Test
+    void requiresTheArtistWhenTheDurationIsUnknown() {
+        VideoCandidate cover = new VideoCandidate("a", "Shake It Off", "Bodyguard Music", VideoCandidate.UNKNOWN_DURATION);
+        VideoCandidate vevo = new VideoCandidate("b", "Shake It Off", "TaylorSwiftVEVO", VideoCandidate.UNKNOWN_DURATION);
+
+        assertThat(CandidateScorer.score(SHAKE_IT_OFF, cover)).isZero();
+        // unknown duration 0.5 * 0.35 + title 0.30 + artist 0.25 + VEVO channel 0.05
+        assertThat(CandidateScorer.score(SHAKE_IT_OFF, vevo)).isCloseTo(0.775, within(1e-9));
+    }
+
+    @Test
+    void picksTheBestCandidate() {
+        VideoCandidate live = new VideoCandidate("live", "Taylor Swift - Shake It Off (Live)", "Taylor Swift - Topic", 219_000);
+        VideoCandidate topic = new VideoCandidate("topic", "Taylor Swift - Shake It Off", "Taylor Swift - Topic", 219_000);
+        VideoCandidate cover = new VideoCandidate("cover", "Shake It Off", "Someone Else", VideoCandidate.UNKNOWN_DURATION);
+
+        CandidateScorer.Scored best = CandidateScorer.best(SHAKE_IT_OFF, List.of(live, cover, topic));
+
+        assertThat(best.candidate()).isEqualTo(topic);
+        assertThat(CandidateScorer.best(SHAKE_IT_OFF, List.of())).isNull();
+    }
+
+    @Test
+    void normalizesKeysTheWayItScores() {
+        assertThat(TrackKeys.normalize("  Beyoncé — HALO!! ")).isEqualTo("beyonce halo");
+        assertThat(TrackKeys.normalize(null)).isEmpty();
+        assertThat(new String(TrackKeys.normalizeChars("AC/DC: Back in Black")))
+                .isEqualTo(TrackKeys.normalize("ac dc back in black"));
+    }
+
+    private static boolean channelOf(String channel, String artist) {
+        return CandidateScorer.channelOf(TrackKeys.normalizeChars(channel), TrackKeys.normalizeChars(artist));
+    }
+
+    private static SpotifyTrackDto track(String name, String artist, String album, int durationMs) {
+        SpotifyArtistDto artistDto = new SpotifyArtistDto();
+        artistDto.setName(artist);
+        SpotifyAlbumDto albumDto = new SpotifyAlbumDto();
+        albumDto.setName(album);
+        SpotifyTrackDto track = new SpotifyTrackDto();
+        track.setName(name);
+        track.setArtists(List.of(artistDto));
+        track.setAlbum(albumDto);
+        track.setDurationMs(durationMs);
+        return track;
+    }
+}
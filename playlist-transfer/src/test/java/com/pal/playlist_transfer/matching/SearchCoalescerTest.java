@@ -0,0 +1,127 @@
+package com.pal.playlist_transfer.matching;
+
+import com.pal.playlist_transfer.config.MatchingProperties;
+import com.pal.playlist_transfer.config.TransferPipelineProperties;
+import com.pal.playlist_transfer.service.YoutubeApiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchCoalescerTest {
+
+    private static final List<VideoCandidate> RESULT = List.of(new VideoCandidate("nfWlot6h_JM", "Taylor Swift - Shake It Off", "TaylorSwiftVEVO", 219_000));
+
+    private final TransferPipelineProperties properties = new TransferPipelineProperties();
+    private final MatchingProperties matchingProperties = new MatchingProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // One pending search.list per call, completed by the test
+    private final List<Sinks.One<List<VideoCandidate>>> searches = new ArrayList<>();
+    private final List<String> calls = new ArrayList<>();
+    private SearchCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        YoutubeApiService youtubeApiService = mock(YoutubeApiService.class);
+        when(youtubeApiService.searchCandidatesReactive(anyString(), anyInt(), anyBoolean())).thenAnswer(call -> {
+            calls.add(call.getArgument(0) + "/" + call.getArgument(1) + "/" + call.getArgument(2));
+            Sinks.One<List<VideoCandidate>> search = Sinks.one();
+            searches.add(search);
+            return search.asMono();
+        });
+        coalescer = new SearchCoalescer(youtubeApiService, properties, matchingProperties, meterRegistry);
+    }
+
+    @Test
+    void identicalSearchesInFlightShareOneCall() {
+        CompletableFuture<List<VideoCandidate>> first = coalescer.search("Shake It Off Taylor Swift").toFuture();
+        // Same query once normalized
+        CompletableFuture<List<VideoCandidate>> second = coalescer.search("shake it off - TAYLOR SWIFT!").toFuture();
+
+        searches.get(0).tryEmitValue(RESULT);
+
+        assertThat(first.join()).isEqualTo(RESULT);
+        assertThat(second.join()).isEqualTo(RESULT);
+        assertThat(calls).containsExactly("Shake It Off Taylor Swift/5/true");
+        assertThat(searches("executed")).isEqualTo(1);
+        assertThat(searches("coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    void differentSearchesRunSideBySide() {
+        coalescer.search("Shake It Off Taylor Swift").toFuture();
+        coalescer.search("Blank Space Taylor Swift").toFuture();
+
+        assertThat(calls).hasSize(2);
+    }
+
+    @Test
+    void searchesAgainOnceTheSearchIsDone() {
+        CompletableFuture<List<VideoCandidate>> first = coalescer.search("Shake It Off Taylor Swift").toFuture();
+        searches.get(0).tryEmitValue(RESULT);
+        first.join();
+
+        coalescer.search("Shake It Off Taylor Swift").toFuture();
+
+        assertThat(calls).hasSize(2);
+        assertThat(searches("executed")).isEqualTo(2);
+    }
+
+    @Test
+    void failedSearchErrorsForEveryoneAndIsNotKept() {
+        CompletableFuture<List<VideoCandidate>> started = coalescer.search("Shake It Off Taylor Swift").toFuture();
+        CompletableFuture<List<VideoCandidate>> joined = coalescer.search("Shake It Off Taylor Swift").toFuture();
+
+        searches.get(0).tryEmitError(new RuntimeException("YouTube search failed"));
+
+        assertThat(started).isCompletedExceptionally();
+        assertThat(joined).isCompletedExceptionally();
+        CompletableFuture<List<VideoCandidate>> retried = coalescer.search("Shake It Off Taylor Swift").toFuture();
+        searches.get(1).tryEmitValue(RESULT);
+        assertThat(retried.join()).isEqualTo(RESULT);
+    }
+
+    @Test
+    void searchesEachTimeWhenCoalescingIsOff() {
+        properties.setCoalesceSearches(false);
+
+        coalescer.search("Shake It Off Taylor Swift").toFuture();
+        coalescer.search("Shake It Off Taylor Swift").toFuture();
+
+        assertThat(calls).hasSize(2);
+    }
+
+    @Test
+    void asksForOneResultWithoutScoring() {
+        matchingProperties.setScoring(false);
+
+        coalescer.search("Shake It Off Taylor Swift").toFuture();
+
+        assertThat(calls).containsExactly("Shake It Off Taylor Swift/1/false");
+    }
+
+    @Test
+    void emptyResultIsPassedOn() {
+        CompletableFuture<List<VideoCandidate>> search = coalescer.search("no such track").toFuture();
+
+        searches.get(0).tryEmitValue(List.of());
+
+        assertThat(search.join()).isEmpty();
+        assertThat(calls).hasSize(1);
+    }
+
+    private double searches(String result) {
+        return meterRegistry.get("transfer.youtube.searches").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,146 @@
+package com.pal.playlist_transfer.matching;
+
+import com.pal.playlist_transfer.config.MatchCacheProperties;
+import com.pal.playlist_transfer.config.MatchingProperties;
+import com.pal.playlist_transfer.dto.spotify.SpotifyArtistDto;
+import com.pal.playlist_transfer.dto.spotify.SpotifyTrackDto;
+import com.pal.playlist_transfer.model.MatchTier;
+import com.pal.playlist_transfer.model.TrackMatch;
+import com.pal.playlist_transfer.repository.TrackMatchRepository;
+import com.pal.playlist_transfer.service.TrackMatchCache;
+import com.pal.playlist_transfer.service.YoutubeApiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrackMatcherTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+    private static final Instant NOW = Instant.now();
+
+    // Stands in for the track_matches table, by Spotify track id
+    private final Map<String, TrackMatch> rows = new HashMap<>();
+    // Video ids of every videos.list call
+    private final List<List<String>> lookups = new ArrayList<>();
+    private final MatchingProperties properties = new MatchingProperties();
+    private TrackMatchRepository repository;
+    private YoutubeApiService youtubeApiService;
+    private SearchCoalescer searchCoalescer;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TrackMatchRepository.class);
+        when(repository.findBySpotifyTrackId(any())).thenAnswer(call -> Optional.ofNullable(rows.get(call.<String>getArgument(0))));
+        when(repository.findTop10ByIsrcOrderByUpdatedAtDesc(any())).thenAnswer(call -> newestBy(TrackMatch::getIsrc, call.getArgument(0)));
+        when(repository.findTop10ByNormalizedKeyOrderByUpdatedAtDesc(any()))
+                .thenAnswer(call -> newestBy(TrackMatch::getNormalizedKey, call.getArgument(0)));
+        when(repository.save(any())).thenAnswer(call -> {
+            TrackMatch match = call.getArgument(0);
+            rows.put(match.getSpotifyTrackId(), match);
+            return match;
+        });
+
+        youtubeApiService = mock(YoutubeApiService.class);
+        // Every video asked for is still available
+        when(youtubeApiService.findAvailableVideosReactive(anyList())).thenAnswer(call -> {
+            List<String> videoIds = call.getArgument(0);
+            lookups.add(videoIds);
+            return Mono.just(videoIds.stream().map(videoId -> new VideoCandidate(videoId, "", "", 219_000)).toList());
+        });
+        searchCoalescer = mock(SearchCoalescer.class);
+        when(searchCoalescer.search(any())).thenReturn(Mono.just(List.of()));
+    }
+
+    @Test
+    void recentMatchOfTheTrackIsUsedAsIs() {
+        row("t1", "USCJY1431309", "v1", NOW.minus(Duration.ofDays(10)));
+
+        TrackMatcher.Match match = matcher().match(track("t1", "USCJY1431309")).block(WAIT);
+
+        assertThat(match).isEqualTo(new TrackMatcher.Match("v1", MatchTier.CACHE));
+        assertThat(lookups).isEmpty();
+    }
+
+    @Test
+    void staleMatchOfTheTrackIsCheckedAgain() {
+        row("t1", null, "v1", NOW.minus(Duration.ofDays(40)));
+
+        TrackMatcher.Match match = matcher().match(track("t1", null)).block(WAIT);
+
+        assertThat(match).isEqualTo(new TrackMatcher.Match("v1", MatchTier.VIDEOS_LIST));
+        assertThat(lookups).containsExactly(List.of("v1"));
+        // Verified again just now
+        assertThat(rows.get("t1").getUpdatedAt()).isAfterOrEqualTo(NOW);
+    }
+
+    @Test
+    void knownVideoKeepsAgingFromItsSourceMatch() {
+        row("t1", "USCJY1431309", "v1", NOW.minus(Duration.ofDays(20)));
+
+        // Same recording on another release: reused unchecked
+        TrackMatcher.Match reused = matcher().match(track("t2", "USCJY1431309")).block(WAIT);
+
+        assertThat(reused).isEqualTo(new TrackMatcher.Match("v1", MatchTier.KNOWN_ID));
+        assertThat(rows.get("t2").getUpdatedAt()).isEqualTo(rows.get("t1").getUpdatedAt());
+        assertThat(lookups).isEmpty();
+
+        // 15 days later (the 6h memory tier is long gone) both matches are 35 days old
+        rows.values().forEach(match -> match.setUpdatedAt(match.getUpdatedAt().minus(Duration.ofDays(15))));
+        TrackMatcher.Match checked = matcher().match(track("t3", "USCJY1431309")).block(WAIT);
+
+        assertThat(checked).isEqualTo(new TrackMatcher.Match("v1", MatchTier.VIDEOS_LIST));
+        assertThat(lookups).containsExactly(List.of("v1"));
+        assertThat(rows.get("t3").getUpdatedAt()).isAfterOrEqualTo(NOW);
+    }
+
+    private TrackMatcher matcher() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TrackMatchCache cache = new TrackMatchCache(repository, new MatchCacheProperties(), meterRegistry);
+        return new TrackMatcher(cache, youtubeApiService, searchCoalescer, properties, meterRegistry);
+    }
+
+    private void row(String trackId, String isrc, String videoId, Instant verifiedAt) {
+        TrackMatch match = new TrackMatch(trackId, isrc, TrackKeys.normalizedKey(track(trackId, isrc)), videoId);
+        match.setUpdatedAt(verifiedAt);
+        rows.put(trackId, match);
+    }
+
+    private List<TrackMatch> newestBy(Function<TrackMatch, String> key, String value) {
+        return rows.values().stream()
+                .filter(match -> Objects.equals(key.apply(match), value))
+                .sorted(Comparator.comparing(TrackMatch::getUpdatedAt).reversed())
+                .limit(10)
+                .toList();
+    }
+
+    // Every track is "Shake It Off" by Taylor Swift, the ISRC tells the recordings apart
+    private static SpotifyTrackDto track(String id, String isrc) {
+        SpotifyArtistDto artist = new SpotifyArtistDto();
+        artist.setName("Taylor Swift");
+        SpotifyTrackDto track = new SpotifyTrackDto();
+        track.setId(id);
+        track.setName("Shake It Off");
+        track.setArtists(List.of(artist));
+        track.setDurationMs(219_000);
+        track.setExternalIds(isrc != null ? Map.of("isrc", isrc) : null);
+        return track;
+    }
+}
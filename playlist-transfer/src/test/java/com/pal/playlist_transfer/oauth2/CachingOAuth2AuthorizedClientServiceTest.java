@@ -0,0 +1,127 @@
+package com.pal.playlist_transfer.oauth2;
+
+import com.pal.playlist_transfer.config.TokenCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingOAuth2AuthorizedClientServiceTest {
+
+    private static final ClientRegistration GOOGLE = ClientRegistration.withRegistrationId("google")
+            .clientId("client")
+            .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+            .redirectUri("http://localhost:8080/login/oauth2/code/google")
+            .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+            .tokenUri("https://oauth2.googleapis.com/token")
+            .build();
+
+    private final OAuth2AuthorizedClientService delegate = mock(OAuth2AuthorizedClientService.class);
+    private final TokenCacheProperties properties = new TokenCacheProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void hitDoesNotGoToTheDelegate() {
+        OAuth2AuthorizedClient client = client();
+        when(delegate.loadAuthorizedClient("google", "alice")).thenReturn(client);
+        CachingOAuth2AuthorizedClientService service = service();
+
+        assertThat(service.<OAuth2AuthorizedClient>loadAuthorizedClient("google", "alice")).isSameAs(client);
+        assertThat(service.<OAuth2AuthorizedClient>loadAuthorizedClient("google", "alice")).isSameAs(client);
+
+        verify(delegate, times(1)).loadAuthorizedClient("google", "alice");
+        assertThat(lookups("hit")).isEqualTo(1);
+        assertThat(lookups("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void saveReplacesTheCachedClient() {
+        OAuth2AuthorizedClient expiring = client();
+        OAuth2AuthorizedClient refreshed = client();
+        when(delegate.loadAuthorizedClient("google", "alice")).thenReturn(expiring);
+        CachingOAuth2AuthorizedClientService service = service();
+        service.loadAuthorizedClient("google", "alice");
+
+        TestingAuthenticationToken principal = new TestingAuthenticationToken("alice", null);
+        service.saveAuthorizedClient(refreshed, principal);
+
+        verify(delegate).saveAuthorizedClient(refreshed, principal);
+        assertThat(service.<OAuth2AuthorizedClient>loadAuthorizedClient("google", "alice")).isSameAs(refreshed);
+        verify(delegate, times(1)).loadAuthorizedClient("google", "alice");
+    }
+
+    @Test
+    void removeEvictsTheCachedClient() {
+        OAuth2AuthorizedClient client = client();
+        when(delegate.loadAuthorizedClient("google", "alice")).thenReturn(client, (OAuth2AuthorizedClient) null);
+        CachingOAuth2AuthorizedClientService service = service();
+        service.loadAuthorizedClient("google", "alice");
+
+        service.removeAuthorizedClient("google", "alice");
+
+        verify(delegate).removeAuthorizedClient("google", "alice");
+        assertThat(service.<OAuth2AuthorizedClient>loadAuthorizedClient("google", "alice")).isNull();
+        verify(delegate, times(2)).loadAuthorizedClient("google", "alice");
+    }
+
+    @Test
+    void absentClientIsNotCached() {
+        OAuth2AuthorizedClient client = client();
+        when(delegate.loadAuthorizedClient("google", "alice")).thenReturn(null, client);
+        CachingOAuth2AuthorizedClientService service = service();
+
+        assertThat(service.<OAuth2AuthorizedClient>loadAuthorizedClient("google", "alice")).isNull();
+        // Logged in with Google in the meantime
+        assertThat(service.<OAuth2AuthorizedClient>loadAuthorizedClient("google", "alice")).isSameAs(client);
+    }
+
+    @Test
+    void otherPrincipalsAreCachedSeparately() {
+        OAuth2AuthorizedClient alice = client();
+        OAuth2AuthorizedClient bob = client();
+        when(delegate.loadAuthorizedClient("google", "alice")).thenReturn(alice);
+        when(delegate.loadAuthorizedClient("google", "bob")).thenReturn(bob);
+        CachingOAuth2AuthorizedClientService service = service();
+
+        service.loadAuthorizedClient("google", "alice");
+
+        assertThat(service.<OAuth2AuthorizedClient>loadAuthorizedClient("google", "bob")).isSameAs(bob);
+        assertThat(lookups("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void disabledCacheAlwaysGoesToTheDelegate() {
+        properties.setEnabled(false);
+        OAuth2AuthorizedClient client = client();
+        when(delegate.loadAuthorizedClient("google", "alice")).thenReturn(client);
+        CachingOAuth2AuthorizedClientService service = service();
+
+        service.loadAuthorizedClient("google", "alice");
+        service.loadAuthorizedClient("google", "alice");
+
+        verify(delegate, times(2)).loadAuthorizedClient("google", "alice");
+    }
+
+    private CachingOAuth2AuthorizedClientService service() {
+        return new CachingOAuth2AuthorizedClientService(delegate, properties, meterRegistry);
+    }
+
+    private static OAuth2AuthorizedClient client() {
+        OAuth2AuthorizedClient client = mock(OAuth2AuthorizedClient.class);
+        when(client.getClientRegistration()).thenReturn(GOOGLE);
+        return client;
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("transfer.token.cache").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,167 @@
+package com.pal.playlist_transfer.oauth2;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenRefreshCoordinatorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TokenRefreshCoordinator coordinator = new TokenRefreshCoordinator(meterRegistry);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneRefresh() throws Exception {
+        OAuth2AuthorizedClient refreshed = mock(OAuth2AuthorizedClient.class);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger grants = new AtomicInteger();
+
+        Future<OAuth2AuthorizedClient> leader = executor.submit(() -> coordinator.refresh("google", "alice", () -> {
+            grants.incrementAndGet();
+            await(release);
+            return refreshed;
+        }));
+        waitUntil("refreshing", () -> grants.get() == 1);
+        Future<OAuth2AuthorizedClient> follower = executor.submit(() -> coordinator.refresh("google", "alice", () -> {
+            grants.incrementAndGet();
+            return mock(OAuth2AuthorizedClient.class);
+        }));
+        waitUntil("joined", () -> count("joined") == 1);
+
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(refreshed);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(refreshed);
+        assertThat(grants).hasValue(1);
+        assertThat(count("refreshed")).isEqualTo(1);
+    }
+
+    @Test
+    void waitingCallersGetTheLeadersException() throws Exception {
+        IllegalStateException failure = new IllegalStateException("invalid_grant");
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger grants = new AtomicInteger();
+
+        Future<OAuth2AuthorizedClient> leader = executor.submit(() -> coordinator.refresh("spotify", "alice", () -> {
+            grants.incrementAndGet();
+            await(release);
+            throw failure;
+        }));
+        waitUntil("refreshing", () -> grants.get() == 1);
+        Future<OAuth2AuthorizedClient> follower = executor.submit(() -> coordinator.refresh("spotify", "alice", () -> {
+            throw new AssertionError("joined callers don't refresh");
+        }));
+        waitUntil("joined", () -> count("joined") == 1);
+
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        // As is, not wrapped in a CompletionException
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        assertThat(count("failed")).isEqualTo(1);
+    }
+
+    @Test
+    void refreshesAgainOnceTheRefreshIsDone() {
+        AtomicInteger grants = new AtomicInteger();
+
+        coordinator.refresh("google", "alice", () -> {
+            grants.incrementAndGet();
+            return mock(OAuth2AuthorizedClient.class);
+        });
+        assertThatThrownBy(() -> coordinator.refresh("google", "alice", () -> {
+            grants.incrementAndGet();
+            throw new IllegalStateException("invalid_grant");
+        })).isInstanceOf(IllegalStateException.class);
+        coordinator.refresh("google", "alice", () -> {
+            grants.incrementAndGet();
+            return mock(OAuth2AuthorizedClient.class);
+        });
+
+        assertThat(grants).hasValue(3);
+        assertThat(count("joined")).isZero();
+    }
+
+    @Test
+    void otherPrincipalsAndProvidersRefreshOnTheirOwn() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<OAuth2AuthorizedClient> alice = executor.submit(() -> coordinator.refresh("google", "alice", () -> {
+            await(release);
+            return mock(OAuth2AuthorizedClient.class);
+        }));
+
+        // Not held up by alice's refresh
+        coordinator.refresh("google", "bob", () -> mock(OAuth2AuthorizedClient.class));
+        coordinator.refresh("spotify", "alice", () -> mock(OAuth2AuthorizedClient.class));
+
+        release.countDown();
+        alice.get(5, TimeUnit.SECONDS);
+        assertThat(count("joined")).isZero();
+    }
+
+    @Test
+    void expiresWithinNeedsARefreshTokenAndAnExpiry() {
+        Instant now = Instant.now();
+
+        assertThat(TokenRefreshCoordinator.expiresWithin(client(now.plusSeconds(60), true), Duration.ofMinutes(5))).isTrue();
+        assertThat(TokenRefreshCoordinator.expiresWithin(client(now.plusSeconds(3600), true), Duration.ofMinutes(5))).isFalse();
+        // Nothing to refresh with
+        assertThat(TokenRefreshCoordinator.expiresWithin(client(now.plusSeconds(60), false), Duration.ofMinutes(5))).isFalse();
+        assertThat(TokenRefreshCoordinator.expiresWithin(client(null, true), Duration.ofMinutes(5))).isFalse();
+    }
+
+    private static OAuth2AuthorizedClient client(Instant expiresAt, boolean refreshable) {
+        Instant issuedAt = Instant.now().minusSeconds(10);
+        OAuth2AuthorizedClient client = mock(OAuth2AuthorizedClient.class);
+        when(client.getAccessToken()).thenReturn(new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "access", issuedAt, expiresAt));
+        when(client.getRefreshToken()).thenReturn(refreshable ? new OAuth2RefreshToken("refresh", issuedAt) : null);
+        return client;
+    }
+
+    private double count(String result) {
+        Counter counter = meterRegistry.find("transfer.token.refresh").tag("result", result).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static void waitUntil(String what, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Timed out waiting for " + what);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
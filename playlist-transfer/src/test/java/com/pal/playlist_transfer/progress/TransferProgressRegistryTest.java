@@ -0,0 +1,134 @@
+package com.pal.playlist_transfer.progress;
+
+import com.pal.playlist_transfer.config.TransferPipelineProperties;
+import com.pal.playlist_transfer.dto.transfer.TransferProgress;
+import com.pal.playlist_transfer.model.TransferItem;
+import com.pal.playlist_transfer.model.TransferItemStatus;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.model.TransferStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransferProgressRegistryTest {
+
+    private final TransferPipelineProperties properties = new TransferPipelineProperties();
+    private final TransferProgressRegistry registry = new TransferProgressRegistry(properties);
+
+    @Test
+    void onlyTheOwnerSeesTheProgress() {
+        TransferJob job = job(1L, TransferStatus.QUEUED);
+
+        registry.queued(job);
+
+        assertThat(registry.get(1L, "alice")).get().extracting(TransferProgress::status).isEqualTo(TransferStatus.QUEUED);
+        assertThat(registry.get(1L, "bob")).isEmpty();
+        assertThat(registry.stream(1L, "bob")).isEmpty();
+        assertThat(registry.get(2L, "alice")).isEmpty();
+    }
+
+    @Test
+    void countsEveryProcessedTrack() {
+        TransferJob job = job(1L, TransferStatus.RUNNING);
+        job.setTotalTracks(4);
+        registry.started(job);
+
+        registry.trackProcessed(job, item("v1", TransferItemStatus.ADDED));
+        registry.trackProcessed(job, item("v1", TransferItemStatus.DUPLICATE));
+        registry.trackProcessed(job, item(null, TransferItemStatus.NOT_FOUND));
+
+        TransferProgress progress = registry.get(1L, "alice").orElseThrow();
+        assertThat(progress.done()).isEqualTo(3);
+        assertThat(progress.matched()).isEqualTo(2);
+        assertThat(progress.added()).isEqualTo(1);
+        assertThat(progress.failed()).isEqualTo(1);
+    }
+
+    @Test
+    void resumedJobCountsOnFromItsCheckpoint() {
+        TransferJob job = job(1L, TransferStatus.RUNNING);
+        job.setTotalTracks(20);
+        job.setNextPosition(10);
+        job.setSuccessCount(8);
+        job.setFailCount(2);
+
+        registry.started(job);
+        registry.trackProcessed(job, item("v11", TransferItemStatus.ADDED));
+
+        TransferProgress progress = registry.get(1L, "alice").orElseThrow();
+        assertThat(progress.done()).isEqualTo(11);
+        assertThat(progress.added()).isEqualTo(9);
+        assertThat(progress.failed()).isEqualTo(2);
+    }
+
+    @Test
+    void streamEndsWithTheFinishedJob() {
+        TransferJob job = job(1L, TransferStatus.RUNNING);
+        job.setTotalTracks(1);
+        registry.started(job);
+        CompletableFuture<List<TransferProgress>> watched = registry.stream(1L, "alice").orElseThrow().collectList().toFuture();
+
+        registry.trackProcessed(job, item("v1", TransferItemStatus.ADDED));
+        job.setStatus(TransferStatus.COMPLETED);
+        registry.finished(job);
+
+        List<TransferProgress> updates = watched.join();
+        // The watcher got the start replayed, the stream completed with the final state
+        assertThat(updates.get(0).status()).isEqualTo(TransferStatus.RUNNING);
+        TransferProgress last = updates.get(updates.size() - 1);
+        assertThat(last.status()).isEqualTo(TransferStatus.COMPLETED);
+        assertThat(last.done()).isEqualTo(1);
+        assertThat(last.etaSeconds()).isZero();
+        // Still readable once finished
+        assertThat(registry.get(1L, "alice")).get().extracting(TransferProgress::status).isEqualTo(TransferStatus.COMPLETED);
+    }
+
+    @Test
+    void resumingEndsTheStreamOfThePreviousRun() {
+        TransferJob job = job(1L, TransferStatus.QUEUED);
+        registry.queued(job);
+        CompletableFuture<List<TransferProgress>> previous = registry.stream(1L, "alice").orElseThrow().collectList().toFuture();
+
+        registry.queued(job);
+
+        assertThat(previous).isCompleted();
+        assertThat(registry.get(1L, "alice")).isPresent();
+    }
+
+    @Test
+    void finishedTransfersAreDroppedAfterTheRetention() throws InterruptedException {
+        properties.setProgressRetention(Duration.ZERO);
+        TransferJob finished = job(1L, TransferStatus.RUNNING);
+        TransferJob running = job(2L, TransferStatus.RUNNING);
+        registry.started(finished);
+        registry.started(running);
+        finished.setStatus(TransferStatus.COMPLETED);
+        registry.finished(finished);
+        Thread.sleep(5); // past the retention
+
+        // Expired entries are dropped when the next transfer is queued
+        registry.queued(job(3L, TransferStatus.QUEUED));
+
+        assertThat(registry.get(1L, "alice")).isEmpty();
+        assertThat(registry.get(2L, "alice")).isPresent();
+        assertThat(registry.get(3L, "alice")).isPresent();
+    }
+
+    private static TransferJob job(Long id, TransferStatus status) {
+        TransferJob job = new TransferJob("alice", "37i9dQZF1DXcBWIGoYBM5M");
+        job.setId(id);
+        job.setStatus(status);
+        return job;
+    }
+
+    private static TransferItem item(String videoId, TransferItemStatus status) {
+        TransferItem item = new TransferItem();
+        item.setVideoId(videoId);
+        item.setStatus(status);
+        return item;
+    }
+}
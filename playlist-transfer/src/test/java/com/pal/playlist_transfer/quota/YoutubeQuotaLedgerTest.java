@@ -0,0 +1,163 @@
+package com.pal.playlist_transfer.quota;
+
+import com.pal.playlist_transfer.config.YoutubeProperties;
+import com.pal.playlist_transfer.repository.YoutubeQuotaUsageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class YoutubeQuotaLedgerTest {
+
+    private static final ZoneId PACIFIC = YoutubeQuotaLedger.QUOTA_ZONE;
+
+    // Stands in for the youtube_quota_usage table
+    private final Map<LocalDate, Long> usage = new HashMap<>();
+    private final MutableClock clock = new MutableClock(ZonedDateTime.of(2026, 3, 10, 23, 0, 0, 0, PACIFIC).toInstant());
+    private YoutubeQuotaLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        YoutubeQuotaUsageRepository repository = mock(YoutubeQuotaUsageRepository.class);
+        when(repository.findUnitsUsed(any())).thenAnswer(call -> Optional.ofNullable(usage.get(call.<LocalDate>getArgument(0))));
+        when(repository.book(any(), anyLong(), anyLong())).thenAnswer(call -> {
+            LocalDate day = call.getArgument(0);
+            long cost = call.getArgument(1);
+            long budget = call.getArgument(2);
+            long used = usage.getOrDefault(day, 0L);
+            if (used + cost > budget) {
+                return 0;
+            }
+            usage.put(day, used + cost);
+            return 1;
+        });
+        when(repository.add(any(), anyLong())).thenAnswer(call -> {
+            usage.merge(call.getArgument(0), call.<Long>getArgument(1), Long::sum);
+            return 1;
+        });
+        when(repository.raiseTo(any(), anyLong())).thenAnswer(call -> {
+            usage.merge(call.getArgument(0), call.<Long>getArgument(1), Math::max);
+            return 1;
+        });
+
+        YoutubeProperties properties = new YoutubeProperties();
+        properties.getQuota().setDailyLimit(1_000);
+        properties.getQuota().setSafetyMargin(100);
+        ledger = new YoutubeQuotaLedger(new SimpleMeterRegistry(), properties, repository, clock);
+    }
+
+    @Test
+    void booksUnitsOnThePacificDay() {
+        ledger.acquire(HttpMethod.GET, "/search").block(Duration.ofSeconds(1));
+        ledger.acquire(HttpMethod.POST, "/playlistItems").block(Duration.ofSeconds(1));
+        ledger.acquire(HttpMethod.GET, "/videos").block(Duration.ofSeconds(1));
+
+        // 23:00 Pacific is already the next day in UTC, the quota day is still March 10th
+        assertThat(usage).containsOnlyKeys(LocalDate.of(2026, 3, 10));
+        assertThat(ledger.unitsUsedToday()).isEqualTo(151);
+        assertThat(ledger.remainingToday()).isEqualTo(900 - 151);
+    }
+
+    @Test
+    void holdsCallsOnceTheBudgetIsSpent() {
+        usage.put(LocalDate.of(2026, 3, 10), 850L);
+
+        assertThat(ledger.remainingToday()).isEqualTo(50);
+        assertThatThrownBy(() -> ledger.acquire(HttpMethod.GET, "/search").block(Duration.ofMillis(200)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(ledger.unitsUsedToday()).isEqualTo(850);
+    }
+
+    @Test
+    void startsFromZeroAfterMidnightPacific() {
+        ledger.markExhausted().block(Duration.ofSeconds(1));
+        assertThat(ledger.remainingToday()).isZero();
+        assertThat(ledger.nextReset()).isEqualTo(ZonedDateTime.of(2026, 3, 11, 0, 0, 0, 0, PACIFIC).toInstant());
+
+        clock.advance(Duration.ofHours(1).plusMinutes(1));
+
+        assertThat(ledger.unitsUsedToday()).isZero();
+        assertThat(ledger.remainingToday()).isEqualTo(900);
+        assertThat(ledger.nextReset()).isEqualTo(ZonedDateTime.of(2026, 3, 12, 0, 0, 0, 0, PACIFIC).toInstant());
+        ledger.acquire(HttpMethod.GET, "/search").block(Duration.ofSeconds(1));
+        assertThat(usage).containsEntry(LocalDate.of(2026, 3, 10), 1_000L)
+                .containsEntry(LocalDate.of(2026, 3, 11), 100L);
+    }
+
+    @Test
+    void countsButNeverHoldsWhenDisabled() {
+        YoutubeProperties properties = new YoutubeProperties();
+        properties.getQuota().setEnabled(false);
+        usage.put(LocalDate.of(2026, 3, 10), 50_000L);
+        YoutubeQuotaUsageRepository repository = mock(YoutubeQuotaUsageRepository.class);
+        when(repository.add(any(), anyLong())).thenAnswer(call -> {
+            usage.merge(call.getArgument(0), call.<Long>getArgument(1), Long::sum);
+            return 1;
+        });
+        YoutubeQuotaLedger disabled = new YoutubeQuotaLedger(new SimpleMeterRegistry(), properties, repository, clock);
+
+        disabled.acquire(HttpMethod.GET, "/search").block(Duration.ofSeconds(1));
+
+        assertThat(usage).containsEntry(LocalDate.of(2026, 3, 10), 50_100L);
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            MutableClock outer = this;
+            return new Clock() {
+                @Override
+                public ZoneId getZone() {
+                    return zone;
+                }
+
+                @Override
+                public Clock withZone(ZoneId other) {
+                    return outer.withZone(other);
+                }
+
+                @Override
+                public Instant instant() {
+                    return outer.instant();
+                }
+            };
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.pal.playlist_transfer.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class TokenBucketTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * MS);
+
+    @Test
+    void letsABurstThroughRightAway() {
+        TokenBucket bucket = new TokenBucket(2, 3, now::get);
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        // Empty: the next permit is half a second of refill away
+        assertThat(bucket.reserve()).isCloseTo(500 * MS, within(1_000L));
+    }
+
+    @Test
+    void spacesOutCallersOnceEmpty() {
+        TokenBucket bucket = new TokenBucket(2, 1, now::get);
+        bucket.reserve();
+
+        // Each reservation goes further into debt instead of all waiting for the same permit
+        assertThat(bucket.reserve()).isCloseTo(500 * MS, within(1_000L));
+        assertThat(bucket.reserve()).isCloseTo(1_000 * MS, within(1_000L));
+        assertThat(bucket.reserve()).isCloseTo(1_500 * MS, within(1_000L));
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, now::get);
+        for (int i = 0; i < 5; i++) {
+            bucket.reserve();
+        }
+
+        now.addAndGet(250 * MS); // 2.5 permits
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isPositive();
+    }
+
+    @Test
+    void paysOffDebtBeforeRefilling() {
+        TokenBucket bucket = new TokenBucket(1, 1, now::get);
+        bucket.reserve();
+        bucket.reserve(); // one second of debt
+
+        now.addAndGet(1_000 * MS);
+
+        assertThat(bucket.reserve()).isCloseTo(1_000 * MS, within(1_000L));
+    }
+
+    @Test
+    void neverHoldsMoreThanTheBurst() {
+        TokenBucket bucket = new TokenBucket(100, 2, now::get);
+
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isZero();
+        assertThat(bucket.reserve()).isPositive();
+    }
+
+    @Test
+    void rejectsANonPositiveRate() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,112 @@
+package com.pal.playlist_transfer.ratelimit;
+
+import com.pal.playlist_transfer.config.ExecutorProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransferConcurrencyLimiterTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void neverRunsMoreThanTheLimitUnderConcurrentSubscribers() throws Exception {
+        TransferConcurrencyLimiter limiter = limiter(3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+
+        List<Future<?>> transfers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            transfers.add(executor.submit(() -> {
+                limiter.acquire().block(Duration.ofSeconds(10));
+                try {
+                    mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(1);
+                    running.decrementAndGet();
+                } finally {
+                    limiter.release();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> transfer : transfers) {
+            transfer.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(mostRunning.get()).isBetween(1, 3);
+        assertThat(limiter.availableSlots()).isEqualTo(3);
+        assertThat(limiter.waitingTransfers()).isZero();
+    }
+
+    @Test
+    void waitersGetFreedSlotsInOrder() {
+        TransferConcurrencyLimiter limiter = limiter(1);
+        CompletableFuture<Void> first = limiter.acquire().toFuture();
+        CompletableFuture<Void> second = limiter.acquire().toFuture();
+        CompletableFuture<Void> third = limiter.acquire().toFuture();
+
+        assertThat(first).isCompleted();
+        assertThat(second).isNotDone();
+        assertThat(limiter.waitingTransfers()).isEqualTo(2);
+
+        limiter.release();
+        assertThat(second).isCompleted();
+        assertThat(third).isNotDone();
+
+        limiter.release();
+        assertThat(third).isCompleted();
+        assertThat(limiter.activeTransfers()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelledWaiterGivesUpItsPlace() {
+        TransferConcurrencyLimiter limiter = limiter(1);
+        limiter.acquire().toFuture();
+        Disposable gaveUp = limiter.acquire().subscribe();
+        CompletableFuture<Void> next = limiter.acquire().toFuture();
+
+        gaveUp.dispose();
+        limiter.release();
+
+        assertThat(next).isCompleted();
+        assertThat(limiter.waitingTransfers()).isZero();
+    }
+
+    @Test
+    void tryAcquireDoesNotJumpTheQueue() {
+        TransferConcurrencyLimiter limiter = limiter(2);
+
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+
+        CompletableFuture<Void> waiting = limiter.acquire().toFuture();
+        limiter.release();
+        // The freed slot went to the waiter
+        assertThat(waiting).isCompleted();
+        assertThat(limiter.tryAcquire()).isFalse();
+    }
+
+    private static TransferConcurrencyLimiter limiter(int maxConcurrentTransfers) {
+        ExecutorProperties properties = new ExecutorProperties();
+        properties.setMaxConcurrentTransfers(maxConcurrentTransfers);
+        return new TransferConcurrencyLimiter(properties);
+    }
+}
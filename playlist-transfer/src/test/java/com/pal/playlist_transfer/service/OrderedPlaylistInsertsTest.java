@@ -0,0 +1,215 @@
+package com.pal.playlist_transfer.service;
+
+import com.pal.playlist_transfer.dto.youtube.insertPlaylist.YoutubePlaylistItemResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderedPlaylistInsertsTest {
+
+    private static final String PLAYLIST = "PL1";
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    // "videoId@position" for every playlistItems.insert sent, "@end" when appended
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    // Outcome of the next inserts of a video, success when nothing is scripted
+    private final Map<String, Deque<Supplier<Mono<YoutubePlaylistItemResponseDto>>>> script = new HashMap<>();
+    private YoutubeApiService youtubeApiService;
+
+    @BeforeEach
+    void setUp() {
+        youtubeApiService = mock(YoutubeApiService.class);
+        when(youtubeApiService.addVideoToPlaylistReactive(eq(PLAYLIST), anyString(), any())).thenAnswer(call -> {
+            String videoId = call.getArgument(1);
+            Integer position = call.getArgument(2);
+            calls.add(videoId + "@" + (position != null ? position : "end"));
+            Deque<Supplier<Mono<YoutubePlaylistItemResponseDto>>> outcomes = script.get(videoId);
+            return outcomes != null && !outcomes.isEmpty() ? outcomes.pollFirst().get() : Mono.just(item("item-" + videoId));
+        });
+    }
+
+    @Test
+    void insertsAtConsecutivePositionsAfterTheBase() {
+        OrderedPlaylistInserts inserts = inserts(5, Set.of(), Map.of());
+
+        assertThat(inserts.insert("a").block(WAIT).getId()).isEqualTo("item-a");
+        inserts.insert("b").block(WAIT);
+        inserts.insert("c").block(WAIT);
+
+        assertThat(calls).containsExactly("a@5", "b@6", "c@7");
+    }
+
+    @Test
+    void failedInsertsTakeNoPosition() {
+        script("b", () -> Mono.error(new RuntimeException("Failed to add video b")));
+        OrderedPlaylistInserts inserts = inserts(0, Set.of(), Map.of());
+
+        inserts.insert("a").block(WAIT);
+        assertThatThrownBy(() -> inserts.insert("b").block(WAIT)).hasMessageContaining("video b");
+        inserts.insert("c").block(WAIT);
+
+        assertThat(calls).containsExactly("a@0", "b@1", "c@1");
+    }
+
+    @Test
+    void resendsAConflictOnceEarlierInsertsAreDone() {
+        Sinks.One<YoutubePlaylistItemResponseDto> slowInsert = Sinks.one();
+        script("a", slowInsert::asMono);
+        script("b", () -> Mono.error(conflict(409, "")));
+        OrderedPlaylistInserts inserts = inserts(0, Set.of(), Map.of());
+
+        CompletableFuture<YoutubePlaylistItemResponseDto> a = inserts.insert("a").toFuture();
+        CompletableFuture<YoutubePlaylistItemResponseDto> b = inserts.insert("b").toFuture();
+        // b was rejected and waits for a
+        assertThat(b).isNotDone();
+
+        slowInsert.tryEmitValue(item("item-a"));
+
+        assertThat(b.join().getId()).isEqualTo("item-b");
+        assertThat(a.join().getId()).isEqualTo("item-a");
+        assertThat(calls).containsExactly("a@0", "b@1", "b@1");
+    }
+
+    @Test
+    void resendsAtTheExactPositionWhenEarlierInsertsFailed() {
+        Sinks.One<YoutubePlaylistItemResponseDto> slowInsert = Sinks.one();
+        script("a", slowInsert::asMono);
+        script("b", () -> Mono.error(conflict(400, "{\"error\":{\"errors\":[{\"reason\":\"invalidPlaylistItemPosition\"}]}}")));
+        OrderedPlaylistInserts inserts = inserts(3, Set.of(), Map.of());
+
+        CompletableFuture<YoutubePlaylistItemResponseDto> a = inserts.insert("a").toFuture();
+        CompletableFuture<YoutubePlaylistItemResponseDto> b = inserts.insert("b").toFuture();
+
+        slowInsert.tryEmitError(new RuntimeException("Failed to add video a"));
+
+        assertThat(b.join().getId()).isEqualTo("item-b");
+        assertThat(a).isCompletedExceptionally();
+        assertThat(calls).containsExactly("a@3", "b@4", "b@3");
+    }
+
+    @Test
+    void appendsWhenTheExactPositionIsRejectedToo() {
+        script("a", () -> Mono.error(conflict(409, "")), () -> Mono.error(conflict(409, "")));
+        OrderedPlaylistInserts inserts = inserts(2, Set.of(), Map.of());
+
+        assertThat(inserts.insert("a").block(WAIT).getId()).isEqualTo("item-a");
+
+        assertThat(calls).containsExactly("a@2", "a@2", "a@end");
+    }
+
+    @Test
+    void doesNotResendOtherClientErrors() {
+        script("a", () -> Mono.error(conflict(400, "{\"error\":{\"errors\":[{\"reason\":\"videoNotFound\"}]}}")));
+        OrderedPlaylistInserts inserts = inserts(0, Set.of(), Map.of());
+
+        assertThatThrownBy(() -> inserts.insert("a").block(WAIT)).hasCauseInstanceOf(WebClientResponseException.class);
+
+        assertThat(calls).containsExactly("a@0");
+    }
+
+    @Test
+    void skipsVideosAlreadyAdded() {
+        OrderedPlaylistInserts inserts = inserts(1, Set.of("a"), Map.of());
+
+        assertThat(inserts.insert("a").block(WAIT)).isNull();
+        inserts.insert("b").block(WAIT);
+        assertThat(inserts.insert("b").block(WAIT)).isNull();
+        inserts.insert("c").block(WAIT);
+
+        assertThat(calls).containsExactly("b@1", "c@2");
+    }
+
+    @Test
+    void laterOccurrenceWaitsForTheEarlierInsert() {
+        Sinks.One<YoutubePlaylistItemResponseDto> slowInsert = Sinks.one();
+        script("a", slowInsert::asMono);
+        OrderedPlaylistInserts inserts = inserts(0, Set.of(), Map.of());
+
+        CompletableFuture<YoutubePlaylistItemResponseDto> first = inserts.insert("a").toFuture();
+        CompletableFuture<YoutubePlaylistItemResponseDto> second = inserts.insert("a").toFuture();
+        assertThat(second).isNotDone();
+
+        slowInsert.tryEmitValue(item("item-a"));
+
+        assertThat(first.join().getId()).isEqualTo("item-a");
+        // Not a second insert
+        assertThat(second.join()).isNull();
+        assertThat(calls).containsExactly("a@0");
+    }
+
+    @Test
+    void laterOccurrenceInsertsWhenTheEarlierOneFailed() {
+        Sinks.One<YoutubePlaylistItemResponseDto> slowInsert = Sinks.one();
+        script("a", slowInsert::asMono);
+        OrderedPlaylistInserts inserts = inserts(0, Set.of(), Map.of());
+
+        CompletableFuture<YoutubePlaylistItemResponseDto> first = inserts.insert("a").toFuture();
+        CompletableFuture<YoutubePlaylistItemResponseDto> second = inserts.insert("a").toFuture();
+
+        slowInsert.tryEmitError(new RuntimeException("Failed to add video a"));
+
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second.join().getId()).isEqualTo("item-a");
+        // At the first occurrence's place, it never took its position
+        assertThat(calls).containsExactly("a@0", "a@0");
+    }
+
+    @Test
+    void recognizesInsertsThatLandedAfterTheLastCheckpoint() {
+        // The earlier run added a and b, but only a was checkpointed
+        OrderedPlaylistInserts inserts = inserts(2, Set.of("a"), Map.of("b", "item-b-earlier"));
+
+        assertThat(inserts.insert("a").block(WAIT)).isNull();
+        assertThat(inserts.insert("b").block(WAIT).getId()).isEqualTo("item-b-earlier");
+        inserts.insert("c").block(WAIT);
+        assertThat(inserts.insert("b").block(WAIT)).isNull();
+
+        assertThat(calls).containsExactly("c@2");
+    }
+
+    private OrderedPlaylistInserts inserts(int base, Set<String> added, Map<String, String> landed) {
+        return new OrderedPlaylistInserts(youtubeApiService, PLAYLIST, base, added, landed);
+    }
+
+    @SafeVarargs
+    private void script(String videoId, Supplier<Mono<YoutubePlaylistItemResponseDto>>... outcomes) {
+        script.computeIfAbsent(videoId, id -> new ArrayDeque<>()).addAll(List.of(outcomes));
+    }
+
+    private static YoutubePlaylistItemResponseDto item(String id) {
+        YoutubePlaylistItemResponseDto item = new YoutubePlaylistItemResponseDto();
+        item.setId(id);
+        return item;
+    }
+
+    // As YoutubeApiService reports it: the WebClient exception wrapped in a RuntimeException
+    private static RuntimeException conflict(int status, String body) {
+        WebClientResponseException response = WebClientResponseException.create(status, "", HttpHeaders.EMPTY,
+                body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        return new RuntimeException("Failed to add video: " + status, response);
+    }
+}
@@ -0,0 +1,227 @@
+package com.pal.playlist_transfer.service;
+
+import com.pal.playlist_transfer.config.WorkerProperties;
+import com.pal.playlist_transfer.model.TransferJob;
+import com.pal.playlist_transfer.model.TransferMode;
+import com.pal.playlist_transfer.model.TransferStatus;
+import com.pal.playlist_transfer.repository.TransferItemRepository;
+import com.pal.playlist_transfer.repository.TransferJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransferJobServiceTest {
+
+    private static final String ALICE = "alice";
+    private static final String PLAYLIST = "37i9dQZF1DXcBWIGoYBM5M";
+
+    // Stands in for the transfer_jobs table; the repository hands out copies like JPA does after a clear
+    private final Map<Long, TransferJob> rows = new HashMap<>();
+    private long nextId = 1;
+    private TransferJobService service;
+
+    @BeforeEach
+    void setUp() {
+        TransferJobRepository repository = mock(TransferJobRepository.class);
+        when(repository.findById(any())).thenAnswer(call -> Optional.ofNullable(rows.get(call.<Long>getArgument(0))).map(TransferJobServiceTest::copy));
+        when(repository.claim(anyLong(), anyString(), any())).thenAnswer(call -> {
+            TransferJob row = rows.get(call.<Long>getArgument(0));
+            if (row == null || row.getStatus() != TransferStatus.QUEUED) {
+                return 0;
+            }
+            row.setStatus(TransferStatus.RUNNING);
+            row.setWorkerId(call.getArgument(1));
+            row.setVersion(row.getVersion() + 1);
+            return 1;
+        });
+        when(repository.transition(anyLong(), any(), any(), any(), any())).thenAnswer(call -> {
+            TransferJob row = rows.get(call.<Long>getArgument(0));
+            if (row == null || row.getStatus() != call.getArgument(1)) {
+                return 0;
+            }
+            row.setStatus(call.getArgument(2));
+            row.setErrorMessage(call.getArgument(3));
+            row.setVersion(row.getVersion() + 1);
+            return 1;
+        });
+        when(repository.saveAndFlush(any())).thenAnswer(call -> {
+            TransferJob job = call.getArgument(0);
+            if (job.getId() == null) {
+                job.setId(nextId++);
+            } else if (rows.get(job.getId()).getVersion() != job.getVersion()) {
+                throw new ObjectOptimisticLockingFailureException(TransferJob.class, job.getId());
+            }
+            TransferJob row = copy(job);
+            row.setVersion(job.getVersion() + 1);
+            rows.put(row.getId(), row);
+            return copy(row);
+        });
+        when(repository.findFirstByPrincipalNameAndSpotifyPlaylistIdAndStatusInOrderByCreatedAtDesc(any(), any(), any()))
+                .thenAnswer(call -> {
+                    Collection<TransferStatus> statuses = call.getArgument(2);
+                    return rows.values().stream()
+                            .filter(row -> row.getPrincipalName().equals(call.getArgument(0)))
+                            .filter(row -> row.getSpotifyPlaylistId().equals(call.getArgument(1)))
+                            .filter(row -> statuses.contains(row.getStatus()))
+                            .max(Comparator.comparing(TransferJob::getCreatedAt))
+                            .map(TransferJobServiceTest::copy);
+                });
+        service = new TransferJobService(repository, mock(TransferItemRepository.class), new WorkerProperties());
+    }
+
+    @Test
+    void onlyOneWorkerClaimsAQueuedJob() {
+        TransferJob job = stored(TransferStatus.QUEUED, TransferMode.FULL);
+
+        Optional<TransferJob> claimed = service.claim(job.getId(), "node-1");
+
+        assertThat(claimed).get().extracting(TransferJob::getStatus, TransferJob::getWorkerId)
+                .containsExactly(TransferStatus.RUNNING, "node-1");
+        assertThat(service.claim(job.getId(), "node-2")).isEmpty();
+        assertThat(rows.get(job.getId()).getWorkerId()).isEqualTo("node-1");
+    }
+
+    @Test
+    void doesNotClaimAJobThatIsNotQueued() {
+        TransferJob job = stored(TransferStatus.DEFERRED, TransferMode.FULL);
+
+        assertThat(service.claim(job.getId(), "node-1")).isEmpty();
+        assertThat(rows.get(job.getId()).getStatus()).isEqualTo(TransferStatus.DEFERRED);
+    }
+
+    @Test
+    void transitionOnlyMovesAJobFromTheExpectedStatus() {
+        TransferJob job = stored(TransferStatus.RUNNING, TransferMode.FULL);
+
+        assertThat(service.transition(job, TransferStatus.QUEUED, TransferStatus.FAILED, "too late")).isEmpty();
+        assertThat(rows.get(job.getId()).getStatus()).isEqualTo(TransferStatus.RUNNING);
+
+        assertThat(service.transition(job, TransferStatus.RUNNING, TransferStatus.INTERRUPTED, null))
+                .get().extracting(TransferJob::getStatus).isEqualTo(TransferStatus.INTERRUPTED);
+    }
+
+    @Test
+    void finishStoresTheCountersAndCompletesTheJob() {
+        TransferJob job = stored(TransferStatus.RUNNING, TransferMode.FULL);
+        job.setSuccessCount(42);
+        job.setFailCount(1);
+
+        TransferJob finished = service.finish(job, TransferStatus.COMPLETED, null);
+
+        assertThat(finished.getStatus()).isEqualTo(TransferStatus.COMPLETED);
+        assertThat(rows.get(job.getId())).extracting(TransferJob::getStatus, TransferJob::getSuccessCount, TransferJob::getFailCount)
+                .containsExactly(TransferStatus.COMPLETED, 42, 1);
+    }
+
+    @Test
+    void finishFailsTheJobWithAShortenedMessage() {
+        TransferJob job = stored(TransferStatus.RUNNING, TransferMode.FULL);
+
+        service.finish(job, TransferStatus.FAILED, "x".repeat(5_000));
+
+        assertThat(rows.get(job.getId()).getStatus()).isEqualTo(TransferStatus.FAILED);
+        assertThat(rows.get(job.getId()).getErrorMessage()).hasSize(1000);
+    }
+
+    @Test
+    void finishFromAStaleCopyDoesNotOverwriteTheJob() {
+        TransferJob job = stored(TransferStatus.RUNNING, TransferMode.FULL);
+        // Another node re-queued it meanwhile
+        rows.get(job.getId()).setStatus(TransferStatus.QUEUED);
+        rows.get(job.getId()).setVersion(job.getVersion() + 1);
+
+        assertThatThrownBy(() -> service.finish(job, TransferStatus.COMPLETED, null))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(rows.get(job.getId()).getStatus()).isEqualTo(TransferStatus.QUEUED);
+    }
+
+    @Test
+    void failUnstartedOnlyFailsJobsThatHaveNotStarted() {
+        TransferJob deferred = stored(TransferStatus.DEFERRED, TransferMode.FULL);
+        TransferJob queued = stored(TransferStatus.QUEUED, TransferMode.SYNC);
+        TransferJob running = stored(TransferStatus.RUNNING, TransferMode.FULL);
+
+        assertThat(service.failUnstarted(deferred.getId(), "no quota")).isPresent();
+        assertThat(service.failUnstarted(queued.getId(), "no quota")).isPresent();
+        assertThat(service.failUnstarted(running.getId(), "no quota")).isEmpty();
+
+        assertThat(rows.get(deferred.getId()).getStatus()).isEqualTo(TransferStatus.FAILED);
+        assertThat(rows.get(queued.getId()).getStatus()).isEqualTo(TransferStatus.FAILED);
+        assertThat(rows.get(running.getId()).getStatus()).isEqualTo(TransferStatus.RUNNING);
+    }
+
+    @Test
+    void resumesAFailedJobOfTheSameMode() {
+        TransferJob failed = stored(TransferStatus.FAILED, TransferMode.FULL);
+        rows.get(failed.getId()).setNextPosition(120);
+
+        TransferJob job = service.startOrResume(ALICE, PLAYLIST, TransferMode.FULL);
+
+        assertThat(job.getId()).isEqualTo(failed.getId());
+        assertThat(job.getStatus()).isEqualTo(TransferStatus.DEFERRED);
+        assertThat(job.getNextPosition()).isEqualTo(120);
+        assertThat(rows).hasSize(1);
+    }
+
+    @Test
+    void startsANewJobWhenOnlyAnotherModeCanBeResumed() {
+        TransferJob interrupted = stored(TransferStatus.INTERRUPTED, TransferMode.SYNC);
+
+        TransferJob job = service.startOrResume(ALICE, PLAYLIST, TransferMode.FULL);
+
+        assertThat(job.getId()).isNotEqualTo(interrupted.getId());
+        assertThat(job.getStatus()).isEqualTo(TransferStatus.DEFERRED);
+        assertThat(job.getMode()).isEqualTo(TransferMode.FULL);
+        assertThat(rows.get(interrupted.getId()).getStatus()).isEqualTo(TransferStatus.INTERRUPTED);
+    }
+
+    @Test
+    void doesNotResumeACompletedJob() {
+        TransferJob completed = stored(TransferStatus.COMPLETED, TransferMode.FULL);
+
+        TransferJob job = service.startOrResume(ALICE, PLAYLIST, TransferMode.FULL);
+
+        assertThat(job.getId()).isNotEqualTo(completed.getId());
+        assertThat(rows.get(job.getId()).getStatus()).isEqualTo(TransferStatus.DEFERRED);
+        assertThat(rows.get(completed.getId()).getStatus()).isEqualTo(TransferStatus.COMPLETED);
+    }
+
+    private TransferJob stored(TransferStatus status, TransferMode mode) {
+        TransferJob job = new TransferJob(ALICE, PLAYLIST);
+        job.setId(nextId++);
+        job.setStatus(status);
+        job.setMode(mode);
+        rows.put(job.getId(), copy(job));
+        return job;
+    }
+
+    private static TransferJob copy(TransferJob job) {
+        TransferJob copy = new TransferJob(job.getPrincipalName(), job.getSpotifyPlaylistId());
+        copy.setId(job.getId());
+        copy.setMode(job.getMode());
+        copy.setStatus(job.getStatus());
+        copy.setNextPosition(job.getNextPosition());
+        copy.setSuccessCount(job.getSuccessCount());
+        copy.setFailCount(job.getFailCount());
+        copy.setErrorMessage(job.getErrorMessage());
+        copy.setWorkerId(job.getWorkerId());
+        copy.setVersion(job.getVersion());
+        copy.setCreatedAt(job.getCreatedAt());
+        copy.setUpdatedAt(job.getUpdatedAt());
+        return copy;
+    }
+}
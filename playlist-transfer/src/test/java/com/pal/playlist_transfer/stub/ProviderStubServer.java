@@ -0,0 +1,329 @@
+package com.pal.playlist_transfer.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for the parts of the Spotify Web API and the YouTube Data API the transfer uses:
+ * <ul>
+ *     <li>GET  {spotify}/me/playlists</li>
+ *     <li>GET  {spotify}/playlists/{id}</li>
+ *     <li>GET  {spotify}/playlists/{id}/tracks?offset&limit</li>
+ *     <li>POST {youtube}/playlists</li>
+ *     <li>GET  {youtube}/search?q</li>
+ *     <li>GET  {youtube}/videos?id (every id exists and is public)</li>
+ *     <li>POST {youtube}/playlistItems</li>
+ * </ul>
+ * Playlists are generated on the fly, so any playlist id works. Latency and failures follow {@link StubSettings}.
+ * Bearer tokens are not checked.
+ * <p>
+ * The server also measures the per-track latency: from the search.list request for a track
+ * to the playlistItems.insert of the video it returned.
+ */
+@Slf4j
+public class ProviderStubServer implements AutoCloseable {
+
+    private static final Pattern PLAYLIST_SIZE = Pattern.compile(".*-(\\d+)$");
+    private static final Pattern VIDEO_ID = Pattern.compile("\"videoId\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern TRACKS_PATH = Pattern.compile("/playlists/([^/]+)/tracks");
+    private static final Pattern PLAYLIST_PATH = Pattern.compile("/playlists/([^/]+)");
+
+    private final StubSettings settings;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // "GET /spotify/v1/playlists/{id}/tracks 200" -> count
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    // videoId -> nanoTime of the search that returned it
+    private final Map<String, Long> searchStartedAt = new ConcurrentHashMap<>();
+    private final Queue<Long> trackLatenciesNanos = new ConcurrentLinkedQueue<>();
+
+    private ProviderStubServer(StubSettings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        // One virtual thread per exchange, so the simulated latency never queues requests up
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/spotify/v1/", exchange -> handle(exchange, this::spotify));
+        server.createContext("/youtube/v3/", exchange -> handle(exchange, this::youtube));
+    }
+
+    public static ProviderStubServer start(StubSettings settings) {
+        try {
+            ProviderStubServer stub = new ProviderStubServer(settings);
+            stub.server.start();
+            log.info("Provider stub listening on port {} with {}", stub.port(), settings);
+            return stub;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to start provider stub: " + e.getMessage(), e);
+        }
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public String spotifyBaseUrl() {
+        return "http://localhost:" + port() + "/spotify/v1";
+    }
+
+    public String youtubeBaseUrl() {
+        return "http://localhost:" + port() + "/youtube/v3";
+    }
+
+    /**
+     * @return request counts keyed by "METHOD endpoint status", sorted by key.
+     */
+    public Map<String, Long> requestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requestCounts.forEach((key, count) -> counts.put(key, count.sum()));
+        return counts;
+    }
+
+    /**
+     * @return search-to-insert latency of every inserted track, in nanoseconds.
+     */
+    public List<Long> trackLatenciesNanos() {
+        return new ArrayList<>(trackLatenciesNanos);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // ---------------------------------------------------------------- request handling
+
+    private record Response(int status, String body, Map<String, String> headers) {
+        static Response json(int status, String body) {
+            return new Response(status, body, Map.of());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange, String path) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        String endpoint = exchange.getRequestMethod() + " " + exchange.getHttpContext().getPath();
+        Response response;
+        try {
+            simulateLatency();
+            String path = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length() - 1);
+            endpoint = exchange.getRequestMethod() + " " + exchange.getHttpContext().getPath() + endpointName(path);
+            response = injectedFailure(exchange.getHttpContext().getPath().startsWith("/youtube"));
+            if (response == null) {
+                response = handler.handle(exchange, path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+            return;
+        } catch (RuntimeException e) {
+            log.error("Provider stub failed on {}: {}", exchange.getRequestURI(), e.getMessage(), e);
+            response = Response.json(500, error(500, "backendError", e.getMessage()));
+        }
+
+        requestCounts.computeIfAbsent(endpoint + " " + response.status(), key -> new LongAdder()).increment();
+        byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        response.headers().forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        exchange.sendResponseHeaders(response.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        long latency = settings.getLatencyMs()
+                + (settings.getJitterMs() > 0 ? ThreadLocalRandom.current().nextLong(settings.getJitterMs() + 1) : 0);
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+    }
+
+    private Response injectedFailure(boolean youtube) {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < settings.getErrorRate()) {
+            return Response.json(500, error(500, "backendError", "Injected server error"));
+        }
+        roll -= settings.getErrorRate();
+        if (roll < settings.getRateLimitRate()) {
+            return new Response(429, error(429, "rateLimitExceeded", "Injected rate limit"), Map.of("Retry-After", "1"));
+        }
+        roll -= settings.getRateLimitRate();
+        if (youtube && roll < settings.getQuotaExceededRate()) {
+            return Response.json(403, error(403, "quotaExceeded", "The request cannot be completed because you have exceeded your quota."));
+        }
+        return null;
+    }
+
+    // Collapses ids so the request counts stay readable
+    private static String endpointName(String path) {
+        if (TRACKS_PATH.matcher(path).matches()) {
+            return "playlists/{id}/tracks";
+        }
+        if (PLAYLIST_PATH.matcher(path).matches()) {
+            return "playlists/{id}";
+        }
+        return path.substring(1);
+    }
+
+    // ---------------------------------------------------------------- Spotify
+
+    private Response spotify(HttpExchange exchange, String path) {
+        Map<String, String> query = query(exchange.getRequestURI());
+        if ("/me/playlists".equals(path)) {
+            return Response.json(200, """
+                    {"href":"%s/me/playlists","items":[{"id":"stub-playlist","name":"Stub playlist","description":"Generated","tracks":{"total":%d}}],
+                     "limit":50,"next":null,"offset":0,"previous":null,"total":1}"""
+                    .formatted(spotifyBaseUrl(), settings.getPlaylistSize()));
+        }
+
+        Matcher tracks = TRACKS_PATH.matcher(path);
+        if (tracks.matches()) {
+            return Response.json(200, tracksPage(tracks.group(1),
+                    Integer.parseInt(query.getOrDefault("offset", "0")),
+                    Integer.parseInt(query.getOrDefault("limit", "100"))));
+        }
+
+        Matcher playlist = PLAYLIST_PATH.matcher(path);
+        if (playlist.matches()) {
+            String id = playlist.group(1);
+            return Response.json(200, """
+                    {"id":"%s","name":"Stub %s","description":"Generated by the provider stub","tracks":{"total":%d}}"""
+                    .formatted(id, id, playlistSize(id)));
+        }
+        return Response.json(404, error(404, "notFound", "No stub for " + path));
+    }
+
+    private String tracksPage(String playlistId, int offset, int limit) {
+        int total = playlistSize(playlistId);
+        StringBuilder body = new StringBuilder(limit * 320 + 256).append("{\"items\":[");
+        for (int position = offset; position < Math.min(total, offset + limit); position++) {
+            if (position > offset) {
+                body.append(',');
+            }
+            int artist = position % 50;
+            body.append("""
+                    {"track":{"id":"%s_%d","name":"Stub Song %d (%s)","duration_ms":%d,"is_local":false,"uri":"spotify:track:%s_%d",\
+                    "external_ids":{"isrc":"STB%s%07d"},"artists":[{"id":"artist%d","name":"Stub Artist %d"}],\
+                    "album":{"id":"album%d","name":"Stub Album %d"}}}"""
+                    .formatted(playlistId, position, position, playlistId, 180_000 + position % 120 * 1000, playlistId, position,
+                            Integer.toHexString(playlistId.hashCode()), position, artist, artist, artist, artist));
+        }
+        String next = offset + limit < total
+                ? "\"" + spotifyBaseUrl() + "/playlists/" + playlistId + "/tracks?offset=" + (offset + limit) + "&limit=" + limit + "\""
+                : "null";
+        return body.append("],\"limit\":").append(limit)
+                .append(",\"next\":").append(next)
+                .append(",\"offset\":").append(offset)
+                .append(",\"total\":").append(total)
+                .append('}').toString();
+    }
+
+    private int playlistSize(String playlistId) {
+        Matcher size = PLAYLIST_SIZE.matcher(playlistId);
+        return size.matches() ? Integer.parseInt(size.group(1)) : settings.getPlaylistSize();
+    }
+
+    // ---------------------------------------------------------------- YouTube
+
+    private Response youtube(HttpExchange exchange, String path) throws IOException {
+        switch (path) {
+            case "/search" -> {
+                String q = query(exchange.getRequestURI()).getOrDefault("q", "");
+                if (ThreadLocalRandom.current().nextDouble() < settings.getNotFoundRate()) {
+                    return Response.json(200, "{\"kind\":\"youtube#searchListResponse\",\"items\":[]}");
+                }
+                String videoId = videoId(q);
+                searchStartedAt.putIfAbsent(videoId, System.nanoTime());
+                return Response.json(200, """
+                        {"kind":"youtube#searchListResponse","pageInfo":{"totalResults":1,"resultsPerPage":1},
+                         "items":[{"kind":"youtube#searchResult","id":{"kind":"youtube#video","videoId":"%s"},
+                         "snippet":{"channelId":"UCstub","title":"%s","channelTitle":"Stub Channel"}}]}"""
+                        .formatted(videoId, q.replace("\"", "")));
+            }
+            case "/videos" -> {
+                StringJoiner items = new StringJoiner(",");
+                for (String id : query(exchange.getRequestURI()).getOrDefault("id", "").split(",")) {
+                    if (!id.isBlank()) {
+                        items.add("""
+                                {"kind":"youtube#video","id":"%s","status":{"uploadStatus":"processed","privacyStatus":"public","embeddable":true}}"""
+                                .formatted(id));
+                    }
+                }
+                return Response.json(200, "{\"kind\":\"youtube#videoListResponse\",\"items\":[" + items + "]}");
+            }
+            case "/playlists" -> {
+                String id = "PLstub" + UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+                return Response.json(200, """
+                        {"kind":"youtube#playlist","id":"%s","snippet":{"title":"Stub playlist","description":""},"status":{"privacyStatus":"private"}}"""
+                        .formatted(id));
+            }
+            case "/playlistItems" -> {
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                Matcher videoId = VIDEO_ID.matcher(body);
+                if (videoId.find()) {
+                    Long startedAt = searchStartedAt.remove(videoId.group(1));
+                    if (startedAt != null) {
+                        trackLatenciesNanos.add(System.nanoTime() - startedAt);
+                    }
+                }
+                return Response.json(200, "{\"kind\":\"youtube#playlistItem\",\"id\":\"PLI" + UUID.randomUUID() + "\"}");
+            }
+            default -> {
+                return Response.json(404, error(404, "notFound", "No stub for " + path));
+            }
+        }
+    }
+
+    // Stable 11-char id per query, so the same track always maps to the same video
+    private static String videoId(String query) {
+        return UUID.nameUUIDFromBytes(query.getBytes(StandardCharsets.UTF_8)).toString().replace("-", "").substring(0, 11);
+    }
+
+    // ---------------------------------------------------------------- helpers
+
+    private static String error(int code, String reason, String message) {
+        message = String.valueOf(message).replace('"', '\'');
+        return """
+                {"error":{"code":%d,"message":"%s","errors":[{"reason":"%s","message":"%s"}]}}"""
+                .formatted(code, message, reason, message);
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+}
@@ -0,0 +1,50 @@
+package com.pal.playlist_transfer.stub;
+
+import lombok.Data;
+
+/**
+ * Behaviour of the {@link ProviderStubServer}. Every rate is a probability in [0, 1] applied per request.
+ */
+@Data
+public class StubSettings {
+
+    // Fixed latency added to every response, plus a random extra of up to jitterMs
+    private long latencyMs = 50;
+    private long jitterMs = 20;
+
+    // 500 responses, on both providers
+    private double errorRate = 0;
+
+    // 429 responses with a Retry-After header, on both providers
+    private double rateLimitRate = 0;
+
+    // 403 quotaExceeded responses, YouTube only
+    private double quotaExceededRate = 0;
+
+    // search.list answers without any result
+    private double notFoundRate = 0;
+
+    // Tracks per playlist, unless the playlist id ends with "-<size>"
+    private int playlistSize = 200;
+
+    /**
+     * Reads stub.latency-ms, stub.jitter-ms, stub.error-rate, stub.rate-limit-rate,
+     * stub.quota-exceeded-rate, stub.not-found-rate and stub.playlist-size.
+     */
+    public static StubSettings fromSystemProperties() {
+        StubSettings settings = new StubSettings();
+        settings.setLatencyMs(Long.getLong("stub.latency-ms", settings.getLatencyMs()));
+        settings.setJitterMs(Long.getLong("stub.jitter-ms", settings.getJitterMs()));
+        settings.setErrorRate(rate("stub.error-rate", settings.getErrorRate()));
+        settings.setRateLimitRate(rate("stub.rate-limit-rate", settings.getRateLimitRate()));
+        settings.setQuotaExceededRate(rate("stub.quota-exceeded-rate", settings.getQuotaExceededRate()));
+        settings.setNotFoundRate(rate("stub.not-found-rate", settings.getNotFoundRate()));
+        settings.setPlaylistSize(Integer.getInteger("stub.playlist-size", settings.getPlaylistSize()));
+        return settings;
+    }
+
+    private static double rate(String property, double defaultValue) {
+        String value = System.getProperty(property);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
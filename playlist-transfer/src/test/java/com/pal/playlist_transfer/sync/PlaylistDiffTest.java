@@ -0,0 +1,152 @@
+package com.pal.playlist_transfer.sync;
+
+import com.pal.playlist_transfer.model.MatchTier;
+import com.pal.playlist_transfer.model.SyncedTrack;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Each case: the YouTube playlist as the last sync left it ("track:video", "?:video" for an item the sync
+ * doesn't know), the tracks of the last sync that aren't in it ("track:video" for a duplicate, "track:-" for
+ * not found recently, "track:-old" for not found a while ago), the current Spotify tracks, what the matcher
+ * finds ("track:-" for nothing). Expected: the tracks looked up, the action per slot and the videos in
+ * the playlist once the diff is applied the way YouTube applies each call.
+ */
+class PlaylistDiffTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-10T12:00:00Z");
+    private static final Instant RETRY_BEFORE = NOW.minus(Duration.ofDays(7));
+
+    static Stream<Arguments> cases() {
+        return Stream.of(
+                Arguments.of("unchanged", "t1:v1 t2:v2 t3:v3", "", "t1 t2 t3", "", "", "KEEP KEEP KEEP", "v1 v2 v3"),
+                Arguments.of("empty baseline", "", "", "t1 t2", "t1:v1 t2:v2", "t1 t2", "INSERT INSERT", "v1 v2"),
+                Arguments.of("add in the middle", "t1:v1 t2:v2", "", "t1 tn t2", "tn:vn", "tn", "KEEP INSERT KEEP", "v1 vn v2"),
+                Arguments.of("add at the start", "t1:v1 t2:v2", "", "tn t1 t2", "tn:vn", "tn", "INSERT KEEP KEEP", "vn v1 v2"),
+                Arguments.of("remove", "t1:v1 t2:v2 t3:v3", "", "t1 t3", "", "", "KEEP KEEP", "v1 v3"),
+                Arguments.of("remove all", "t1:v1 t2:v2", "", "", "", "", "", ""),
+                Arguments.of("move to the front", "t1:v1 t2:v2 t3:v3", "", "t3 t1 t2", "", "", "MOVE KEEP KEEP", "v3 v1 v2"),
+                Arguments.of("move to the end", "t1:v1 t2:v2 t3:v3", "", "t2 t3 t1", "", "", "KEEP KEEP MOVE", "v2 v3 v1"),
+                Arguments.of("reverse", "t1:v1 t2:v2 t3:v3", "", "t3 t2 t1", "", "", "MOVE MOVE KEEP", "v3 v2 v1"),
+                Arguments.of("add, remove and move", "t1:v1 t2:v2 t3:v3 t4:v4", "", "t4 t1 tn t3", "tn:vn", "tn",
+                        "MOVE KEEP INSERT KEEP", "v4 v1 vn v3"),
+                Arguments.of("track added twice", "t1:v1", "", "t1 t1", "t1:v1", "t1", "KEEP DUPLICATE", "v1"),
+                Arguments.of("track removed once of twice", "t1:v1 t1:v1", "", "t1", "", "", "KEEP", "v1"),
+                Arguments.of("new track, same video", "t1:v1", "", "t1 tn", "tn:v1", "tn", "KEEP DUPLICATE", "v1"),
+                Arguments.of("known duplicate", "t1:v1", "t2:v1", "t1 t2", "", "", "KEEP DUPLICATE", "v1"),
+                Arguments.of("hand-added video left alone", "t1:v1 ?:vx t2:v2", "", "t1 t2", "", "", "KEEP KEEP", "v1 vx v2"),
+                Arguments.of("hand-added video taken over", "t1:v1 ?:vx t2:v2", "", "t1 tn t2", "tn:vx", "tn", "KEEP KEEP KEEP", "v1 vx v2"),
+                Arguments.of("hand-added video moved", "?:vx t1:v1", "", "t1 tn", "tn:vx", "tn", "MOVE KEEP", "v1 vx"),
+                Arguments.of("insert before a hand-added video", "?:vx t1:v1", "", "tn t1", "tn:vn", "tn", "INSERT KEEP", "vn vx v1"),
+                Arguments.of("new track not found", "t1:v1", "", "t1 tn", "tn:-", "tn", "KEEP NOT_FOUND", "v1"),
+                Arguments.of("not found recently", "t1:v1", "t2:-", "t1 t2", "t2:v2", "", "KEEP NOT_FOUND", "v1"),
+                Arguments.of("not found a while ago", "t1:v1", "t2:-old", "t1 t2", "t2:v2", "t2", "KEEP INSERT", "v1 v2"),
+                Arguments.of("still not found", "t1:v1", "t2:-old", "t2 t1", "t2:-", "t2", "NOT_FOUND KEEP", "v1"),
+                Arguments.of("not found and removed", "t1:v1", "t2:-old", "t1", "", "", "KEEP", "v1")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("cases")
+    void plansAndAppliesTheDiff(String name, String playlist, String absent, String tracks, String matches,
+                                String lookedUp, String actions, String finalPlaylist) {
+        List<PlaylistEntry> youtube = playlist(playlist);
+        PlaylistDiff diff = PlaylistDiff.plan(words(tracks), youtube, absent(absent), RETRY_BEFORE);
+
+        Map<String, String> matcher = pairs(matches);
+        List<String> looked = new ArrayList<>();
+        for (PlaylistDiff.Slot slot : diff.slots()) {
+            if (slot.action == PlaylistDiff.Action.MATCH) {
+                looked.add(slot.spotifyTrackId);
+                String videoId = matcher.get(slot.spotifyTrackId);
+                if (!"-".equals(videoId)) {
+                    slot.matched(videoId, MatchTier.SEARCH);
+                }
+            }
+        }
+        diff.resolve();
+
+        assertThat(looked).containsExactlyElementsOf(words(lookedUp));
+        assertThat(diff.slots()).extracting(slot -> slot.action.name()).containsExactlyElementsOf(words(actions));
+        assertThat(apply(diff, youtube)).containsExactlyElementsOf(words(finalPlaylist));
+    }
+
+    // Plays the diff against a copy of the playlist the way PlaylistSyncService sends it to YouTube
+    private static List<String> apply(PlaylistDiff diff, List<PlaylistEntry> playlist) {
+        List<PlaylistEntry> youtube = new ArrayList<>(playlist);
+        for (PlaylistEntry entry : diff.removals()) {
+            youtube.remove(entry);
+            diff.removed(entry);
+        }
+        for (PlaylistDiff.Slot slot : diff.slots()) {
+            switch (slot.action) {
+                case KEEP -> diff.kept(slot);
+                case MOVE -> {
+                    PlaylistEntry entry = slot.entry;
+                    int position = diff.nextPosition(entry);
+                    youtube.remove(entry);
+                    youtube.add(position, entry);
+                    diff.placed(slot, entry, position);
+                }
+                case INSERT -> {
+                    int position = diff.nextPosition(null);
+                    PlaylistEntry entry = new PlaylistEntry("item-" + slot.position, slot.videoId, slot.spotifyTrackId);
+                    youtube.add(position, entry);
+                    diff.placed(slot, entry, position);
+                }
+                default -> {
+                    // DUPLICATE, NOT_FOUND: nothing to send
+                }
+            }
+        }
+        return youtube.stream().map(entry -> entry.videoId).toList();
+    }
+
+    private static List<PlaylistEntry> playlist(String items) {
+        List<PlaylistEntry> playlist = new ArrayList<>();
+        for (String item : words(items)) {
+            String[] pair = item.split(":");
+            String trackId = "?".equals(pair[0]) ? null : pair[0];
+            playlist.add(new PlaylistEntry("item-" + playlist.size(), pair[1], trackId));
+        }
+        return playlist;
+    }
+
+    private static List<SyncedTrack> absent(String tracks) {
+        List<SyncedTrack> absent = new ArrayList<>();
+        pairs(tracks).forEach((trackId, value) -> {
+            boolean notFound = value.startsWith("-");
+            SyncedTrack track = new SyncedTrack(null, absent.size(), trackId, notFound ? null : value, null);
+            if (notFound) {
+                track.setMatchedAt("-old".equals(value) ? RETRY_BEFORE.minus(Duration.ofDays(1)) : NOW.minus(Duration.ofDays(1)));
+            }
+            absent.add(track);
+        });
+        return absent;
+    }
+
+    private static Map<String, String> pairs(String pairs) {
+        Map<String, String> map = new HashMap<>();
+        for (String pair : words(pairs)) {
+            String[] parts = pair.split(":");
+            map.put(parts[0], parts[1]);
+        }
+        return map;
+    }
+
+    private static List<String> words(String value) {
+        return value.isBlank() ? List.of() : Arrays.asList(value.trim().split(" "));
+    }
+}
@@ -0,0 +1,173 @@
+package com.pal.playlist_transfer.webclient;
+
+import com.pal.playlist_transfer.config.RetryProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryExchangeFilterFunctionTest {
+
+    private static final URI YOUTUBE_SEARCH = URI.create("https://www.googleapis.com/youtube/v3/search");
+    private static final URI YOUTUBE_INSERT = URI.create("https://www.googleapis.com/youtube/v3/playlistItems");
+    private static final URI SPOTIFY_TRACKS = URI.create("https://api.spotify.com/v1/playlists/abc/tracks");
+
+    private final RetryProperties properties = new RetryProperties();
+    private RetryExchangeFilterFunction filter;
+
+    @BeforeEach
+    void setUp() {
+        properties.setInitialBackoff(Duration.ofMillis(1));
+        properties.setMaxBackoff(Duration.ofMillis(5));
+        properties.setJitter(0);
+        properties.setMaxAttempts(3);
+        filter = new RetryExchangeFilterFunction(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void retriesServerErrorsOfReads() {
+        ScriptedExchange exchange = new ScriptedExchange(status(HttpStatus.INTERNAL_SERVER_ERROR), status(HttpStatus.OK));
+
+        assertThat(send(HttpMethod.GET, YOUTUBE_SEARCH, exchange).statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(exchange.attempts).isEqualTo(2);
+    }
+
+    @Test
+    void retriesOnly503ForWrites() {
+        ScriptedExchange failed = new ScriptedExchange(status(HttpStatus.INTERNAL_SERVER_ERROR), status(HttpStatus.OK));
+        assertThat(send(HttpMethod.POST, YOUTUBE_INSERT, failed).statusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(failed.attempts).isEqualTo(1);
+
+        ScriptedExchange unavailable = new ScriptedExchange(status(HttpStatus.SERVICE_UNAVAILABLE), status(HttpStatus.OK));
+        assertThat(send(HttpMethod.POST, YOUTUBE_INSERT, unavailable).statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(unavailable.attempts).isEqualTo(2);
+    }
+
+    @Test
+    void retries429AndHandsBackTheLastResponseWhenAttemptsRunOut() {
+        ScriptedExchange exchange = new ScriptedExchange(tooManyRequests("0"), tooManyRequests("0"), tooManyRequests("0"), status(HttpStatus.OK));
+
+        assertThat(send(HttpMethod.GET, SPOTIFY_TRACKS, exchange).statusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(exchange.attempts).isEqualTo(3);
+    }
+
+    @Test
+    void doesNotWaitForARetryAfterLongerThanTheMaximum() {
+        ScriptedExchange exchange = new ScriptedExchange(tooManyRequests("3600"), status(HttpStatus.OK));
+
+        assertThat(send(HttpMethod.GET, SPOTIFY_TRACKS, exchange).statusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(exchange.attempts).isEqualTo(1);
+    }
+
+    @Test
+    void tellsYoutubeRateLimitsApartFromOther403s() {
+        ScriptedExchange rateLimited = new ScriptedExchange(forbidden("{\"error\":{\"errors\":[{\"reason\":\"rateLimitExceeded\"}]}}"), status(HttpStatus.OK));
+        assertThat(send(HttpMethod.GET, YOUTUBE_SEARCH, rateLimited).statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(rateLimited.attempts).isEqualTo(2);
+
+        ScriptedExchange quota = new ScriptedExchange(forbidden("{\"error\":{\"errors\":[{\"reason\":\"quotaExceeded\"}]}}"), status(HttpStatus.OK));
+        ClientResponse response = send(HttpMethod.GET, YOUTUBE_SEARCH, quota);
+        assertThat(response.statusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(quota.attempts).isEqualTo(1);
+        // The body was read for the classification and put back for the caller
+        assertThat(response.bodyToMono(String.class).block()).contains("quotaExceeded");
+    }
+
+    @Test
+    void doesNotRetrySpotify403sOrClientErrors() {
+        ScriptedExchange forbidden = new ScriptedExchange(forbidden("rateLimitExceeded"), status(HttpStatus.OK));
+        assertThat(send(HttpMethod.GET, SPOTIFY_TRACKS, forbidden).statusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        assertThat(forbidden.attempts).isEqualTo(1);
+
+        ScriptedExchange badRequest = new ScriptedExchange(status(HttpStatus.BAD_REQUEST), status(HttpStatus.OK));
+        assertThat(send(HttpMethod.GET, YOUTUBE_SEARCH, badRequest).statusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(badRequest.attempts).isEqualTo(1);
+    }
+
+    @Test
+    void retriesWritesOnlyIfTheConnectionWasNeverMade() {
+        ScriptedExchange refused = new ScriptedExchange(failure(HttpMethod.POST, new ConnectException("refused")), status(HttpStatus.OK));
+        assertThat(send(HttpMethod.POST, YOUTUBE_INSERT, refused).statusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(refused.attempts).isEqualTo(2);
+
+        ScriptedExchange reset = new ScriptedExchange(failure(HttpMethod.POST, new IOException("connection reset")), status(HttpStatus.OK));
+        assertThatThrownBy(() -> send(HttpMethod.POST, YOUTUBE_INSERT, reset)).isInstanceOf(WebClientRequestException.class);
+        assertThat(reset.attempts).isEqualTo(1);
+    }
+
+    @Test
+    void retriesTimeoutsOfReadsUntilAttemptsRunOut() {
+        Supplier<Mono<ClientResponse>> timeout = () -> Mono.error(new TimeoutException("read timeout"));
+        ScriptedExchange exchange = new ScriptedExchange(timeout, timeout, timeout, status(HttpStatus.OK));
+
+        assertThatThrownBy(() -> send(HttpMethod.GET, YOUTUBE_SEARCH, exchange)).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(exchange.attempts).isEqualTo(3);
+    }
+
+    @Test
+    void leavesNonProviderCallsAlone() {
+        ScriptedExchange exchange = new ScriptedExchange(status(HttpStatus.SERVICE_UNAVAILABLE), status(HttpStatus.OK));
+
+        assertThat(send(HttpMethod.GET, URI.create("http://localhost:9999/health"), exchange).statusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(exchange.attempts).isEqualTo(1);
+    }
+
+    private ClientResponse send(HttpMethod method, URI uri, ExchangeFunction exchange) {
+        return filter.filter(ClientRequest.create(method, uri).build(), exchange).block(Duration.ofSeconds(5));
+    }
+
+    private static Supplier<Mono<ClientResponse>> status(HttpStatus status) {
+        return () -> Mono.just(ClientResponse.create(status).build());
+    }
+
+    private static Supplier<Mono<ClientResponse>> tooManyRequests(String retryAfter) {
+        return () -> Mono.just(ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, retryAfter).build());
+    }
+
+    private static Supplier<Mono<ClientResponse>> forbidden(String body) {
+        return () -> Mono.just(ClientResponse.create(HttpStatus.FORBIDDEN).body(body).build());
+    }
+
+    private static Supplier<Mono<ClientResponse>> failure(HttpMethod method, Throwable cause) {
+        return () -> Mono.error(new WebClientRequestException(cause, method, YOUTUBE_INSERT, new HttpHeaders()));
+    }
+
+    // Answers each attempt with the next scripted outcome
+    private static final class ScriptedExchange implements ExchangeFunction {
+        private final Deque<Supplier<Mono<ClientResponse>>> outcomes = new ArrayDeque<>();
+        private int attempts;
+
+        @SafeVarargs
+        private ScriptedExchange(Supplier<Mono<ClientResponse>>... outcomes) {
+            this.outcomes.addAll(List.of(outcomes));
+        }
+
+        @Override
+        public Mono<ClientResponse> exchange(ClientRequest request) {
+            return Mono.defer(() -> {
+                attempts++;
+                return outcomes.pollFirst().get();
+            });
+        }
+    }
+}